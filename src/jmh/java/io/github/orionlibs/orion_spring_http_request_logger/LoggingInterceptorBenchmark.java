@@ -0,0 +1,129 @@
+package io.github.orionlibs.orion_spring_http_request_logger;
+
+import io.github.orionlibs.orion_spring_http_request_logger.config.ConfigurationService;
+import io.github.orionlibs.orion_spring_http_request_logger.config.LoggingPolicy;
+import io.github.orionlibs.orion_spring_http_request_logger.config.OrionConfiguration;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Measures the cost that the interceptor adds to every request, across the configuration options
+ * that affect the hot path. The log records are published to a handler that discards them,
+ * so the numbers include building the log message but not writing it.
+ * Run it with {@code mvn -P benchmark verify}, which also reports allocations with {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingInterceptorBenchmark
+{
+    @Param({"*", ".*/users/.*", "^/api/v[0-9]+/users$"})
+    public String uriPattern;
+    @Param({"*", "GET", "POST,PUT,PATCH,DELETE,HEAD,OPTIONS,GET"})
+    public String httpMethodsLogged;
+    @Param({"false", "true"})
+    public boolean queryParametersLogged;
+    @Param({"false", "true"})
+    public boolean durationLogged;
+    private Logger interceptorLogger;
+    private LoggingInterceptor interceptor;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private Object handler;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        OrionConfiguration configuration = OrionConfiguration.loadFeatureConfiguration(new MockEnvironment());
+        configuration.updateProp("orionlibs.orion_spring_http_request_logger.log.uris.logged.pattern", uriPattern);
+        configuration.updateProp("orionlibs.orion_spring_http_request_logger.log.http.methods.logged", httpMethodsLogged);
+        configuration.updateProp("orionlibs.orion_spring_http_request_logger.log.uri.query.params.enabled", Boolean.toString(queryParametersLogged));
+        configuration.updateProp("orionlibs.orion_spring_http_request_logger.log.request.processing.duration.enabled", Boolean.toString(durationLogged));
+        ConfigurationService.registerConfiguration(configuration);
+        interceptorLogger = Logger.getLogger(LoggingInterceptor.class.getName());
+        interceptorLogger.setUseParentHandlers(false);
+        interceptorLogger.addHandler(new DiscardingHandler());
+        interceptor = new LoggingInterceptor();
+        request = new MockHttpServletRequest("GET", "/api/v1/users");
+        request.setRemoteAddr("127.0.0.1");
+        request.setQueryString("query=hello+there&options=45");
+        response = new MockHttpServletResponse();
+        handler = "io.github.orionlibs.orion_spring_http_request_logger.controller.MockController#getUsers()";
+    }
+
+
+    /**
+     * the work of preHandle and afterCompletion without the sink, i.e. capturing the request, building its record and formatting it
+     */
+    @Benchmark
+    public String captureAndBuildLog()
+    {
+        LoggingPolicy policy = ConfigurationService.getLoggingPolicy();
+        if(!policy.isRequestLogged(request.getMethod(), request.getRequestURI()))
+        {
+            return null;
+        }
+        RequestLogContext context = RequestLogContext.capture(request, policy, durationLogged);
+        try
+        {
+            RequestLogRecord record = RequestLogRecord.forCompletion(context, request, response, handler, null, null, durationLogged ? context.getElapsedNanos() : -1L);
+            return LogService.buildLog(record);
+        }
+        finally
+        {
+            RequestLogContext.release(context);
+        }
+    }
+
+
+    @Benchmark
+    public void interceptRequest(Blackhole blackhole) throws Exception
+    {
+        blackhole.consume(interceptor.preHandle(request, response, handler));
+        interceptor.postHandle(request, response, handler, null);
+        interceptor.afterCompletion(request, response, handler, null);
+    }
+
+
+    private static final class DiscardingHandler extends Handler
+    {
+        @Override
+        public void publish(LogRecord record)
+        {
+        }
+
+
+        @Override
+        public void flush()
+        {
+        }
+
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.orionlibs.orion_spring_http_request_logger;
+
+import io.github.orionlibs.orion_spring_http_request_logger.config.ConfigurationService;
+import io.github.orionlibs.orion_spring_http_request_logger.config.OrionConfiguration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Load test that compares the request throughput with the interceptor enabled on a pool of platform threads,
+ * sized like the default Tomcat pool, against a virtual thread per request.
+ * Every request blocks for {@code handlerBlockingMicros}, like a handler that waits for a database or a downstream service,
+ * so virtual threads are expected to scale with the number of concurrent requests as long as the interceptor never pins their carriers.
+ * The benchmark JVM runs with {@code -Djdk.tracePinnedThreads=short}, so any pinning in the logging path is printed with the results.
+ * Run it with {@code mvn -P benchmark verify -Djmh.args="VirtualThreadLoadBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.tracePinnedThreads=short")
+public class VirtualThreadLoadBenchmark
+{
+    private static final int REQUESTS_PER_INVOCATION = 10_000;
+    private static final int PLATFORM_THREADS = 200;
+    @Param({"PLATFORM", "VIRTUAL"})
+    public String threads;
+    @Param({"false", "true"})
+    public boolean asyncLogging;
+    @Param({"100"})
+    public long handlerBlockingMicros;
+    private LoggingInterceptor interceptor;
+    private ExecutorService executor;
+    private Object handler;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        OrionConfiguration configuration = OrionConfiguration.loadFeatureConfiguration(new MockEnvironment());
+        configuration.updateProp("orionlibs.orion_spring_http_request_logger.log.request.processing.duration.enabled", "true");
+        configuration.updateProp("orionlibs.orion_spring_http_request_logger.log.async.enabled", Boolean.toString(asyncLogging));
+        configuration.updateProp("orionlibs.orion_spring_http_request_logger.log.async.overflow.policy", "BLOCK");
+        ConfigurationService.registerConfiguration(configuration);
+        Logger interceptorLogger = Logger.getLogger(LoggingInterceptor.class.getName());
+        interceptorLogger.setUseParentHandlers(false);
+        interceptorLogger.addHandler(new DiscardingHandler());
+        interceptor = new LoggingInterceptor();
+        handler = "io.github.orionlibs.orion_spring_http_request_logger.controller.MockController#getUsers()";
+        executor = "VIRTUAL".equals(threads) ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(PLATFORM_THREADS);
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        interceptor.destroy();
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS_PER_INVOCATION)
+    public void handleRequests() throws InterruptedException
+    {
+        CountDownLatch completed = new CountDownLatch(REQUESTS_PER_INVOCATION);
+        long handlerBlockingNanos = TimeUnit.MICROSECONDS.toNanos(handlerBlockingMicros);
+        for(int i = 0; i < REQUESTS_PER_INVOCATION; i++)
+        {
+            executor.execute(() -> {
+                try
+                {
+                    handleRequest(handlerBlockingNanos);
+                }
+                finally
+                {
+                    completed.countDown();
+                }
+            });
+        }
+        completed.await();
+    }
+
+
+    private void handleRequest(long handlerBlockingNanos)
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users");
+        request.setRemoteAddr("127.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try
+        {
+            interceptor.preHandle(request, response, handler);
+            LockSupport.parkNanos(handlerBlockingNanos);
+            interceptor.afterCompletion(request, response, handler, null);
+        }
+        catch(Exception e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    private static final class DiscardingHandler extends Handler
+    {
+        @Override
+        public void publish(LogRecord record)
+        {
+        }
+
+
+        @Override
+        public void flush()
+        {
+        }
+
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
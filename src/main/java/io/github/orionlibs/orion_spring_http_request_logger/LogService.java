@@ -1,13 +1,13 @@
 package io.github.orionlibs.orion_spring_http_request_logger;
 
-import io.github.orionlibs.orion_spring_http_request_logger.config.ConfigurationService;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import jakarta.servlet.http.HttpServletRequest;
+import io.github.orionlibs.orion_spring_http_request_logger.config.LoggingPolicy;
+import io.github.orionlibs.orion_spring_http_request_logger.filter.QueryStringRedactor;
+import io.github.orionlibs.orion_spring_http_request_logger.format.JsonLogWriter;
+import io.github.orionlibs.orion_spring_http_request_logger.format.LogLineTemplate;
+import io.github.orionlibs.orion_spring_http_request_logger.format.OutputFormat;
+import io.github.orionlibs.orion_spring_http_request_logger.format.StringBuilderPool;
+import io.github.orionlibs.orion_spring_http_request_logger.sink.BinaryRecordEncoder;
+import io.github.orionlibs.orion_spring_http_request_logger.sink.BinaryRecordFormat;
 
 /**
  * Service whose job is to build the components of the HTTP request log
@@ -15,114 +15,350 @@ import jakarta.servlet.http.HttpServletRequest;
 public class LogService
 {
     /**
-     * It logs this HTTP request's data before it is handled by the controller framework.
-     * It builds the components of the log message based on the configuration and
-     * if there are components, it logs the message.
-     * @param request
-     * @return the log message optional
+     * It builds the single log message of the given completed request in the output format of
+     * the logging policy the record was captured with.
+     * @param record
+     * @return the log message or null if there is nothing to log
      */
-    static Optional<String> buildLogForPrehandle(HttpServletRequest request)
+    public static String buildLog(RequestLogRecord record)
     {
-        String logRecordPattern = ConfigurationService.getProp("orionlibs.orion_spring_http_request_logger.log.pattern.for.each.log.record.element");
-        String ipAddressLog = getIpAddressLog(request, logRecordPattern);
-        String httpMethodLog = getHttpMethodLog(request);
-        String uriLog = getUriLog(request);
-        String queryParametersLog = getURIQueryString(request);
-        List<String> logElements = new ArrayList<>();
-        if(ipAddressLog != null)
+        if(record.getPolicy().getOutputFormat() == OutputFormat.JSON)
         {
-            logElements.add(ipAddressLog);
+            return buildJsonLog(record);
         }
-        if(httpMethodLog != null && uriLog != null)
-        {
-            logElements.add(String.format(logRecordPattern, "URI", httpMethodLog + " " + buildCompleteURILog(uriLog, queryParametersLog)));
-        }
-        else if(httpMethodLog == null && uriLog != null)
-        {
-            logElements.add(String.format(logRecordPattern, "URI", buildCompleteURILog(uriLog, queryParametersLog)));
-        }
-        else if(httpMethodLog != null && uriLog == null)
-        {
-            logElements.add(String.format(logRecordPattern, "URI", httpMethodLog));
-        }
-        if(!logElements.isEmpty())
-        {
-            return Optional.<String>of(String.join(", ", logElements.toArray(new String[0])));
-        }
-        return Optional.empty();
+        return buildTextLog(record);
     }
 
 
-    private static String getURIQueryString(HttpServletRequest request)
+    private static String buildTextLog(RequestLogRecord record)
     {
-        String queryParametersLog = null;
-        if(ConfigurationService.getBooleanProp("orionlibs.orion_spring_http_request_logger.log.uri.query.params.enabled"))
+        LoggingPolicy policy = record.getPolicy();
+        LogLineTemplate logLineTemplate = policy.getLogLineTemplate();
+        StringBuilder logMessage = StringBuilderPool.acquire();
+        try
         {
-            queryParametersLog = "?" + request.getQueryString();
+            boolean hasElements = appendRequestElements(logMessage, record.getRemoteAddress(), record.getHttpMethod(), record.getRequestURI(), record.getQueryString(), policy);
+            if(record.getRouteTemplate() != null)
+            {
+                hasElements = appendSeparator(logMessage, hasElements);
+                logLineTemplate.appendElement(logMessage, "Route", record.getRouteTemplate());
+            }
+            String[] headers = record.getHeaders();
+            if(headers != null)
+            {
+                for(int i = 0; i < headers.length; i += 2)
+                {
+                    hasElements = appendSeparator(logMessage, hasElements);
+                    logLineTemplate.appendElement(logMessage, headers[i], headers[i + 1]);
+                }
+            }
+            if(policy.isResponseStatusLoggingEnabled())
+            {
+                hasElements = appendSeparator(logMessage, hasElements);
+                int valueStart = logLineTemplate.beginElement(logMessage, "Status");
+                logMessage.append(record.getStatus());
+                logLineTemplate.endElement(logMessage, "Status", valueStart);
+            }
+            if(policy.isResponseSizeLoggingEnabled() && record.getResponseBytes() >= 0)
+            {
+                hasElements = appendSeparator(logMessage, hasElements);
+                int valueStart = logLineTemplate.beginElement(logMessage, "Bytes");
+                logMessage.append(record.getResponseBytes());
+                logLineTemplate.endElement(logMessage, "Bytes", valueStart);
+            }
+            if(record.getDurationNanos() >= 0)
+            {
+                hasElements = appendSeparator(logMessage, hasElements);
+                int valueStart = logLineTemplate.beginElement(logMessage, "Duration");
+                logMessage.append(record.getDurationNanos()).append("ns");
+                logLineTemplate.endElement(logMessage, "Duration", valueStart);
+                if(record.getHandler() != null)
+                {
+                    logMessage.append(", ");
+                    logLineTemplate.appendElement(logMessage, "Handler", record.getHandler().toString());
+                }
+            }
+            if(policy.isExceptionLoggingEnabled() && record.getExceptionClassName() != null)
+            {
+                hasElements = appendSeparator(logMessage, hasElements);
+                logLineTemplate.appendElement(logMessage, "Exception", record.getExceptionClassName());
+            }
+            if(record.getRequestBody() != null)
+            {
+                hasElements = appendSeparator(logMessage, hasElements);
+                logLineTemplate.appendElement(logMessage, "Request Body", record.getRequestBody());
+            }
+            if(record.getResponseBody() != null)
+            {
+                hasElements = appendSeparator(logMessage, hasElements);
+                logLineTemplate.appendElement(logMessage, "Response Body", record.getResponseBody());
+            }
+            if(record.getRepeats() > 0)
+            {
+                hasElements = appendSeparator(logMessage, hasElements);
+                int valueStart = logLineTemplate.beginElement(logMessage, "Repeated");
+                logMessage.append(record.getRepeats()).append(" times in ").append(record.getRepeatWindowSeconds()).append('s');
+                logLineTemplate.endElement(logMessage, "Repeated", valueStart);
+            }
+            return hasElements ? logMessage.toString() : null;
+        }
+        finally
+        {
+            StringBuilderPool.release(logMessage);
         }
-        return queryParametersLog;
     }
 
 
-    private static String getUriLog(HttpServletRequest request)
+    private static String buildJsonLog(RequestLogRecord record)
     {
-        String uriLog = null;
-        if(ConfigurationService.getBooleanProp("orionlibs.orion_spring_http_request_logger.log.uri.enabled"))
+        LoggingPolicy policy = record.getPolicy();
+        String httpMethodLog = getHttpMethodLog(record.getHttpMethod(), policy);
+        String uriLog = getUriLog(record.getRequestURI(), policy);
+        JsonLogWriter logMessage = JsonLogWriter.acquire();
+        try
         {
-            String uriPatternExpression = ConfigurationService.getProp("orionlibs.orion_spring_http_request_logger.log.uris.logged.pattern");
-            if("*".equals(uriPatternExpression))
+            logMessage.beginObject();
+            if(policy.isIpAddressLoggingEnabled())
+            {
+                logMessage.field("ip", record.getRemoteAddress());
+            }
+            if(httpMethodLog != null)
             {
-                uriLog = request.getRequestURI();
+                logMessage.field("method", httpMethodLog);
             }
-            else
+            if(uriLog != null)
             {
-                Pattern uriPattern = Pattern.compile(uriPatternExpression);
-                Matcher matcher = uriPattern.matcher(request.getRequestURI());
-                if(matcher.matches())
+                logMessage.field("uri", uriLog);
+                if(policy.isUriQueryParametersLoggingEnabled() && record.getQueryString() != null)
                 {
-                    uriLog = request.getRequestURI();
+                    writeQueryString(logMessage, record.getQueryString(), policy.getQueryStringRedactor());
                 }
             }
+            if(record.getRouteTemplate() != null)
+            {
+                logMessage.field("route", record.getRouteTemplate());
+            }
+            String[] headers = record.getHeaders();
+            if(headers != null)
+            {
+                logMessage.beginObject("headers");
+                for(int i = 0; i < headers.length; i += 2)
+                {
+                    logMessage.fieldWithEscapedName(headers[i], headers[i + 1]);
+                }
+                logMessage.endObject();
+            }
+            if(policy.isResponseStatusLoggingEnabled())
+            {
+                logMessage.field("status", record.getStatus());
+            }
+            if(policy.isResponseSizeLoggingEnabled() && record.getResponseBytes() >= 0)
+            {
+                logMessage.field("bytes", record.getResponseBytes());
+            }
+            if(record.getDurationNanos() >= 0)
+            {
+                logMessage.field("durationNanos", record.getDurationNanos());
+            }
+            if(record.getHandler() != null)
+            {
+                logMessage.field("handler", record.getHandler().toString());
+            }
+            if(policy.isExceptionLoggingEnabled() && record.getExceptionClassName() != null)
+            {
+                logMessage.field("exception", record.getExceptionClassName());
+            }
+            if(record.getRequestBody() != null)
+            {
+                logMessage.field("requestBody", record.getRequestBody());
+            }
+            if(record.getResponseBody() != null)
+            {
+                logMessage.field("responseBody", record.getResponseBody());
+            }
+            if(record.getRepeats() > 0)
+            {
+                logMessage.field("repeated", record.getRepeats());
+                logMessage.field("repeatWindowSeconds", record.getRepeatWindowSeconds());
+            }
+            return logMessage.endObject().toString();
+        }
+        finally
+        {
+            JsonLogWriter.release(logMessage);
         }
-        return uriLog;
     }
 
 
-    private static String getHttpMethodLog(HttpServletRequest request)
+    /**
+     * It encodes the given completed request into the given encoder in the binary format of the memory-mapped log files.
+     * The same components as in the text and JSON formats are encoded, based on the logging policy the record was captured with.
+     * @param record
+     * @param encoder
+     */
+    public static void encodeBinaryLog(RequestLogRecord record, BinaryRecordEncoder encoder)
     {
-        String httpMethodLog = null;
-        if(ConfigurationService.getBooleanProp("orionlibs.orion_spring_http_request_logger.log.http.method.enabled"))
+        LoggingPolicy policy = record.getPolicy();
+        String httpMethodLog = getHttpMethodLog(record.getHttpMethod(), policy);
+        String uriLog = getUriLog(record.getRequestURI(), policy);
+        encoder.beginRecord();
+        encoder.field(BinaryRecordFormat.TIMESTAMP_MILLIS, record.getTimestampMillis());
+        if(policy.isIpAddressLoggingEnabled())
+        {
+            encoder.field(BinaryRecordFormat.IP, record.getRemoteAddress());
+        }
+        encoder.field(BinaryRecordFormat.METHOD, httpMethodLog);
+        if(uriLog != null)
+        {
+            encoder.field(BinaryRecordFormat.URI, uriLog);
+            if(policy.isUriQueryParametersLoggingEnabled() && record.getQueryString() != null)
+            {
+                StringBuilder queryString = StringBuilderPool.acquire();
+                try
+                {
+                    policy.getQueryStringRedactor().appendRedacted(queryString, record.getQueryString());
+                    encoder.field(BinaryRecordFormat.QUERY, queryString);
+                }
+                finally
+                {
+                    StringBuilderPool.release(queryString);
+                }
+            }
+        }
+        encoder.field(BinaryRecordFormat.ROUTE, record.getRouteTemplate());
+        String[] headers = record.getHeaders();
+        if(headers != null)
         {
-            String httpMethodsToLogPattern = ConfigurationService.getProp("orionlibs.orion_spring_http_request_logger.log.http.methods.logged");
-            String[] httpMethodsToLog = httpMethodsToLogPattern.split(",");
-            if("*".equals(httpMethodsToLogPattern)
-                            || Arrays.stream(httpMethodsToLog).anyMatch(m -> m.equalsIgnoreCase(request.getMethod())))
+            for(int i = 0; i < headers.length; i += 2)
             {
-                httpMethodLog = request.getMethod();
+                encoder.header(headers[i], headers[i + 1]);
             }
         }
-        return httpMethodLog;
+        if(policy.isResponseStatusLoggingEnabled())
+        {
+            encoder.field(BinaryRecordFormat.STATUS, record.getStatus());
+        }
+        if(policy.isResponseSizeLoggingEnabled() && record.getResponseBytes() >= 0)
+        {
+            encoder.field(BinaryRecordFormat.BYTES, record.getResponseBytes());
+        }
+        if(record.getDurationNanos() >= 0)
+        {
+            encoder.field(BinaryRecordFormat.DURATION_NANOS, record.getDurationNanos());
+            if(record.getHandler() != null)
+            {
+                encoder.field(BinaryRecordFormat.HANDLER, record.getHandler().toString());
+            }
+        }
+        if(policy.isExceptionLoggingEnabled())
+        {
+            encoder.field(BinaryRecordFormat.EXCEPTION, record.getExceptionClassName());
+        }
+        encoder.field(BinaryRecordFormat.REQUEST_BODY, record.getRequestBody());
+        encoder.field(BinaryRecordFormat.RESPONSE_BODY, record.getResponseBody());
+        if(record.getRepeats() > 0)
+        {
+            encoder.field(BinaryRecordFormat.REPEATS, record.getRepeats());
+            encoder.field(BinaryRecordFormat.REPEAT_WINDOW_SECONDS, record.getRepeatWindowSeconds());
+        }
+        encoder.endRecord();
     }
 
 
-    private static String getIpAddressLog(HttpServletRequest request, String logRecordPattern)
+    private static void writeQueryString(JsonLogWriter logMessage, String queryString, QueryStringRedactor queryStringRedactor)
     {
-        String ipAddressLog = null;
-        if(ConfigurationService.getBooleanProp("orionlibs.orion_spring_http_request_logger.log.ip.address.enabled"))
+        if(queryStringRedactor.isEmpty())
+        {
+            logMessage.field("query", queryString);
+            return;
+        }
+        StringBuilder redactedQueryString = StringBuilderPool.acquire();
+        try
         {
-            ipAddressLog = String.format(logRecordPattern, "IP", request.getRemoteAddr());
+            queryStringRedactor.appendRedacted(redactedQueryString, queryString);
+            logMessage.field("query", redactedQueryString);
+        }
+        finally
+        {
+            StringBuilderPool.release(redactedQueryString);
         }
-        return ipAddressLog;
     }
 
 
-    private static String buildCompleteURILog(String uriLog, String queryParametersLog)
+    /**
+     * It appends the IP and URI components of the log message.
+     * @return true if any component was appended
+     */
+    private static boolean appendRequestElements(StringBuilder logMessage, String remoteAddress, String httpMethod, String requestURI, String queryString, LoggingPolicy policy)
     {
-        String completeURILog = uriLog;
-        if(queryParametersLog != null)
+        String httpMethodLog = getHttpMethodLog(httpMethod, policy);
+        String uriLog = getUriLog(requestURI, policy);
+        LogLineTemplate logLineTemplate = policy.getLogLineTemplate();
+        if(policy.isIpAddressLoggingEnabled())
         {
-            completeURILog += queryParametersLog;
+            logLineTemplate.appendElement(logMessage, "IP", remoteAddress);
         }
-        return completeURILog;
+        if(httpMethodLog != null || uriLog != null)
+        {
+            appendSeparator(logMessage, policy.isIpAddressLoggingEnabled());
+            int valueStart = logLineTemplate.beginElement(logMessage, "URI");
+            appendURILog(logMessage, httpMethodLog, uriLog, queryString, policy);
+            logLineTemplate.endElement(logMessage, "URI", valueStart);
+        }
+        return policy.isIpAddressLoggingEnabled() || httpMethodLog != null || uriLog != null;
+    }
+
+
+    /**
+     * It appends the separator of log message components if a component precedes.
+     * @return true since there is a component after the separator
+     */
+    private static boolean appendSeparator(StringBuilder logMessage, boolean hasElements)
+    {
+        if(hasElements)
+        {
+            logMessage.append(", ");
+        }
+        return true;
+    }
+
+
+    private static void appendURILog(StringBuilder logMessage, String httpMethodLog, String uriLog, String queryString, LoggingPolicy policy)
+    {
+        if(httpMethodLog != null)
+        {
+            logMessage.append(httpMethodLog);
+            if(uriLog != null)
+            {
+                logMessage.append(' ');
+            }
+        }
+        if(uriLog != null)
+        {
+            logMessage.append(uriLog);
+            if(policy.isUriQueryParametersLoggingEnabled() && queryString != null)
+            {
+                logMessage.append('?');
+                policy.getQueryStringRedactor().appendRedacted(logMessage, queryString);
+            }
+        }
+    }
+
+
+    /**
+     * The URI has already passed {@link LoggingPolicy#isRequestLogged(String, String)}, so it is not matched again.
+     */
+    private static String getUriLog(String requestURI, LoggingPolicy policy)
+    {
+        return policy.isUriLoggingEnabled() ? requestURI : null;
+    }
+
+
+    /**
+     * The HTTP method has already passed {@link LoggingPolicy#isRequestLogged(String, String)}, so it is not matched again.
+     */
+    private static String getHttpMethodLog(String httpMethod, LoggingPolicy policy)
+    {
+        return policy.isHttpMethodLoggingEnabled() ? httpMethod : null;
     }
 }
@@ -1,27 +1,60 @@
 package io.github.orionlibs.orion_spring_http_request_logger;
 
 import io.github.orionlibs.orion_spring_http_request_logger.config.ConfigurationService;
+import io.github.orionlibs.orion_spring_http_request_logger.config.LoggingPolicy;
+import io.github.orionlibs.orion_spring_http_request_logger.metrics.LatencyMetricsService;
+import io.github.orionlibs.orion_spring_http_request_logger.metrics.OpenMetricsService;
+import io.github.orionlibs.orion_spring_http_request_logger.metrics.RequestRateService;
+import io.github.orionlibs.orion_spring_http_request_logger.metrics.RouteKey;
+import io.github.orionlibs.orion_spring_http_request_logger.metrics.RouteTemplateResolver;
+import io.github.orionlibs.orion_spring_http_request_logger.sampling.LogDeduplicator;
+import io.github.orionlibs.orion_spring_http_request_logger.sampling.RequestSampler;
+import io.github.orionlibs.orion_spring_http_request_logger.sampling.TokenBucketRateLimiter;
+import io.github.orionlibs.orion_spring_http_request_logger.scheduling.PeriodicTask;
+import io.github.orionlibs.orion_spring_http_request_logger.sink.AsyncLogWriter;
+import io.github.orionlibs.orion_spring_http_request_logger.sink.RequestLogSinks;
+import io.github.orionlibs.orion_spring_http_request_logger.watchdog.InFlightRequest;
+import io.github.orionlibs.orion_spring_http_request_logger.watchdog.SlowRequestWatchdog;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.logging.Handler;
 import java.util.logging.Logger;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NoArgsConstructor;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.lang.Nullable;
-import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
 
 /**
- * Spring MVC interceptor whose job is to log HTTP requests
+ * Spring MVC interceptor whose job is to log HTTP requests.
+ * It is safe to run on virtual threads: the request path holds no monitors and keeps no per-thread caches.
+ * The only locks it may take are {@link ReentrantLock}s, when the sink, the asynchronous log writer, the token bucket of sampling
+ * or the log deduplicator are recreated after a configuration change, which unmount a waiting virtual thread instead of pinning its carrier.
+ * These are long-lived and kept here rather than in the immutable {@link LoggingPolicy}, so that their state survives configuration changes,
+ * and they are only recreated from the current policy when their own settings change.
  */
 @NoArgsConstructor
-public class LoggingInterceptor implements HandlerInterceptor
+public class LoggingInterceptor implements AsyncHandlerInterceptor, DisposableBean
 {
     private final static Logger log;
+    private final static Consumer<String> summaryLogger;
+    private final static Consumer<String> watchdogLogger;
+    private static volatile AsyncLogWriter<RequestLogRecord> asyncLogWriter;
+    private static volatile TokenBucketRateLimiter samplingRateLimiter;
+    private static volatile LogDeduplicator logDeduplicator;
+    private final static ReentrantLock writersLock = new ReentrantLock();
     private Runnable callback;
 
     static
     {
         log = Logger.getLogger(LoggingInterceptor.class.getName());
+        summaryLogger = message -> log.info(message);
+        watchdogLogger = message -> log.warning(message);
+        ConfigurationService.addChangeListener(LoggingInterceptor::schedulePeriodicTasks);
+        schedulePeriodicTasks();
     }
 
     /**
@@ -35,9 +68,16 @@ public class LoggingInterceptor implements HandlerInterceptor
 
 
     /**
-     * It logs this HTTP request's data before it is handled by the controller framework.
-     * It builds the components of the log message based on the configuration and
-     * if there are components, it logs the message.
+     * It captures the raw fields and the start time of this HTTP request into a pooled context attached to the request,
+     * before it is handled by the controller framework. Nothing is formatted or logged here, because whether
+     * the request is logged is only decided when its outcome is known.
+     * Requests whose URI is excluded, e.g. health checks and static resources, or whose HTTP method or URI are filtered out
+     * stop at that single check and get no context, so they are neither timed, nor sampled, nor logged, nor counted in metrics.
+     * When the slow request watchdog is enabled, the request is also tracked as in flight until it completes.
+     * The async dispatch of a request whose handling started concurrently, e.g. of a handler that returns a {@link java.util.concurrent.Callable}
+     * or a {@link org.springframework.web.context.request.async.DeferredResult}, keeps the context of the first dispatch,
+     * so the request is logged once and its duration is the total wall time of both dispatches.
+     * The async dispatch is tracked by the slow request watchdog again, on the thread that handles it, with the start time of the first dispatch.
      * @param request HTTP request
      * @param response HTTP response
      * @param handler
@@ -46,22 +86,59 @@ public class LoggingInterceptor implements HandlerInterceptor
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
     {
-        LogService.buildLogForPrehandle(request).ifPresent(x -> log.info(x));
-        if(ConfigurationService.getBooleanProp("orionlibs.orion_spring_http_request_logger.log.request.processing.duration.enabled"))
+        RequestLogContext asyncContext = (RequestLogContext)request.getAttribute(RequestLogContext.REQUEST_ATTRIBUTE);
+        if(asyncContext != null)
         {
-            long startTime = System.nanoTime();
-            request.setAttribute("orionlibs.orion_spring_http_request_logger", startTime);
+            InFlightRequest firstDispatch = asyncContext.getInFlightRequest();
+            if(firstDispatch != null)
+            {
+                asyncContext.setInFlightRequest(SlowRequestWatchdog.track(asyncContext.getHttpMethod(),
+                                asyncContext.getRequestURI(),
+                                firstDispatch.getStartNanos(),
+                                asyncContext.getPolicy().getSlowRequestWatchdogMaxTrackedRequests()));
+            }
+            return true;
         }
-        if(callback != null)
+        LoggingPolicy policy = ConfigurationService.getLoggingPolicy();
+        if(!policy.isRequestLogged(request.getMethod(), request.getRequestURI()))
         {
-            callback.run();
+            return true;
         }
+        RequestSampler requestSampler = policy.getRequestSampler();
+        boolean timed = policy.isRequestProcessingDurationLoggingEnabled() || policy.isLatencyHistogramsEnabled() || policy.isMetricsEndpointEnabled()
+                        || (requestSampler != null && requestSampler.isSlowRequestRuleEnabled());
+        RequestLogContext context = RequestLogContext.capture(request, policy, timed);
+        if(policy.isSlowRequestWatchdogEnabled())
+        {
+            context.setInFlightRequest(SlowRequestWatchdog.track(context.getHttpMethod(), context.getRequestURI(), policy.getSlowRequestWatchdogMaxTrackedRequests()));
+        }
+        request.setAttribute(RequestLogContext.REQUEST_ATTRIBUTE, context);
         return true;
     }
 
 
     /**
-     * It logs this HTTP request's data after it is handled and before the response is built.
+     * It stops the slow request watchdog from tracking a request whose handling started concurrently,
+     * because the thread of this dispatch goes back to the pool and Spring skips afterCompletion until the async dispatch completes.
+     * The context stays attached to the request for that dispatch.
+     * @param request HTTP request
+     * @param response HTTP response
+     * @param handler
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler)
+    {
+        RequestLogContext context = (RequestLogContext)request.getAttribute(RequestLogContext.REQUEST_ATTRIBUTE);
+        if(context != null && context.getInFlightRequest() != null)
+        {
+            SlowRequestWatchdog.untrack(context.getInFlightRequest());
+        }
+    }
+
+
+    /**
+     * It does nothing, because this is skipped for requests that throw and it runs before the view is rendered.
+     * The request is logged in {@link #afterCompletion(HttpServletRequest, HttpServletResponse, Object, Exception)} instead.
      * @param request HTTP request
      * @param response HTTP response
      * @param handler
@@ -72,18 +149,21 @@ public class LoggingInterceptor implements HandlerInterceptor
     public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
                     @Nullable ModelAndView modelAndView) throws Exception
     {
-        if(ConfigurationService.getBooleanProp("orionlibs.orion_spring_http_request_logger.log.request.processing.duration.enabled"))
-        {
-            long startTime = (Long)request.getAttribute("orionlibs.orion_spring_http_request_logger");
-            long endTime = System.nanoTime();
-            long executeTime = endTime - startTime;
-            log.info("Handler: " + handler + " took " + executeTime + "ns");
-        }
     }
 
 
     /**
      * It logs this HTTP request's data after it is handled and after the response is built.
+     * This is the single log record of the request and it includes the response status, the response size,
+     * the exception that escaped the handler and the total request processing duration, based on the configuration.
+     * When sampling is enabled, the sampler decides here, with the outcome of the request known,
+     * whether the request is logged, before any of the record is built.
+     * When deduplication is enabled, the repeats of an identical request within the window are then suppressed
+     * and summarized when the window closes. The {@code log.sampling.max.lines.per.second} cap only counts the requests that are left after that.
+     * When latency histograms are enabled, this is where the request processing duration is recorded.
+     * When request rates are enabled, the request is counted in the rolling window of its route and status class.
+     * When the metrics endpoint is enabled, the request is counted in the cumulative metrics of its route.
+     * The route template that the request was mapped to is only resolved if it is logged or if it keys metrics.
      * @param request HTTP request
      * @param response HTTP response
      * @param handler
@@ -94,6 +174,328 @@ public class LoggingInterceptor implements HandlerInterceptor
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
                     @Nullable Exception ex) throws Exception
     {
+        RequestLogContext context = (RequestLogContext)request.getAttribute(RequestLogContext.REQUEST_ATTRIBUTE);
+        if(context == null)
+        {
+            runCallback();
+            return;
+        }
+        request.removeAttribute(RequestLogContext.REQUEST_ATTRIBUTE);
+        if(context.getInFlightRequest() != null)
+        {
+            SlowRequestWatchdog.untrack(context.getInFlightRequest());
+        }
+        LoggingPolicy policy = context.getPolicy();
+        long executeTime = context.getElapsedNanos();
+        String routeTemplate = policy.isRouteTemplateResolved() ? RouteTemplateResolver.resolve(request, handler, policy.getRouteTemplateMaxRoutes()) : null;
+        RequestSampler requestSampler = policy.getRequestSampler();
+        RequestSampler.Decision samplingDecision = requestSampler != null ? requestSampler.sample(context.getRequestURI(), response.getStatus(), ex != null, executeTime) : null;
+        LogDeduplicator deduplicator = getCurrentLogDeduplicator();
+        //the token bucket of sampling is only asked once deduplication has let the request through, so that suppressed repeats take no permits
+        if(samplingDecision != RequestSampler.Decision.DROPPED
+                        && (deduplicator == null || !policy.isLogDeduplicationEnabled() || deduplicator.shouldLog(context.getRemoteAddress(), context.getHttpMethod(), routeTemplate, RequestLogRecord.getStatus(response, ex), LoggingInterceptor::logRepeats))
+                        && (samplingDecision == null || samplingDecision.isLogged(getCurrentSamplingRateLimiter())))
+        {
+            logCompletion(context, request, response, handler, policy.isRouteTemplateLoggingEnabled() ? routeTemplate : null, ex, executeTime);
+        }
+        if(executeTime >= 0 && policy.isLatencyHistogramsEnabled())
+        {
+            Object histogramKey = policy.isLatencyHistogramsByRoute() ? new RouteKey(context.getHttpMethod(), routeTemplate) : handler;
+            LatencyMetricsService.record(histogramKey, executeTime, policy.getLatencyHistogramsMaxHandlers());
+        }
+        if(policy.isRequestRatesEnabled())
+        {
+            RequestRateService.record(new RouteKey(context.getHttpMethod(), routeTemplate),
+                            RequestLogRecord.getStatus(response, ex),
+                            policy.getRequestRatesWindowSeconds(),
+                            policy.getRequestRatesMaxRoutes());
+        }
+        if(policy.isMetricsEndpointEnabled())
+        {
+            OpenMetricsService.record(new RouteKey(context.getHttpMethod(), routeTemplate),
+                            RequestLogRecord.getStatus(response, ex),
+                            executeTime,
+                            policy.getMetricsEndpointMaxRoutes());
+        }
+        RequestLogContext.release(context);
+        runCallback();
+    }
+
+
+    private void runCallback()
+    {
+        if(callback != null)
+        {
+            callback.run();
+        }
+    }
+
+
+    /**
+     * It emits the summaries that log deduplication still holds, stops the periodic background tasks,
+     * writes the records that are still buffered by the asynchronous log writer and stops its background thread,
+     * and then closes the request log sink.
+     */
+    @Override
+    public void destroy()
+    {
+        closeLogDeduplicator();
+        PeriodicTask.shutdownAll();
+        closeAsyncLogWriter();
+        RequestLogSinks.closeActiveSink();
+    }
+
+
+    /**
+     * It starts, reschedules or cancels the periodic background tasks, i.e. the latency and request rate summaries,
+     * the scans of the slow request watchdog and the flushes of log deduplication, so that they follow the current policy.
+     * It runs after every configuration change, so the tasks of a feature that a reload disables stop straight away.
+     */
+    private static void schedulePeriodicTasks()
+    {
+        LoggingPolicy policy = ConfigurationService.getLoggingPolicy();
+        if(policy == null)
+        {
+            return;
+        }
+        LatencyMetricsService.scheduleSummaries(policy.isLatencyHistogramsEnabled() ? policy.getLatencySummaryIntervalSeconds() : 0L, summaryLogger);
+        RequestRateService.scheduleSummaries(policy.isRequestRatesEnabled() ? policy.getRequestRatesSummaryIntervalSeconds() : 0L, summaryLogger);
+        SlowRequestWatchdog.schedule(policy.isSlowRequestWatchdogEnabled() ? policy.getSlowRequestWatchdogIntervalMillis() : 0L,
+                        policy.getSlowRequestWatchdogThresholdMillis(),
+                        policy.getSlowRequestWatchdogMaxStackDepth(),
+                        watchdogLogger);
+        getCurrentLogDeduplicator();
+    }
+
+
+    private static void logCompletion(RequestLogContext context, HttpServletRequest request, HttpServletResponse response, Object handler, String routeTemplate, Exception ex, long executeTime)
+    {
+        LoggingPolicy policy = context.getPolicy();
+        long loggedExecuteTime = policy.isRequestProcessingDurationLoggingEnabled() ? executeTime : -1L;
+        log(RequestLogRecord.forCompletion(context, request, response, handler, routeTemplate, ex, loggedExecuteTime));
+    }
+
+
+    /**
+     * It logs the summary of the repeats of an identical request that log deduplication suppressed,
+     * in the output format of the current policy and through the same sink as the records of requests.
+     */
+    private static void logRepeats(String remoteAddress, String httpMethod, String route, int status, long repeats, long windowSeconds)
+    {
+        log(RequestLogRecord.forRepeats(ConfigurationService.getLoggingPolicy(), remoteAddress, httpMethod, route, status, repeats, windowSeconds));
+    }
+
+
+    private static void log(RequestLogRecord record)
+    {
+        if(record.getPolicy().isAsyncLoggingEnabled())
+        {
+            getCurrentAsyncLogWriter().submit(record);
+        }
+        else
+        {
+            writeRecord(record);
+        }
+    }
+
+
+    /**
+     * It writes the given record to the request log sink. A sink that fails does not fail the request.
+     */
+    private static void writeRecord(RequestLogRecord record)
+    {
+        try
+        {
+            RequestLogSinks.write(record, log);
+        }
+        catch(RuntimeException e)
+        {
+            log.warning("Could not write the request log record: " + e);
+        }
+    }
+
+
+    /**
+     * It returns the asynchronous log writer, after (re)creating it if the buffer settings of the current policy
+     * are not the ones the current writer was created with. This only happens on the first request
+     * after a configuration change, so the writer is otherwise read without locking.
+     * Like the sink of {@link RequestLogSinks#write(RequestLogRecord, Logger)}, the writer is only ever created from the current policy,
+     * so requests that started before a configuration change and complete after it cannot swap an older writer back in.
+     * The replaced writer stops accepting records and its background thread writes the ones it has buffered and then exits, so no request waits for it.
+     */
+    private static AsyncLogWriter<RequestLogRecord> getCurrentAsyncLogWriter()
+    {
+        AsyncLogWriter<RequestLogRecord> writer = asyncLogWriter;
+        LoggingPolicy policy = ConfigurationService.getLoggingPolicy();
+        if(writer == null || !isConfiguredWith(writer, policy))
+        {
+            AsyncLogWriter<RequestLogRecord> previousWriter = null;
+            writersLock.lock();
+            try
+            {
+                writer = asyncLogWriter;
+                policy = ConfigurationService.getLoggingPolicy();
+                if(writer == null || !isConfiguredWith(writer, policy))
+                {
+                    previousWriter = writer;
+                    writer = new AsyncLogWriter<>(policy.getAsyncBufferSize(),
+                                    policy.getAsyncBatchSize(),
+                                    policy.getAsyncOverflowPolicy(),
+                                    policy.getAsyncOverflowSampleRate(),
+                                    LoggingInterceptor::writeBatch);
+                    asyncLogWriter = writer;
+                }
+            }
+            finally
+            {
+                writersLock.unlock();
+            }
+            if(previousWriter != null)
+            {
+                previousWriter.shutdown();
+            }
+        }
+        return writer;
+    }
+
+
+    /**
+     * It returns the token bucket that caps the sampled log lines, after (re)creating it if the current policy has a different limit,
+     * or null if the current policy has no limit.
+     */
+    private static TokenBucketRateLimiter getCurrentSamplingRateLimiter()
+    {
+        TokenBucketRateLimiter rateLimiter = samplingRateLimiter;
+        int maxLinesPerSecond = ConfigurationService.getLoggingPolicy().getSamplingMaxLinesPerSecond();
+        if(maxLinesPerSecond <= 0)
+        {
+            return null;
+        }
+        if(rateLimiter == null || !rateLimiter.isConfiguredWith(maxLinesPerSecond))
+        {
+            writersLock.lock();
+            try
+            {
+                rateLimiter = samplingRateLimiter;
+                maxLinesPerSecond = ConfigurationService.getLoggingPolicy().getSamplingMaxLinesPerSecond();
+                if(maxLinesPerSecond <= 0)
+                {
+                    return null;
+                }
+                if(rateLimiter == null || !rateLimiter.isConfiguredWith(maxLinesPerSecond))
+                {
+                    rateLimiter = new TokenBucketRateLimiter(maxLinesPerSecond);
+                    samplingRateLimiter = rateLimiter;
+                }
+            }
+            finally
+            {
+                writersLock.unlock();
+            }
+        }
+        return rateLimiter;
+    }
+
+
+    /**
+     * It returns the log deduplicator, after (re)creating it if the current policy has different deduplication settings,
+     * or null if the current policy has deduplication disabled. The summaries of a replaced deduplicator are emitted straight away.
+     */
+    private static LogDeduplicator getCurrentLogDeduplicator()
+    {
+        LogDeduplicator deduplicator = logDeduplicator;
+        LoggingPolicy policy = ConfigurationService.getLoggingPolicy();
+        if(isConfiguredWith(deduplicator, policy))
+        {
+            return deduplicator;
+        }
+        writersLock.lock();
+        try
+        {
+            deduplicator = logDeduplicator;
+            policy = ConfigurationService.getLoggingPolicy();
+            if(!isConfiguredWith(deduplicator, policy))
+            {
+                deduplicator = policy.isLogDeduplicationEnabled()
+                                ? LogDeduplicator.create(policy.getLogDeduplicationWindowSeconds(), policy.getLogDeduplicationTableSize())
+                                : null;
+                logDeduplicator = deduplicator;
+                LogDeduplicator.scheduleFlushes(deduplicator, LoggingInterceptor::logRepeats);
+            }
+        }
+        finally
+        {
+            writersLock.unlock();
+        }
+        return deduplicator;
+    }
+
+
+    private static boolean isConfiguredWith(LogDeduplicator deduplicator, LoggingPolicy policy)
+    {
+        if(!policy.isLogDeduplicationEnabled())
+        {
+            return deduplicator == null;
+        }
+        return deduplicator != null && deduplicator.isConfiguredWith(policy.getLogDeduplicationWindowSeconds(), policy.getLogDeduplicationTableSize());
+    }
+
+
+    private static boolean isConfiguredWith(AsyncLogWriter<RequestLogRecord> writer, LoggingPolicy policy)
+    {
+        return writer.isConfiguredWith(policy.getAsyncBufferSize(), policy.getAsyncBatchSize(), policy.getAsyncOverflowPolicy(), policy.getAsyncOverflowSampleRate());
+    }
+
+
+    private static void writeBatch(List<RequestLogRecord> batch)
+    {
+        for(RequestLogRecord record : batch)
+        {
+            writeRecord(record);
+        }
+    }
+
+
+    private static void closeLogDeduplicator()
+    {
+        writersLock.lock();
+        try
+        {
+            logDeduplicator = null;
+            LogDeduplicator.scheduleFlushes(null, LoggingInterceptor::logRepeats);
+        }
+        finally
+        {
+            writersLock.unlock();
+        }
+    }
+
+
+    static void closeAsyncLogWriter()
+    {
+        writersLock.lock();
+        try
+        {
+            AsyncLogWriter<RequestLogRecord> writer = asyncLogWriter;
+            asyncLogWriter = null;
+            if(writer != null)
+            {
+                writer.close(1000L);
+            }
+        }
+        finally
+        {
+            writersLock.unlock();
+        }
+    }
+
+
+    /**
+     * @return the asynchronous log writer or null if asynchronous logging has not been used
+     */
+    static AsyncLogWriter<RequestLogRecord> getAsyncLogWriter()
+    {
+        return asyncLogWriter;
     }
 
 
@@ -0,0 +1,131 @@
+package io.github.orionlibs.orion_spring_http_request_logger;
+
+import io.github.orionlibs.orion_spring_http_request_logger.config.LoggingPolicy;
+import io.github.orionlibs.orion_spring_http_request_logger.format.BoundedObjectPool;
+import io.github.orionlibs.orion_spring_http_request_logger.watchdog.InFlightRequest;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Pooled holder of the raw request fields that the interceptor captures in preHandle and attaches to the request.
+ * Nothing is formatted until afterCompletion, where the outcome of the request is known and
+ * the sampler decides whether the request is logged at all, so requests that are sampled out
+ * cost no more than capturing a few references and one timestamp.
+ */
+final class RequestLogContext
+{
+    static final String REQUEST_ATTRIBUTE = "orionlibs.orion_spring_http_request_logger";
+    private static final BoundedObjectPool<RequestLogContext> pool = new BoundedObjectPool<>(8 * BoundedObjectPool.defaultSlotCount(),
+                    RequestLogContext::new,
+                    RequestLogContext::reset);
+    private LoggingPolicy policy;
+    private String remoteAddress;
+    private String httpMethod;
+    private String requestURI;
+    private String queryString;
+    private boolean timed;
+    private long startNanos;
+    private InFlightRequest inFlightRequest;
+
+
+    private RequestLogContext()
+    {
+    }
+
+
+    /**
+     * captures the raw fields of the given request into a pooled context that has to be given back with {@link #release(RequestLogContext)}
+     * @param request
+     * @param policy the logging policy that applies to the whole request
+     * @param timed whether the start time is needed to measure the request processing duration
+     * @return the context
+     */
+    static RequestLogContext capture(HttpServletRequest request, LoggingPolicy policy, boolean timed)
+    {
+        RequestLogContext context = pool.acquire();
+        context.policy = policy;
+        context.remoteAddress = request.getRemoteAddr();
+        context.httpMethod = request.getMethod();
+        context.requestURI = request.getRequestURI();
+        context.queryString = request.getQueryString();
+        context.timed = timed;
+        context.startNanos = timed ? System.nanoTime() : 0L;
+        return context;
+    }
+
+
+    /**
+     * gives the given context back to the pool
+     * @param context
+     */
+    static void release(RequestLogContext context)
+    {
+        pool.release(context);
+    }
+
+
+    private static boolean reset(RequestLogContext context)
+    {
+        context.policy = null;
+        context.remoteAddress = null;
+        context.httpMethod = null;
+        context.requestURI = null;
+        context.queryString = null;
+        context.timed = false;
+        context.inFlightRequest = null;
+        return true;
+    }
+
+
+    /**
+     * @return the time elapsed since the request was captured or -1 if it was not timed
+     */
+    long getElapsedNanos()
+    {
+        return timed ? System.nanoTime() - startNanos : -1L;
+    }
+
+
+    /**
+     * @return the request as tracked by the slow request watchdog or null if it is not tracked
+     */
+    InFlightRequest getInFlightRequest()
+    {
+        return inFlightRequest;
+    }
+
+
+    void setInFlightRequest(InFlightRequest inFlightRequest)
+    {
+        this.inFlightRequest = inFlightRequest;
+    }
+
+
+    LoggingPolicy getPolicy()
+    {
+        return policy;
+    }
+
+
+    String getRemoteAddress()
+    {
+        return remoteAddress;
+    }
+
+
+    String getHttpMethod()
+    {
+        return httpMethod;
+    }
+
+
+    String getRequestURI()
+    {
+        return requestURI;
+    }
+
+
+    String getQueryString()
+    {
+        return queryString;
+    }
+}
@@ -0,0 +1,290 @@
+package io.github.orionlibs.orion_spring_http_request_logger;
+
+import io.github.orionlibs.orion_spring_http_request_logger.body.BodyCapture;
+import io.github.orionlibs.orion_spring_http_request_logger.config.LoggingPolicy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.DispatcherServlet;
+
+/**
+ * Lightweight record of the raw data of a completed request that the interceptor captures on the request thread.
+ * It holds the logging policy that was in effect when the data was captured, so that it can be
+ * formatted later, e.g. by the background thread of the asynchronous log writer.
+ * It is what every {@link io.github.orionlibs.orion_spring_http_request_logger.sink.RequestLogSink} receives.
+ */
+public final class RequestLogRecord
+{
+    private final LoggingPolicy policy;
+    private final long timestampMillis;
+    private final String remoteAddress;
+    private final String httpMethod;
+    private final String requestURI;
+    private final String queryString;
+    private final String routeTemplate;
+    private final String[] headers;
+    private final Object handler;
+    private final long durationNanos;
+    private final int status;
+    private final long responseBytes;
+    private final String exceptionClassName;
+    private final String requestBody;
+    private final String responseBody;
+    private final long repeats;
+    private final long repeatWindowSeconds;
+
+
+    private RequestLogRecord(LoggingPolicy policy, long timestampMillis, String remoteAddress, String httpMethod, String requestURI, String queryString,
+                    String routeTemplate, String[] headers, Object handler, long durationNanos, int status, long responseBytes, String exceptionClassName,
+                    String requestBody, String responseBody, long repeats, long repeatWindowSeconds)
+    {
+        this.policy = policy;
+        this.timestampMillis = timestampMillis;
+        this.remoteAddress = remoteAddress;
+        this.httpMethod = httpMethod;
+        this.requestURI = requestURI;
+        this.queryString = queryString;
+        this.routeTemplate = routeTemplate;
+        this.headers = headers;
+        this.handler = handler;
+        this.durationNanos = durationNanos;
+        this.status = status;
+        this.responseBytes = responseBytes;
+        this.exceptionClassName = exceptionClassName;
+        this.requestBody = requestBody;
+        this.responseBody = responseBody;
+        this.repeats = repeats;
+        this.repeatWindowSeconds = repeatWindowSeconds;
+    }
+
+
+    /**
+     * captures the data of a completed request from the raw request fields that were captured in preHandle.
+     * If an exception escaped the handler, the status is reported as 500 unless an error status has already been set,
+     * because the servlet container only sets it after the interceptors complete.
+     * @param context the raw request fields
+     * @param request
+     * @param response
+     * @param handler
+     * @param routeTemplate the route template that the request was mapped to or null if it is not logged
+     * @param ex the exception that escaped the handler, if any
+     * @param durationNanos the total request processing duration or -1 if it is not logged
+     * @return the record
+     */
+    static RequestLogRecord forCompletion(RequestLogContext context, HttpServletRequest request, HttpServletResponse response, Object handler, String routeTemplate, Exception ex, long durationNanos)
+    {
+        Object exception = ex != null ? ex : request.getAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE);
+        BodyCapture bodyCapture = (BodyCapture)request.getAttribute(BodyCapture.REQUEST_ATTRIBUTE);
+        return new RequestLogRecord(context.getPolicy(),
+                        System.currentTimeMillis(),
+                        context.getRemoteAddress(),
+                        context.getHttpMethod(),
+                        context.getRequestURI(),
+                        context.getQueryString(),
+                        routeTemplate,
+                        context.getPolicy().getHeaderSelector().select(request),
+                        handler,
+                        durationNanos,
+                        getStatus(response, ex),
+                        bodyCapture != null ? bodyCapture.getResponseBytes() : getResponseBytes(response),
+                        exception != null ? exception.getClass().getName() : null,
+                        bodyCapture != null ? bodyCapture.getRequestBody() : null,
+                        bodyCapture != null ? bodyCapture.getResponseBody() : null,
+                        0L,
+                        0L);
+    }
+
+
+    /**
+     * creates the summary of the repeats of an identical request that log deduplication suppressed within a window.
+     * The summary is formatted and written like the record of a request, with the route in place of the URI.
+     * @param policy the logging policy to format the summary with
+     * @param remoteAddress
+     * @param httpMethod
+     * @param route the route template of the repeated request, or its URI
+     * @param status
+     * @param repeats the number of suppressed requests
+     * @param windowSeconds the length of the window
+     * @return the record
+     */
+    public static RequestLogRecord forRepeats(LoggingPolicy policy, String remoteAddress, String httpMethod, String route, int status, long repeats, long windowSeconds)
+    {
+        return new RequestLogRecord(policy,
+                        System.currentTimeMillis(),
+                        remoteAddress,
+                        httpMethod,
+                        route,
+                        null,
+                        null,
+                        null,
+                        null,
+                        -1L,
+                        status,
+                        -1L,
+                        null,
+                        null,
+                        null,
+                        repeats,
+                        windowSeconds);
+    }
+
+
+    /**
+     * @param response
+     * @param ex the exception that escaped the handler, if any
+     * @return the status of the response, or 500 if an exception escaped the handler and no error status has been set
+     */
+    static int getStatus(HttpServletResponse response, Exception ex)
+    {
+        int status = response.getStatus();
+        return ex != null && status < 400 ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : status;
+    }
+
+
+    private static long getResponseBytes(HttpServletResponse response)
+    {
+        String contentLength = response.getHeader(HttpHeaders.CONTENT_LENGTH);
+        if(contentLength != null)
+        {
+            try
+            {
+                return Long.parseLong(contentLength);
+            }
+            catch(NumberFormatException e)
+            {
+                return -1L;
+            }
+        }
+        return -1L;
+    }
+
+
+    public LoggingPolicy getPolicy()
+    {
+        return policy;
+    }
+
+
+    /**
+     * @return the time the request completed
+     */
+    public long getTimestampMillis()
+    {
+        return timestampMillis;
+    }
+
+
+    public String getRemoteAddress()
+    {
+        return remoteAddress;
+    }
+
+
+    public String getHttpMethod()
+    {
+        return httpMethod;
+    }
+
+
+    public String getRequestURI()
+    {
+        return requestURI;
+    }
+
+
+    public String getQueryString()
+    {
+        return queryString;
+    }
+
+
+    /**
+     * @return the route template that the request was mapped to, e.g. {@code /api/v1/users/{id}}, or null if it is not logged
+     */
+    public String getRouteTemplate()
+    {
+        return routeTemplate;
+    }
+
+
+    /**
+     * @return the logged header names and values, as name-value pairs that must not be modified, or null if no header is logged
+     */
+    public String[] getHeaders()
+    {
+        return headers;
+    }
+
+
+    public Object getHandler()
+    {
+        return handler;
+    }
+
+
+    /**
+     * @return the total request processing duration or -1 if it is not logged
+     */
+    public long getDurationNanos()
+    {
+        return durationNanos;
+    }
+
+
+    public int getStatus()
+    {
+        return status;
+    }
+
+
+    /**
+     * @return the number of response body bytes written, if the body capture filter wrapped the request,
+     * or otherwise the response size as declared by the Content-Length header, or -1 if it is unknown
+     */
+    public long getResponseBytes()
+    {
+        return responseBytes;
+    }
+
+
+    public String getExceptionClassName()
+    {
+        return exceptionClassName;
+    }
+
+
+    /**
+     * @return the captured request body or null if it was not captured
+     */
+    public String getRequestBody()
+    {
+        return requestBody;
+    }
+
+
+    /**
+     * @return the captured response body or null if it was not captured
+     */
+    public String getResponseBody()
+    {
+        return responseBody;
+    }
+
+
+    /**
+     * @return the number of identical requests that this summary stands for, or 0 if this is the record of a single request
+     */
+    public long getRepeats()
+    {
+        return repeats;
+    }
+
+
+    /**
+     * @return the length of the window of the repeats, or 0 if this is the record of a single request
+     */
+    public long getRepeatWindowSeconds()
+    {
+        return repeatWindowSeconds;
+    }
+}
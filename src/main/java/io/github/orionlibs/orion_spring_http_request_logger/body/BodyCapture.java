@@ -0,0 +1,154 @@
+package io.github.orionlibs.orion_spring_http_request_logger.body;
+
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+/**
+ * The request and response bodies that {@link BodyCaptureFilter} captured for one request.
+ * It is attached to the request as the {@link #REQUEST_ATTRIBUTE} attribute while the request is processed,
+ * so that the interceptor can add the bodies to the log record of the request.
+ */
+public final class BodyCapture
+{
+    /**
+     * the name of the request attribute that holds the body capture of the request
+     */
+    public static final String REQUEST_ATTRIBUTE = "orionlibs.orion_spring_http_request_logger.body";
+    private final int maxBytes;
+    private BodyCaptureBuffer requestBuffer;
+    private Charset requestCharset;
+    private BodyCaptureBuffer responseBuffer;
+    private Charset responseCharset;
+    private PrintWriter responseWriter;
+    private long responseBytes;
+
+
+    BodyCapture(int maxBytes)
+    {
+        this.maxBytes = maxBytes;
+    }
+
+
+    BodyCaptureBuffer captureRequest(Charset charset)
+    {
+        if(requestBuffer == null)
+        {
+            requestBuffer = BodyCaptureBuffer.acquire(maxBytes);
+            requestCharset = charset;
+        }
+        return requestBuffer;
+    }
+
+
+    BodyCaptureBuffer captureResponse(Charset charset)
+    {
+        if(responseBuffer == null)
+        {
+            responseBuffer = BodyCaptureBuffer.acquire(maxBytes);
+            responseCharset = charset;
+        }
+        return responseBuffer;
+    }
+
+
+    /**
+     * sets the writer that the application got for the response body, whose buffered characters have not reached the capture yet
+     * @param responseWriter
+     */
+    void setResponseWriter(PrintWriter responseWriter)
+    {
+        this.responseWriter = responseWriter;
+    }
+
+
+    void countResponseBytes(long bytes)
+    {
+        responseBytes += bytes;
+    }
+
+
+    /**
+     * flushes the response writer first, like {@link #getResponseBody()}
+     * @return the number of response body bytes that the application wrote, whatever their content type
+     */
+    public long getResponseBytes()
+    {
+        if(responseWriter != null)
+        {
+            responseWriter.flush();
+        }
+        return responseBytes;
+    }
+
+
+    /**
+     * @return the captured request body or null if it was not captured
+     */
+    public String getRequestBody()
+    {
+        return requestBuffer != null && requestBuffer.getTotalBytes() > 0 ? requestBuffer.decode(requestCharset) : null;
+    }
+
+
+    /**
+     * flushes the response writer first, if the application used one, so that the characters it still buffers are captured,
+     * as the interceptor reads the body before the response is flushed by the container
+     * @return the captured response body or null if it was not captured
+     */
+    public String getResponseBody()
+    {
+        if(responseWriter != null)
+        {
+            responseWriter.flush();
+        }
+        return responseBuffer != null && responseBuffer.getTotalBytes() > 0 ? responseBuffer.decode(responseCharset) : null;
+    }
+
+
+    /**
+     * gives the buffers back to their pool
+     */
+    void release()
+    {
+        if(requestBuffer != null)
+        {
+            BodyCaptureBuffer.release(requestBuffer);
+            requestBuffer = null;
+        }
+        if(responseBuffer != null)
+        {
+            BodyCaptureBuffer.release(responseBuffer);
+            responseBuffer = null;
+        }
+    }
+
+
+    /**
+     * checks if the given content type is textual, i.e. text, JSON, XML, form or JavaScript content
+     * @param contentType
+     * @return true if bodies of the content type are captured
+     */
+    static boolean isTextual(String contentType)
+    {
+        if(contentType == null)
+        {
+            return false;
+        }
+        String mediaType = contentType.toLowerCase(Locale.ROOT);
+        int parametersIndex = mediaType.indexOf(';');
+        if(parametersIndex >= 0)
+        {
+            mediaType = mediaType.substring(0, parametersIndex);
+        }
+        mediaType = mediaType.trim();
+        return mediaType.startsWith("text/")
+                        || mediaType.endsWith("/json")
+                        || mediaType.endsWith("+json")
+                        || mediaType.endsWith("/xml")
+                        || mediaType.endsWith("+xml")
+                        || mediaType.endsWith("/x-www-form-urlencoded")
+                        || mediaType.endsWith("/javascript")
+                        || mediaType.endsWith("/graphql");
+    }
+}
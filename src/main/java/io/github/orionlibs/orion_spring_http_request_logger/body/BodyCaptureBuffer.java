@@ -0,0 +1,111 @@
+package io.github.orionlibs.orion_spring_http_request_logger.body;
+
+import io.github.orionlibs.orion_spring_http_request_logger.config.LoggingPolicy;
+import io.github.orionlibs.orion_spring_http_request_logger.format.BoundedObjectPool;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Pooled, size-capped copy of the first bytes of a body stream.
+ * The bytes are kept in a direct buffer, off the heap, and only the bytes up to the limit are copied;
+ * the rest is only counted, so capturing a large upload costs no more memory than the limit.
+ * The limit is at most {@link LoggingPolicy#MAX_BODY_CAPTURE_BYTES}, so every buffer is small enough to be kept in the pool
+ * and a direct buffer is only allocated when the pool is empty or the limit grows.
+ */
+final class BodyCaptureBuffer
+{
+    private static final BoundedObjectPool<BodyCaptureBuffer> pool = new BoundedObjectPool<>(BoundedObjectPool.defaultSlotCount(),
+                    BodyCaptureBuffer::new,
+                    BodyCaptureBuffer::reset);
+    private ByteBuffer buffer;
+    private int limit;
+    private long totalBytes;
+
+
+    private BodyCaptureBuffer()
+    {
+    }
+
+
+    /**
+     * @param limit the maximum number of bytes that are captured, from 1 to {@link LoggingPolicy#MAX_BODY_CAPTURE_BYTES}
+     * @return an empty buffer that has to be given back with {@link #release(BodyCaptureBuffer)}
+     */
+    static BodyCaptureBuffer acquire(int limit)
+    {
+        BodyCaptureBuffer captureBuffer = pool.acquire();
+        if(captureBuffer.buffer == null || captureBuffer.buffer.capacity() < limit)
+        {
+            captureBuffer.buffer = ByteBuffer.allocateDirect(limit);
+        }
+        captureBuffer.limit = limit;
+        return captureBuffer;
+    }
+
+
+    /**
+     * gives the given buffer back to the pool
+     * @param captureBuffer
+     */
+    static void release(BodyCaptureBuffer captureBuffer)
+    {
+        pool.release(captureBuffer);
+    }
+
+
+    private static boolean reset(BodyCaptureBuffer captureBuffer)
+    {
+        if(captureBuffer.buffer == null)
+        {
+            return false;
+        }
+        captureBuffer.buffer.clear();
+        captureBuffer.totalBytes = 0L;
+        return true;
+    }
+
+
+    void write(int b)
+    {
+        totalBytes++;
+        if(buffer.position() < limit)
+        {
+            buffer.put((byte)b);
+        }
+    }
+
+
+    void write(byte[] bytes, int offset, int length)
+    {
+        totalBytes += length;
+        int captured = Math.min(length, limit - buffer.position());
+        if(captured > 0)
+        {
+            buffer.put(bytes, offset, captured);
+        }
+    }
+
+
+    /**
+     * decodes the captured bytes. If the body was longer than the limit, a truncation marker with the full size is appended.
+     * @param charset
+     * @return the captured body
+     */
+    String decode(Charset charset)
+    {
+        ByteBuffer captured = buffer.duplicate();
+        captured.flip();
+        String body = charset.decode(captured).toString();
+        if(totalBytes > captured.limit())
+        {
+            return body + "...[truncated, " + totalBytes + " bytes]";
+        }
+        return body;
+    }
+
+
+    long getTotalBytes()
+    {
+        return totalBytes;
+    }
+}
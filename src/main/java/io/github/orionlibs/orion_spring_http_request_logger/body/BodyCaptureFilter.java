@@ -0,0 +1,102 @@
+package io.github.orionlibs.orion_spring_http_request_logger.body;
+
+import io.github.orionlibs.orion_spring_http_request_logger.LoggingInterceptor;
+import io.github.orionlibs.orion_spring_http_request_logger.config.ConfigurationService;
+import io.github.orionlibs.orion_spring_http_request_logger.config.LoggingPolicy;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Optional servlet filter companion of the {@link LoggingInterceptor} that captures the request and response bodies,
+ * so that the interceptor can log them. It has to be registered as a servlet filter in front of the dispatcher servlet,
+ * e.g. with {@code getServletFilters()} of the servlet initializer.
+ * The bodies are teed into pooled direct buffers as they are streamed, up to {@code log.body.capture.max.bytes} each,
+ * instead of being copied whole onto the heap. Only textual content types are captured.
+ * Request bodies that the container parses itself, like form parameters read with {@code getParameter()}, are not captured.
+ * The buffers are given back to their pool when the request completes, which for an asynchronous request
+ * is when its asynchronous processing completes.
+ */
+public class BodyCaptureFilter extends OncePerRequestFilter
+{
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException
+    {
+        LoggingPolicy policy = ConfigurationService.getLoggingPolicy();
+        if(!policy.isBodyCaptureEnabled()
+                        || !policy.isRequestLogged(request.getMethod(), request.getRequestURI())
+                        || !policy.isBodyCaptured(request.getRequestURI()))
+        {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        BodyCapture bodyCapture = new BodyCapture(policy.getBodyCaptureMaxBytes());
+        BodyCapturingResponseWrapper responseWrapper = new BodyCapturingResponseWrapper(response, bodyCapture);
+        request.setAttribute(BodyCapture.REQUEST_ATTRIBUTE, bodyCapture);
+        try
+        {
+            filterChain.doFilter(new BodyCapturingRequestWrapper(request, bodyCapture), responseWrapper);
+            responseWrapper.flushWriter();
+        }
+        finally
+        {
+            if(request.isAsyncStarted())
+            {
+                request.getAsyncContext().addListener(new ReleasingAsyncListener(bodyCapture));
+            }
+            else
+            {
+                request.removeAttribute(BodyCapture.REQUEST_ATTRIBUTE);
+                bodyCapture.release();
+            }
+        }
+    }
+
+
+    /**
+     * Gives the buffers of the body capture of an asynchronous request back to their pool when the request completes.
+     * The container calls {@link #onComplete(AsyncEvent)} after a timeout or an error as well.
+     */
+    private static final class ReleasingAsyncListener implements AsyncListener
+    {
+        private final BodyCapture bodyCapture;
+
+
+        private ReleasingAsyncListener(BodyCapture bodyCapture)
+        {
+            this.bodyCapture = bodyCapture;
+        }
+
+
+        @Override
+        public void onComplete(AsyncEvent event)
+        {
+            event.getSuppliedRequest().removeAttribute(BodyCapture.REQUEST_ATTRIBUTE);
+            bodyCapture.release();
+        }
+
+
+        @Override
+        public void onTimeout(AsyncEvent event)
+        {
+        }
+
+
+        @Override
+        public void onError(AsyncEvent event)
+        {
+        }
+
+
+        @Override
+        public void onStartAsync(AsyncEvent event)
+        {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
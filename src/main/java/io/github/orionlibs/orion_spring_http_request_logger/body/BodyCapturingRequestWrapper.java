@@ -0,0 +1,69 @@
+package io.github.orionlibs.orion_spring_http_request_logger.body;
+
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request wrapper that tees the body that the application reads into the body capture.
+ * The body is not read ahead or buffered, so the application still streams it from the container.
+ */
+final class BodyCapturingRequestWrapper extends HttpServletRequestWrapper
+{
+    private final BodyCapture bodyCapture;
+    private ServletInputStream inputStream;
+    private BufferedReader reader;
+
+
+    BodyCapturingRequestWrapper(HttpServletRequest request, BodyCapture bodyCapture)
+    {
+        super(request);
+        this.bodyCapture = bodyCapture;
+    }
+
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException
+    {
+        if(inputStream == null)
+        {
+            ServletInputStream delegate = super.getInputStream();
+            if(BodyCapture.isTextual(getContentType()))
+            {
+                inputStream = new CapturingServletInputStream(delegate, bodyCapture.captureRequest(getCharset()));
+            }
+            else
+            {
+                inputStream = delegate;
+            }
+        }
+        return inputStream;
+    }
+
+
+    @Override
+    public BufferedReader getReader() throws IOException
+    {
+        if(reader == null)
+        {
+            reader = new BufferedReader(new InputStreamReader(getInputStream(), getCharset()));
+        }
+        return reader;
+    }
+
+
+    /**
+     * @return the charset of the request body, which defaults to ISO-8859-1 like the reader of a servlet request,
+     * so that the captured bytes are decoded the same way as the body that the handler reads
+     */
+    private Charset getCharset()
+    {
+        String characterEncoding = getCharacterEncoding();
+        return characterEncoding != null ? Charset.forName(characterEncoding) : StandardCharsets.ISO_8859_1;
+    }
+}
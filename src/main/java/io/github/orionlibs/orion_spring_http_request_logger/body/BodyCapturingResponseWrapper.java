@@ -0,0 +1,74 @@
+package io.github.orionlibs.orion_spring_http_request_logger.body;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+
+/**
+ * Response wrapper that counts the bytes of the body that the application writes and tees the body into the body capture.
+ * The body is written through to the container as usual, so nothing is held back until the response completes.
+ * Whether the body is captured is decided by the content type of the response when the body is first written.
+ */
+final class BodyCapturingResponseWrapper extends HttpServletResponseWrapper
+{
+    private final BodyCapture bodyCapture;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+
+    BodyCapturingResponseWrapper(HttpServletResponse response, BodyCapture bodyCapture)
+    {
+        super(response);
+        this.bodyCapture = bodyCapture;
+    }
+
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException
+    {
+        if(outputStream == null)
+        {
+            BodyCaptureBuffer captureBuffer = BodyCapture.isTextual(getContentType())
+                            ? bodyCapture.captureResponse(Charset.forName(getCharacterEncoding()))
+                            : null;
+            outputStream = new CapturingServletOutputStream(super.getOutputStream(), bodyCapture, captureBuffer);
+        }
+        return outputStream;
+    }
+
+
+    @Override
+    public PrintWriter getWriter() throws IOException
+    {
+        if(writer == null)
+        {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            bodyCapture.setResponseWriter(writer);
+        }
+        return writer;
+    }
+
+
+    @Override
+    public void flushBuffer() throws IOException
+    {
+        flushWriter();
+        super.flushBuffer();
+    }
+
+
+    /**
+     * flushes the characters that are still buffered by the writer, so that they reach the container and the body capture
+     */
+    void flushWriter()
+    {
+        if(writer != null)
+        {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.orionlibs.orion_spring_http_request_logger.body;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import java.io.IOException;
+
+/**
+ * Input stream that copies the bytes that the application reads into a {@link BodyCaptureBuffer}
+ */
+final class CapturingServletInputStream extends ServletInputStream
+{
+    private final ServletInputStream delegate;
+    private final BodyCaptureBuffer captureBuffer;
+
+
+    CapturingServletInputStream(ServletInputStream delegate, BodyCaptureBuffer captureBuffer)
+    {
+        this.delegate = delegate;
+        this.captureBuffer = captureBuffer;
+    }
+
+
+    @Override
+    public int read() throws IOException
+    {
+        int b = delegate.read();
+        if(b >= 0)
+        {
+            captureBuffer.write(b);
+        }
+        return b;
+    }
+
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException
+    {
+        int read = delegate.read(bytes, offset, length);
+        if(read > 0)
+        {
+            captureBuffer.write(bytes, offset, read);
+        }
+        return read;
+    }
+
+
+    @Override
+    public boolean isFinished()
+    {
+        return delegate.isFinished();
+    }
+
+
+    @Override
+    public boolean isReady()
+    {
+        return delegate.isReady();
+    }
+
+
+    @Override
+    public void setReadListener(ReadListener readListener)
+    {
+        delegate.setReadListener(readListener);
+    }
+
+
+    @Override
+    public void close() throws IOException
+    {
+        delegate.close();
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.orionlibs.orion_spring_http_request_logger.body;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import java.io.IOException;
+
+/**
+ * Output stream that counts the bytes that the application writes and copies them into a {@link BodyCaptureBuffer}, if the body is captured
+ */
+final class CapturingServletOutputStream extends ServletOutputStream
+{
+    private final ServletOutputStream delegate;
+    private final BodyCapture bodyCapture;
+    private final BodyCaptureBuffer captureBuffer;
+
+
+    /**
+     * @param delegate
+     * @param bodyCapture counts the written bytes
+     * @param captureBuffer receives a copy of the written bytes or null if the body is only counted
+     */
+    CapturingServletOutputStream(ServletOutputStream delegate, BodyCapture bodyCapture, BodyCaptureBuffer captureBuffer)
+    {
+        this.delegate = delegate;
+        this.bodyCapture = bodyCapture;
+        this.captureBuffer = captureBuffer;
+    }
+
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        delegate.write(b);
+        bodyCapture.countResponseBytes(1L);
+        if(captureBuffer != null)
+        {
+            captureBuffer.write(b);
+        }
+    }
+
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException
+    {
+        delegate.write(bytes, offset, length);
+        bodyCapture.countResponseBytes(length);
+        if(captureBuffer != null)
+        {
+            captureBuffer.write(bytes, offset, length);
+        }
+    }
+
+
+    @Override
+    public void flush() throws IOException
+    {
+        delegate.flush();
+    }
+
+
+    @Override
+    public void close() throws IOException
+    {
+        delegate.close();
+    }
+
+
+    @Override
+    public boolean isReady()
+    {
+        return delegate.isReady();
+    }
+
+
+    @Override
+    public void setWriteListener(WriteListener writeListener)
+    {
+        delegate.setWriteListener(writeListener);
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.orionlibs.orion_spring_http_request_logger.config;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Watches a configuration file with a {@link WatchService} on a background thread and runs a callback when it is created or modified.
+ * Editors and deployment tools often write a file in several steps, so the events that follow
+ * within {@link #SETTLE_MILLIS} of each other are coalesced into a single callback.
+ */
+public class ConfigurationFileWatcher implements AutoCloseable
+{
+    /**
+     * how long the file has to stay unchanged before the callback runs
+     */
+    public static final long SETTLE_MILLIS = 100L;
+    private final static Logger log = Logger.getLogger(ConfigurationFileWatcher.class.getName());
+    private final Path file;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread watcherThread;
+
+
+    /**
+     * starts watching the given file. Its directory has to exist.
+     * @param file
+     * @param onChange runs on the background thread after the file changed
+     * @throws IOException if the directory of the file cannot be watched
+     */
+    public ConfigurationFileWatcher(Path file, Runnable onChange) throws IOException
+    {
+        this.file = file.toAbsolutePath();
+        this.onChange = onChange;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+        this.watcherThread = new Thread(this::watchLoop, "orion-http-request-logger-configuration-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+
+    private void watchLoop()
+    {
+        try
+        {
+            while(true)
+            {
+                if(isFileChanged(watchService.take()))
+                {
+                    WatchKey nextKey = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                    while(nextKey != null)
+                    {
+                        isFileChanged(nextKey);
+                        nextKey = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                    }
+                    try
+                    {
+                        onChange.run();
+                    }
+                    catch(RuntimeException e)
+                    {
+                        log.warning("Could not apply the changed configuration file " + file + ": " + e);
+                    }
+                }
+            }
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch(ClosedWatchServiceException e)
+        {
+            //the watcher was closed
+        }
+    }
+
+
+    /**
+     * consumes the events of the given key
+     * @return true if any of them is about the watched file
+     */
+    private boolean isFileChanged(WatchKey key)
+    {
+        boolean fileChanged = false;
+        for(WatchEvent<?> event : key.pollEvents())
+        {
+            if(event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context()))
+            {
+                fileChanged = true;
+            }
+        }
+        key.reset();
+        return fileChanged;
+    }
+
+
+    /**
+     * stops watching the file
+     */
+    @Override
+    public void close()
+    {
+        try
+        {
+            watchService.close();
+        }
+        catch(IOException e)
+        {
+            log.warning("Could not close the configuration file watcher of " + file + ": " + e);
+        }
+    }
+}
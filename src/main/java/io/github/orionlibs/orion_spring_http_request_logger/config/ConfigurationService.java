@@ -1,20 +1,66 @@
 package io.github.orionlibs.orion_spring_http_request_logger.config;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
- * provides access to the plugin's config
+ * provides access to the plugin's config.
+ * Configuration changes are serialized with a {@link ReentrantLock} rather than a monitor,
+ * so that they do not pin the carrier when they are made from a virtual thread.
+ * Every change compiles a new {@link LoggingPolicy} on the thread that makes the change and publishes it
+ * through a volatile field, so request threads switch to it atomically on their next request without ever waiting.
  */
 public class ConfigurationService
 {
-    private static OrionConfiguration configurationRegistry;
+    private static volatile OrionConfiguration configurationRegistry;
+    private static volatile LoggingPolicy loggingPolicy;
+    private static final ReentrantLock updateLock = new ReentrantLock();
+    private static final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
 
 
     /**
-     * stores a config object
+     * stores a config object and compiles its logging policy
      * @param configuration
      */
     public static void registerConfiguration(OrionConfiguration configuration)
     {
-        configurationRegistry = configuration;
+        updateLock.lock();
+        try
+        {
+            configurationRegistry = configuration;
+            loggingPolicy = LoggingPolicy.compile(configuration);
+        }
+        finally
+        {
+            updateLock.unlock();
+        }
+        notifyChangeListeners();
+    }
+
+
+    /**
+     * replaces the whole configuration, e.g. after the configuration file or the Spring environment changed.
+     * The new logging policy is compiled before anything is swapped, so an invalid configuration
+     * leaves the current one in effect.
+     * @param configuration
+     * @throws IllegalArgumentException if the configuration has an invalid value
+     * @throws java.util.regex.PatternSyntaxException if a pattern of the configuration is not a valid regex
+     */
+    public static void reloadConfiguration(OrionConfiguration configuration)
+    {
+        LoggingPolicy newLoggingPolicy = LoggingPolicy.compile(configuration);
+        updateLock.lock();
+        try
+        {
+            configurationRegistry = configuration;
+            loggingPolicy = newLoggingPolicy;
+        }
+        finally
+        {
+            updateLock.unlock();
+        }
+        notifyChangeListeners();
     }
 
 
@@ -41,12 +87,62 @@ public class ConfigurationService
 
 
     /**
-     * remaps the given key to the given value
+     * retrieves the compiled logging policy of the registered configuration.
+     * This is lock-free and meant to be called on the request-handling path.
+     * @return the current logging policy
+     */
+    public static LoggingPolicy getLoggingPolicy()
+    {
+        return loggingPolicy;
+    }
+
+
+    /**
+     * remaps the given key to the given value and atomically swaps in a newly compiled logging policy.
+     * The change is applied to a copy of the configuration, which replaces the current one only if its policy compiles,
+     * so an invalid value leaves the current configuration in effect.
      * @param key
      * @param value
+     * @throws IllegalArgumentException if the value is invalid
+     * @throws java.util.regex.PatternSyntaxException if the value is a pattern that is not a valid regex
      */
     public static void updateProp(String key, String value)
     {
-        configurationRegistry.updateProp(key, value);
+        updateLock.lock();
+        try
+        {
+            OrionConfiguration newConfiguration = new OrionConfiguration();
+            newConfiguration.putAll(configurationRegistry);
+            newConfiguration.updateProp(key, value);
+            LoggingPolicy newLoggingPolicy = LoggingPolicy.compile(newConfiguration);
+            configurationRegistry = newConfiguration;
+            loggingPolicy = newLoggingPolicy;
+        }
+        finally
+        {
+            updateLock.unlock();
+        }
+        notifyChangeListeners();
+    }
+
+
+    /**
+     * registers a listener that runs after every configuration change, on the thread that made the change,
+     * e.g. to start or stop the background tasks of the features that the change enabled or disabled.
+     * Listeners read the policy with {@link #getLoggingPolicy()}, so after concurrent changes they all see the latest one.
+     * @param listener
+     */
+    public static void addChangeListener(Runnable listener)
+    {
+        changeListeners.add(listener);
+    }
+
+
+    private static void notifyChangeListeners()
+    {
+        for(Runnable listener : changeListeners)
+        {
+            listener.run();
+        }
     }
 }
@@ -0,0 +1,517 @@
+package io.github.orionlibs.orion_spring_http_request_logger.config;
+
+import io.github.orionlibs.orion_spring_http_request_logger.filter.HeaderSelector;
+import io.github.orionlibs.orion_spring_http_request_logger.filter.HttpMethodMatcher;
+import io.github.orionlibs.orion_spring_http_request_logger.filter.QueryStringRedactor;
+import io.github.orionlibs.orion_spring_http_request_logger.filter.RequestFilter;
+import io.github.orionlibs.orion_spring_http_request_logger.filter.UriExclusions;
+import io.github.orionlibs.orion_spring_http_request_logger.filter.UriMatcher;
+import io.github.orionlibs.orion_spring_http_request_logger.format.LogLineTemplate;
+import io.github.orionlibs.orion_spring_http_request_logger.format.OutputFormat;
+import io.github.orionlibs.orion_spring_http_request_logger.sampling.RequestSampler;
+import io.github.orionlibs.orion_spring_http_request_logger.sink.OverflowPolicy;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Immutable snapshot of the feature configuration, compiled once from an {@link OrionConfiguration}.
+ * The request-handling path reads only the final fields of this object, so it never
+ * touches the synchronized {@link Properties} table nor re-parses any configuration value.
+ * A new snapshot is compiled and swapped in by {@link ConfigurationService} whenever the configuration changes.
+ * It holds no mutable state, e.g. the token bucket of sampling or the table of log deduplication,
+ * so that swapping it in does not reset that state. Only the settings of that state are kept here.
+ */
+public final class LoggingPolicy
+{
+    /**
+     * the largest allowed {@code log.body.capture.max.bytes}, which keeps every body capture buffer small enough to be pooled
+     */
+    public static final int MAX_BODY_CAPTURE_BYTES = 64 * 1024;
+    private final boolean ipAddressLoggingEnabled;
+    private final boolean httpMethodLoggingEnabled;
+    private final boolean uriLoggingEnabled;
+    private final boolean uriQueryParametersLoggingEnabled;
+    private final QueryStringRedactor queryStringRedactor;
+    private final boolean requestProcessingDurationLoggingEnabled;
+    private final boolean responseStatusLoggingEnabled;
+    private final boolean responseSizeLoggingEnabled;
+    private final boolean exceptionLoggingEnabled;
+    private final LogLineTemplate logLineTemplate;
+    private final RequestFilter requestFilter;
+    private final HeaderSelector headerSelector;
+    private final OutputFormat outputFormat;
+    private final boolean routeTemplateLoggingEnabled;
+    private final int routeTemplateMaxRoutes;
+    private final boolean latencyHistogramsEnabled;
+    private final boolean latencyHistogramsByRoute;
+    private final int latencyHistogramsMaxHandlers;
+    private final long latencySummaryIntervalSeconds;
+    private final boolean requestRatesEnabled;
+    private final int requestRatesWindowSeconds;
+    private final int requestRatesMaxRoutes;
+    private final long requestRatesSummaryIntervalSeconds;
+    private final boolean metricsEndpointEnabled;
+    private final String metricsEndpointPath;
+    private final int metricsEndpointMaxRoutes;
+    private final boolean asyncLoggingEnabled;
+    private final int asyncBufferSize;
+    private final int asyncBatchSize;
+    private final OverflowPolicy asyncOverflowPolicy;
+    private final int asyncOverflowSampleRate;
+    private final RequestSampler requestSampler;
+    private final int samplingMaxLinesPerSecond;
+    private final boolean logDeduplicationEnabled;
+    private final int logDeduplicationWindowSeconds;
+    private final int logDeduplicationTableSize;
+    private final boolean bodyCaptureEnabled;
+    private final UriMatcher bodyCaptureUriMatcher;
+    private final int bodyCaptureMaxBytes;
+    private final String sinkName;
+    private final boolean slowRequestWatchdogEnabled;
+    private final long slowRequestWatchdogThresholdMillis;
+    private final long slowRequestWatchdogIntervalMillis;
+    private final int slowRequestWatchdogMaxStackDepth;
+    private final int slowRequestWatchdogMaxTrackedRequests;
+    private final int memorySinkCapacity;
+    private final Path binaryFileDirectory;
+    private final String binaryFilePrefix;
+    private final int binaryFileSegmentSize;
+    private final long binaryFileRollIntervalSeconds;
+
+
+    private LoggingPolicy(Properties configuration)
+    {
+        this.ipAddressLoggingEnabled = Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.ip.address.enabled"));
+        this.httpMethodLoggingEnabled = Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.http.method.enabled"));
+        this.uriLoggingEnabled = Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.uri.enabled"));
+        this.uriQueryParametersLoggingEnabled = Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.uri.query.params.enabled"));
+        this.queryStringRedactor = QueryStringRedactor.compile(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.uri.query.params.redacted"),
+                        configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.uri.query.params.redacted.value.pattern"));
+        this.requestProcessingDurationLoggingEnabled = Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.request.processing.duration.enabled"));
+        this.responseStatusLoggingEnabled = Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.response.status.enabled"));
+        this.responseSizeLoggingEnabled = Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.response.size.enabled"));
+        this.exceptionLoggingEnabled = Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.exception.enabled"));
+        this.logLineTemplate = LogLineTemplate.compile(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.pattern.for.each.log.record.element"));
+        this.requestFilter = RequestFilter.compile(UriExclusions.compile(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.uris.excluded")),
+                        HttpMethodMatcher.compile(httpMethodLoggingEnabled ? configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.http.methods.logged") : "*"),
+                        UriMatcher.compile(uriLoggingEnabled ? configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.uris.logged.pattern") : "*"));
+        this.headerSelector = HeaderSelector.compile(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.headers.logged"),
+                        configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.headers.redacted"));
+        String outputFormat = configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.output.format");
+        this.outputFormat = outputFormat != null ? OutputFormat.valueOf(outputFormat.trim().toUpperCase(Locale.ROOT)) : OutputFormat.TEXT;
+        this.routeTemplateLoggingEnabled = Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.route.template.enabled"));
+        this.routeTemplateMaxRoutes = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.route.template.max.routes", 1000);
+        this.latencyHistogramsEnabled = Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.latency.histograms.enabled"));
+        this.latencyHistogramsByRoute = Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.latency.histograms.by.route"));
+        this.latencyHistogramsMaxHandlers = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.latency.histograms.max.handlers", 1000);
+        this.latencySummaryIntervalSeconds = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.latency.histograms.summary.interval.seconds", 60);
+        this.requestRatesEnabled = Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.request.rates.enabled"));
+        this.requestRatesWindowSeconds = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.request.rates.window.seconds", 60);
+        this.requestRatesMaxRoutes = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.request.rates.max.routes", 1000);
+        this.requestRatesSummaryIntervalSeconds = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.request.rates.summary.interval.seconds", 60);
+        this.metricsEndpointEnabled = Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.metrics.endpoint.enabled"));
+        this.metricsEndpointPath = configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.metrics.endpoint.path", "/metrics").trim();
+        this.metricsEndpointMaxRoutes = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.metrics.endpoint.max.routes", 1000);
+        this.asyncLoggingEnabled = Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.async.enabled"));
+        this.asyncBufferSize = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.async.buffer.size", 8192);
+        this.asyncBatchSize = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.async.batch.size", 256);
+        String asyncOverflowPolicy = configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.async.overflow.policy");
+        this.asyncOverflowPolicy = asyncOverflowPolicy != null ? OverflowPolicy.valueOf(asyncOverflowPolicy.trim().toUpperCase(Locale.ROOT)) : OverflowPolicy.DROP;
+        this.asyncOverflowSampleRate = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.async.overflow.sample.rate", 10);
+        if(Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.sampling.enabled")))
+        {
+            String samplingRate = configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.sampling.rate");
+            this.requestSampler = RequestSampler.compile(samplingRate != null ? Double.parseDouble(samplingRate.trim()) : 1.0d,
+                            configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.sampling.uri.rates"),
+                            parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.sampling.slow.request.threshold.millis", 0),
+                            Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.sampling.errors.always.logged", "true")));
+        }
+        else
+        {
+            this.requestSampler = null;
+        }
+        this.samplingMaxLinesPerSecond = requestSampler != null ? parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.sampling.max.lines.per.second", 0) : 0;
+        this.logDeduplicationEnabled = Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.deduplication.enabled"));
+        this.logDeduplicationWindowSeconds = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.deduplication.window.seconds", 60);
+        this.logDeduplicationTableSize = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.deduplication.table.size", 1024);
+        if(logDeduplicationEnabled && (logDeduplicationWindowSeconds <= 0 || logDeduplicationTableSize <= 0))
+        {
+            throw new IllegalArgumentException("the window and the table size of the log deduplication have to be positive");
+        }
+        this.bodyCaptureEnabled = Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.body.capture.enabled"));
+        this.bodyCaptureUriMatcher = UriMatcher.compile(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.body.capture.uris.pattern", "*"));
+        this.bodyCaptureMaxBytes = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.body.capture.max.bytes", 4096);
+        if(bodyCaptureEnabled && (bodyCaptureMaxBytes <= 0 || bodyCaptureMaxBytes > MAX_BODY_CAPTURE_BYTES))
+        {
+            throw new IllegalArgumentException("the maximum number of captured body bytes has to be between 1 and " + MAX_BODY_CAPTURE_BYTES);
+        }
+        this.sinkName = configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.sink", "JUL").trim();
+        this.memorySinkCapacity = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.sink.memory.capacity", 1000);
+        this.slowRequestWatchdogEnabled = Boolean.parseBoolean(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.slow.request.watchdog.enabled"));
+        this.slowRequestWatchdogThresholdMillis = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.slow.request.watchdog.threshold.millis", 5000);
+        this.slowRequestWatchdogIntervalMillis = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.slow.request.watchdog.interval.millis", 1000);
+        this.slowRequestWatchdogMaxStackDepth = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.slow.request.watchdog.max.stack.depth", 32);
+        this.slowRequestWatchdogMaxTrackedRequests = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.slow.request.watchdog.max.tracked.requests", 4096);
+        this.binaryFileDirectory = Paths.get(configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.binary.file.directory", "logs"));
+        this.binaryFilePrefix = configuration.getProperty("orionlibs.orion_spring_http_request_logger.log.binary.file.prefix", "http-requests");
+        this.binaryFileSegmentSize = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.binary.file.segment.size", 64 * 1024 * 1024);
+        this.binaryFileRollIntervalSeconds = parseInt(configuration, "orionlibs.orion_spring_http_request_logger.log.binary.file.roll.interval.seconds", 3600);
+    }
+
+
+    private static int parseInt(Properties configuration, String key, int defaultValue)
+    {
+        String value = configuration.getProperty(key);
+        return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+    }
+
+
+    /**
+     * compiles the given configuration into an immutable policy
+     * @param configuration
+     * @return the compiled policy
+     * @throws java.util.regex.PatternSyntaxException if the URI pattern or the query parameter value pattern is not a valid regex
+     * @throws IllegalArgumentException if a numeric or enumerated property has an invalid value
+     */
+    public static LoggingPolicy compile(Properties configuration)
+    {
+        return new LoggingPolicy(configuration);
+    }
+
+
+    /**
+     * checks if a request with the given HTTP method and URI is logged at all.
+     * This is the only check that requests which are filtered out go through.
+     * The list of logged HTTP methods only applies while the HTTP method is logged and the URI pattern only while the URI is logged.
+     * @param httpMethod
+     * @param uri
+     * @return true if the URI is not excluded, the HTTP method is one of the logged HTTP methods and the URI matches the configured URI pattern
+     */
+    public boolean isRequestLogged(String httpMethod, String uri)
+    {
+        return requestFilter.accepts(httpMethod, uri);
+    }
+
+
+    /**
+     * checks if the bodies of requests to the given URI are captured
+     * @param uri
+     * @return true if the URI matches the configured body capture URI pattern
+     */
+    public boolean isBodyCaptured(String uri)
+    {
+        return bodyCaptureUriMatcher.matches(uri);
+    }
+
+
+    public boolean isIpAddressLoggingEnabled()
+    {
+        return ipAddressLoggingEnabled;
+    }
+
+
+    public boolean isHttpMethodLoggingEnabled()
+    {
+        return httpMethodLoggingEnabled;
+    }
+
+
+    public boolean isUriLoggingEnabled()
+    {
+        return uriLoggingEnabled;
+    }
+
+
+    public boolean isUriQueryParametersLoggingEnabled()
+    {
+        return uriQueryParametersLoggingEnabled;
+    }
+
+
+    public QueryStringRedactor getQueryStringRedactor()
+    {
+        return queryStringRedactor;
+    }
+
+
+    public boolean isRequestProcessingDurationLoggingEnabled()
+    {
+        return requestProcessingDurationLoggingEnabled;
+    }
+
+
+    public boolean isResponseStatusLoggingEnabled()
+    {
+        return responseStatusLoggingEnabled;
+    }
+
+
+    public boolean isResponseSizeLoggingEnabled()
+    {
+        return responseSizeLoggingEnabled;
+    }
+
+
+    public boolean isExceptionLoggingEnabled()
+    {
+        return exceptionLoggingEnabled;
+    }
+
+
+    public LogLineTemplate getLogLineTemplate()
+    {
+        return logLineTemplate;
+    }
+
+
+    public HeaderSelector getHeaderSelector()
+    {
+        return headerSelector;
+    }
+
+
+    public OutputFormat getOutputFormat()
+    {
+        return outputFormat;
+    }
+
+
+    public boolean isRouteTemplateLoggingEnabled()
+    {
+        return routeTemplateLoggingEnabled;
+    }
+
+
+    public int getRouteTemplateMaxRoutes()
+    {
+        return routeTemplateMaxRoutes;
+    }
+
+
+    /**
+     * @return true if the route template of completed requests is needed, either to be logged or to key metrics by
+     */
+    public boolean isRouteTemplateResolved()
+    {
+        return routeTemplateLoggingEnabled || requestRatesEnabled || metricsEndpointEnabled || logDeduplicationEnabled
+                        || (latencyHistogramsEnabled && latencyHistogramsByRoute);
+    }
+
+
+    public boolean isLatencyHistogramsEnabled()
+    {
+        return latencyHistogramsEnabled;
+    }
+
+
+    /**
+     * @return true if latency histograms are keyed by HTTP method and route template instead of by handler
+     */
+    public boolean isLatencyHistogramsByRoute()
+    {
+        return latencyHistogramsByRoute;
+    }
+
+
+    public int getLatencyHistogramsMaxHandlers()
+    {
+        return latencyHistogramsMaxHandlers;
+    }
+
+
+    public long getLatencySummaryIntervalSeconds()
+    {
+        return latencySummaryIntervalSeconds;
+    }
+
+
+    public boolean isRequestRatesEnabled()
+    {
+        return requestRatesEnabled;
+    }
+
+
+    public int getRequestRatesWindowSeconds()
+    {
+        return requestRatesWindowSeconds;
+    }
+
+
+    public int getRequestRatesMaxRoutes()
+    {
+        return requestRatesMaxRoutes;
+    }
+
+
+    public long getRequestRatesSummaryIntervalSeconds()
+    {
+        return requestRatesSummaryIntervalSeconds;
+    }
+
+
+    public boolean isMetricsEndpointEnabled()
+    {
+        return metricsEndpointEnabled;
+    }
+
+
+    public String getMetricsEndpointPath()
+    {
+        return metricsEndpointPath;
+    }
+
+
+    public int getMetricsEndpointMaxRoutes()
+    {
+        return metricsEndpointMaxRoutes;
+    }
+
+
+    public boolean isAsyncLoggingEnabled()
+    {
+        return asyncLoggingEnabled;
+    }
+
+
+    public int getAsyncBufferSize()
+    {
+        return asyncBufferSize;
+    }
+
+
+    public int getAsyncBatchSize()
+    {
+        return asyncBatchSize;
+    }
+
+
+    public OverflowPolicy getAsyncOverflowPolicy()
+    {
+        return asyncOverflowPolicy;
+    }
+
+
+    public int getAsyncOverflowSampleRate()
+    {
+        return asyncOverflowSampleRate;
+    }
+
+
+    /**
+     * @return the sampling rules or null if sampling is disabled
+     */
+    public RequestSampler getRequestSampler()
+    {
+        return requestSampler;
+    }
+
+
+    /**
+     * @return the maximum number of sampled log lines per second or 0 if there is no limit or sampling is disabled
+     */
+    public int getSamplingMaxLinesPerSecond()
+    {
+        return samplingMaxLinesPerSecond;
+    }
+
+
+    public boolean isLogDeduplicationEnabled()
+    {
+        return logDeduplicationEnabled;
+    }
+
+
+    public int getLogDeduplicationWindowSeconds()
+    {
+        return logDeduplicationWindowSeconds;
+    }
+
+
+    public int getLogDeduplicationTableSize()
+    {
+        return logDeduplicationTableSize;
+    }
+
+
+    public boolean isBodyCaptureEnabled()
+    {
+        return bodyCaptureEnabled;
+    }
+
+
+    public int getBodyCaptureMaxBytes()
+    {
+        return bodyCaptureMaxBytes;
+    }
+
+
+    /**
+     * @return the name of a built-in request log sink or the class name of a custom one
+     */
+    public String getSinkName()
+    {
+        return sinkName;
+    }
+
+
+    public int getMemorySinkCapacity()
+    {
+        return memorySinkCapacity;
+    }
+
+
+    public Path getBinaryFileDirectory()
+    {
+        return binaryFileDirectory;
+    }
+
+
+    public String getBinaryFilePrefix()
+    {
+        return binaryFilePrefix;
+    }
+
+
+    public int getBinaryFileSegmentSize()
+    {
+        return binaryFileSegmentSize;
+    }
+
+
+    public long getBinaryFileRollIntervalSeconds()
+    {
+        return binaryFileRollIntervalSeconds;
+    }
+
+
+    public boolean isSlowRequestWatchdogEnabled()
+    {
+        return slowRequestWatchdogEnabled;
+    }
+
+
+    public long getSlowRequestWatchdogThresholdMillis()
+    {
+        return slowRequestWatchdogThresholdMillis;
+    }
+
+
+    public long getSlowRequestWatchdogIntervalMillis()
+    {
+        return slowRequestWatchdogIntervalMillis;
+    }
+
+
+    public int getSlowRequestWatchdogMaxStackDepth()
+    {
+        return slowRequestWatchdogMaxStackDepth;
+    }
+
+
+    public int getSlowRequestWatchdogMaxTrackedRequests()
+    {
+        return slowRequestWatchdogMaxTrackedRequests;
+    }
+}
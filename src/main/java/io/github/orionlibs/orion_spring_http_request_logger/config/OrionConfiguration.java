@@ -5,6 +5,8 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -58,6 +60,32 @@ public class OrionConfiguration extends Properties
     }
 
 
+    /**
+     * It loads the feature configuration like {@link #loadFeatureConfiguration(Environment)} and then
+     * overrides it with the properties of the given file, if it exists.
+     * @param springEnv
+     * @param configurationFile a properties file with overrides or null
+     * @return the feature configuration
+     * @throws IOException if the configuration file cannot be read
+     */
+    public static OrionConfiguration loadFeatureConfiguration(Environment springEnv, Path configurationFile) throws IOException
+    {
+        OrionConfiguration featureConfiguration = loadFeatureConfiguration(springEnv);
+        if(configurationFile != null && Files.isRegularFile(configurationFile))
+        {
+            try(InputStream configurationFileStream = Files.newInputStream(configurationFile))
+            {
+                featureConfiguration.load(configurationFileStream);
+            }
+            catch(IOException e)
+            {
+                throw new IOException("Could not read the feature configuration file " + configurationFile + " of the Orion Spring HTTP Request Logger Plugin: ", e);
+            }
+        }
+        return featureConfiguration;
+    }
+
+
     /**
      * It takes default configuration and custom configuration from the Spring environment.
      * For each default configuration property, it registers that one if there is no custom
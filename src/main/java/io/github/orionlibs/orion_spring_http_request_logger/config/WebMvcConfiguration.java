@@ -1,26 +1,49 @@
 package io.github.orionlibs.orion_spring_http_request_logger.config;
 
 import io.github.orionlibs.orion_spring_http_request_logger.LoggingInterceptor;
+import io.github.orionlibs.orion_spring_http_request_logger.metrics.OpenMetricsEndpoint;
+import io.github.orionlibs.orion_spring_http_request_logger.metrics.OpenMetricsHandlerMapping;
 import java.io.IOException;
-import java.util.logging.LogManager;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
  * Spring MVC configurator. It loads the logger and the features configuration and
- * registers the {@link LoggingInterceptor} with the Spring MVC registry.
+ * registers the {@link LoggingInterceptor} with the Spring MVC registry, along with the {@link OpenMetricsEndpoint},
+ * which is served while the metrics endpoint is enabled.
+ * The features configuration is reloaded at runtime when the file of {@code configuration.file} changes
+ * and when Spring Cloud publishes an environment change event, e.g. after a refresh of the environment.
  */
 @Configuration
 @EnableWebMvc
-public class WebMvcConfiguration implements WebMvcConfigurer
+public class WebMvcConfiguration implements WebMvcConfigurer, ApplicationListener<ApplicationEvent>, DisposableBean
 {
+    private static final String LOGGER_NAME_PREFIX = "io.github.orionlibs.orion_spring_http_request_logger";
+    private static final String LEVEL_SUFFIX = ".level";
+    private static final String CONFIGURATION_FILE_PROPERTY = "orionlibs.orion_spring_http_request_logger.configuration.file";
+    private static final String ENVIRONMENT_CHANGE_EVENT = "org.springframework.cloud.context.environment.EnvironmentChangeEvent";
+    private final static Logger log = Logger.getLogger(WebMvcConfiguration.class.getName());
     private final Environment springEnv;
     private final LoggingInterceptor loggingInterceptor;
     private final OrionConfiguration featureConfiguration;
+    private final List<Logger> configuredLoggers;
+    private final Path configurationFile;
+    private final ConfigurationFileWatcher configurationFileWatcher;
 
 
     @Autowired
@@ -28,15 +51,97 @@ public class WebMvcConfiguration implements WebMvcConfigurer
     {
         this.springEnv = springEnv;
         this.loggingInterceptor = loggingInterceptor;
-        this.featureConfiguration = OrionConfiguration.loadFeatureConfiguration(springEnv);
+        OrionConfiguration defaultFeatureConfiguration = OrionConfiguration.loadFeatureConfiguration(springEnv);
+        String configurationFileName = defaultFeatureConfiguration.getProperty(CONFIGURATION_FILE_PROPERTY);
+        this.configurationFile = configurationFileName != null && !configurationFileName.isBlank() ? Paths.get(configurationFileName.trim()) : null;
+        this.featureConfiguration = configurationFile != null ? OrionConfiguration.loadFeatureConfiguration(springEnv, configurationFile) : defaultFeatureConfiguration;
+        this.configuredLoggers = new ArrayList<>();
         loadLoggerConfiguration();
         ConfigurationService.registerConfiguration(featureConfiguration);
+        this.configurationFileWatcher = configurationFile != null ? new ConfigurationFileWatcher(configurationFile, this::reloadFeatureConfiguration) : null;
     }
 
 
+    /**
+     * It reloads the features configuration from the default configuration, the Spring environment and the configuration file,
+     * compiles it and swaps it in for the request threads, which never wait for it.
+     * Changes made with {@link ConfigurationService#updateProp(String, String)} are discarded.
+     * If the reloaded configuration is invalid, the current one stays in effect.
+     * @return true if the configuration was reloaded
+     */
+    public boolean reloadFeatureConfiguration()
+    {
+        try
+        {
+            ConfigurationService.reloadConfiguration(OrionConfiguration.loadFeatureConfiguration(springEnv, configurationFile));
+            return true;
+        }
+        catch(IOException | RuntimeException e)
+        {
+            log.warning("Could not reload the feature configuration of the Orion Spring HTTP Request Logger Plugin: " + e);
+            return false;
+        }
+    }
+
+
+    /**
+     * It reloads the features configuration when the Spring environment changes.
+     * Spring Cloud is not a dependency of this plugin, so its event is recognized by class name.
+     * @param event
+     */
+    @Override
+    public void onApplicationEvent(ApplicationEvent event)
+    {
+        if(ENVIRONMENT_CHANGE_EVENT.equals(event.getClass().getName()))
+        {
+            reloadFeatureConfiguration();
+        }
+    }
+
+
+    /**
+     * It stops watching the configuration file.
+     */
+    @Override
+    public void destroy()
+    {
+        if(configurationFileWatcher != null)
+        {
+            configurationFileWatcher.close();
+        }
+    }
+
+
+    /**
+     * It applies the levels of the logger configuration to the loggers of this plugin only,
+     * instead of resetting the global {@link java.util.logging.LogManager} configuration of the application.
+     * The loggers are referenced by this bean, so that their levels are not lost when they are garbage-collected.
+     */
     private void loadLoggerConfiguration() throws IOException
     {
-        LogManager.getLogManager().readConfiguration(OrionConfiguration.loadLoggerConfigurationAndGet(springEnv).getAsInputStream());
+        OrionConfiguration loggerConfiguration = OrionConfiguration.loadLoggerConfigurationAndGet(springEnv);
+        for(String key : loggerConfiguration.stringPropertyNames())
+        {
+            if(key.startsWith(LOGGER_NAME_PREFIX) && key.endsWith(LEVEL_SUFFIX))
+            {
+                Logger logger = Logger.getLogger(key.substring(0, key.length() - LEVEL_SUFFIX.length()));
+                logger.setLevel(Level.parse(loggerConfiguration.getProperty(key).trim()));
+                configuredLoggers.add(logger);
+            }
+        }
+    }
+
+
+    /**
+     * It maps the metrics endpoint path to the {@link OpenMetricsEndpoint}, ahead of the application's own mappings.
+     * The path and whether the endpoint is enabled are read on every request, so they follow configuration reloads.
+     * The interceptors of the application are not applied to it, so scrapes are not logged.
+     * @return the handler mapping
+     */
+    @Bean
+    public HandlerMapping openMetricsHandlerMapping()
+    {
+        return new OpenMetricsHandlerMapping();
     }
 
 
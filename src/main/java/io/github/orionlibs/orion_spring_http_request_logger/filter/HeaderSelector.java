@@ -0,0 +1,184 @@
+package io.github.orionlibs.orion_spring_http_request_logger.filter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Compiled form of the {@code log.headers.logged} allow-list and the {@code log.headers.redacted} list.
+ * The headers of the allow-list are looked up by name, so the cost per request is proportional to
+ * the number of headers that are logged, and whether each of them is redacted is decided once, when compiling.
+ * Only a {@code *} allow-list iterates the header names of the request, and then redaction is looked up
+ * in a case-insensitive set that does not allocate.
+ */
+public final class HeaderSelector
+{
+    /**
+     * the value that redacted headers are logged with
+     */
+    public static final String REDACTED_VALUE = "****";
+    private final String[] headerNames;
+    private final boolean[] redacted;
+    private final boolean allHeaders;
+    private final TreeSet<String> redactedHeaderNames;
+
+
+    private HeaderSelector(String[] headerNames, boolean[] redacted, boolean allHeaders, TreeSet<String> redactedHeaderNames)
+    {
+        this.headerNames = headerNames;
+        this.redacted = redacted;
+        this.allHeaders = allHeaders;
+        this.redactedHeaderNames = redactedHeaderNames;
+    }
+
+
+    /**
+     * compiles the given comma-separated lists of header names.
+     * A {@code *} allow-list selects every header and a null or empty one selects none.
+     * Header names are case-insensitive.
+     * @param headersLogged
+     * @param headersRedacted
+     * @return the selector
+     */
+    public static HeaderSelector compile(String headersLogged, String headersRedacted)
+    {
+        TreeSet<String> redactedHeaderNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        redactedHeaderNames.addAll(splitHeaderNames(headersRedacted));
+        if(headersLogged != null && "*".equals(headersLogged.trim()))
+        {
+            return new HeaderSelector(new String[0], new boolean[0], true, redactedHeaderNames);
+        }
+        TreeSet<String> uniqueHeaderNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        List<String> headerNames = new ArrayList<>();
+        for(String headerName : splitHeaderNames(headersLogged))
+        {
+            if(uniqueHeaderNames.add(headerName))
+            {
+                headerNames.add(headerName);
+            }
+        }
+        boolean[] redacted = new boolean[headerNames.size()];
+        for(int i = 0; i < redacted.length; i++)
+        {
+            redacted[i] = redactedHeaderNames.contains(headerNames.get(i));
+        }
+        return new HeaderSelector(headerNames.toArray(new String[0]), redacted, false, redactedHeaderNames);
+    }
+
+
+    private static List<String> splitHeaderNames(String headerNames)
+    {
+        List<String> names = new ArrayList<>();
+        if(headerNames != null)
+        {
+            for(String headerName : headerNames.split(","))
+            {
+                if(!headerName.isBlank())
+                {
+                    names.add(headerName.trim());
+                }
+            }
+        }
+        return names;
+    }
+
+
+    /**
+     * @return true if no header is selected
+     */
+    public boolean isEmpty()
+    {
+        return !allHeaders && headerNames.length == 0;
+    }
+
+
+    /**
+     * selects the headers of the given request that are logged, with the values of the redacted ones masked.
+     * Headers with multiple values are logged with the values joined by commas.
+     * @param request
+     * @return the selected header names and values, as name-value pairs, or null if the request has none of them
+     */
+    public String[] select(HttpServletRequest request)
+    {
+        if(isEmpty())
+        {
+            return null;
+        }
+        List<String> selected = null;
+        if(allHeaders)
+        {
+            Enumeration<String> requestHeaderNames = request.getHeaderNames();
+            while(requestHeaderNames != null && requestHeaderNames.hasMoreElements())
+            {
+                String headerName = requestHeaderNames.nextElement();
+                String value = getValue(request, headerName, redactedHeaderNames.contains(headerName));
+                if(value != null)
+                {
+                    selected = add(selected, headerName, value);
+                }
+            }
+        }
+        else
+        {
+            for(int i = 0; i < headerNames.length; i++)
+            {
+                String value = getValue(request, headerNames[i], redacted[i]);
+                if(value != null)
+                {
+                    selected = add(selected, headerNames[i], value);
+                }
+            }
+        }
+        return selected != null ? selected.toArray(new String[0]) : null;
+    }
+
+
+    private static List<String> add(List<String> selected, String headerName, String value)
+    {
+        if(selected == null)
+        {
+            selected = new ArrayList<>(8);
+        }
+        selected.add(headerName);
+        selected.add(value);
+        return selected;
+    }
+
+
+    private static String getValue(HttpServletRequest request, String headerName, boolean redacted)
+    {
+        Enumeration<String> values = request.getHeaders(headerName);
+        if(values == null || !values.hasMoreElements())
+        {
+            return null;
+        }
+        else if(redacted)
+        {
+            return REDACTED_VALUE;
+        }
+        String value = values.nextElement();
+        if(!values.hasMoreElements())
+        {
+            return value;
+        }
+        StringBuilder joinedValues = new StringBuilder(value);
+        while(values.hasMoreElements())
+        {
+            joinedValues.append(',').append(values.nextElement());
+        }
+        return joinedValues.toString();
+    }
+
+
+    /**
+     * checks if the given header is redacted
+     * @param headerName
+     * @return true if the header is logged masked
+     */
+    public boolean isRedacted(String headerName)
+    {
+        return redactedHeaderNames.contains(headerName);
+    }
+}
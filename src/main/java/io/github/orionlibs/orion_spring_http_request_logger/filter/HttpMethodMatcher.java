@@ -0,0 +1,141 @@
+package io.github.orionlibs.orion_spring_http_request_logger.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compiled form of the {@code log.http.methods.logged} list.
+ * The standard HTTP methods are compiled into a bitmask, so checking them is a single bit test
+ * that does not allocate. Extension methods are kept in a small array that is only scanned
+ * for methods that are not standard.
+ * Like the list, matching is case-insensitive.
+ */
+public final class HttpMethodMatcher
+{
+    private static final int GET = 1;
+    private static final int HEAD = 1 << 1;
+    private static final int POST = 1 << 2;
+    private static final int PUT = 1 << 3;
+    private static final int PATCH = 1 << 4;
+    private static final int DELETE = 1 << 5;
+    private static final int OPTIONS = 1 << 6;
+    private static final int TRACE = 1 << 7;
+    private static final int CONNECT = 1 << 8;
+    private static final int ALL_STANDARD_METHODS = (1 << 9) - 1;
+    private final int standardMethods;
+    private final String[] extensionMethods;
+    private final boolean allMethods;
+
+
+    private HttpMethodMatcher(int standardMethods, String[] extensionMethods, boolean allMethods)
+    {
+        this.standardMethods = standardMethods;
+        this.extensionMethods = extensionMethods;
+        this.allMethods = allMethods;
+    }
+
+
+    /**
+     * compiles the given comma-separated list of HTTP methods.
+     * A {@code *} list matches every method and a null list matches none.
+     * @param httpMethods
+     * @return the matcher
+     */
+    public static HttpMethodMatcher compile(String httpMethods)
+    {
+        if(httpMethods == null)
+        {
+            return new HttpMethodMatcher(0, new String[0], false);
+        }
+        else if("*".equals(httpMethods.trim()))
+        {
+            return new HttpMethodMatcher(ALL_STANDARD_METHODS, new String[0], true);
+        }
+        int standardMethods = 0;
+        List<String> extensionMethods = new ArrayList<>();
+        for(String httpMethod : httpMethods.split(","))
+        {
+            String normalizedHttpMethod = httpMethod.trim().toUpperCase(Locale.ROOT);
+            int bit = standardMethodBit(normalizedHttpMethod);
+            if(bit != 0)
+            {
+                standardMethods |= bit;
+            }
+            else if(!normalizedHttpMethod.isEmpty())
+            {
+                extensionMethods.add(normalizedHttpMethod);
+            }
+        }
+        return new HttpMethodMatcher(standardMethods, extensionMethods.toArray(new String[0]), false);
+    }
+
+
+    /**
+     * checks if the given HTTP method is one of the compiled methods
+     * @param httpMethod
+     * @return true if the HTTP method matches
+     */
+    public boolean matches(String httpMethod)
+    {
+        if(allMethods)
+        {
+            return true;
+        }
+        else if(httpMethod == null)
+        {
+            return false;
+        }
+        int bit = standardMethodBit(httpMethod);
+        if(bit != 0)
+        {
+            return (standardMethods & bit) != 0;
+        }
+        for(String extensionMethod : extensionMethods)
+        {
+            if(extensionMethod.equalsIgnoreCase(httpMethod))
+            {
+                return true;
+            }
+        }
+        bit = standardMethodBit(httpMethod.toUpperCase(Locale.ROOT));
+        return (standardMethods & bit) != 0;
+    }
+
+
+    /**
+     * @return true if every HTTP method matches
+     */
+    public boolean matchesAll()
+    {
+        return allMethods;
+    }
+
+
+    private static int standardMethodBit(String httpMethod)
+    {
+        switch(httpMethod)
+        {
+            case "GET":
+                return GET;
+            case "HEAD":
+                return HEAD;
+            case "POST":
+                return POST;
+            case "PUT":
+                return PUT;
+            case "PATCH":
+                return PATCH;
+            case "DELETE":
+                return DELETE;
+            case "OPTIONS":
+                return OPTIONS;
+            case "TRACE":
+                return TRACE;
+            case "CONNECT":
+                return CONNECT;
+            default:
+                return 0;
+        }
+    }
+}
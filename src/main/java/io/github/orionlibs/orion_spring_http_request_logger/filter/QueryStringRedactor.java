@@ -0,0 +1,135 @@
+package io.github.orionlibs.orion_spring_http_request_logger.filter;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled form of the {@code log.uri.query.params.redacted} parameter names and
+ * the optional {@code log.uri.query.params.redacted.value.pattern}.
+ * It copies a raw query string into a log builder in a single pass, masking the values of the redacted parameters
+ * and the values that match the value pattern, without splitting or decoding the query string.
+ * Parameter names are compared case-insensitively and as they appear in the query string, i.e. not URL-decoded.
+ */
+public final class QueryStringRedactor
+{
+    /**
+     * the value that redacted parameters are logged with
+     */
+    public static final String REDACTED_VALUE = "****";
+    private final String[] parameterNames;
+    private final Pattern valuePattern;
+
+
+    private QueryStringRedactor(String[] parameterNames, Pattern valuePattern)
+    {
+        this.parameterNames = parameterNames;
+        this.valuePattern = valuePattern;
+    }
+
+
+    /**
+     * compiles the given redaction rules
+     * @param parameterNames comma-separated names of the parameters whose values are masked, or null
+     * @param valuePattern regex of the values that are masked whatever their parameter, e.g. {@code [0-9]{13,19}} for card numbers, or null
+     * @return the redactor
+     * @throws java.util.regex.PatternSyntaxException if the value pattern is not a valid regex
+     */
+    public static QueryStringRedactor compile(String parameterNames, String valuePattern)
+    {
+        List<String> names = new ArrayList<>();
+        if(parameterNames != null)
+        {
+            for(String parameterName : parameterNames.split(","))
+            {
+                if(!parameterName.isBlank())
+                {
+                    names.add(parameterName.trim());
+                }
+            }
+        }
+        return new QueryStringRedactor(names.toArray(new String[0]),
+                        valuePattern != null && !valuePattern.isBlank() ? Pattern.compile(valuePattern) : null);
+    }
+
+
+    /**
+     * @return true if nothing is redacted
+     */
+    public boolean isEmpty()
+    {
+        return parameterNames.length == 0 && valuePattern == null;
+    }
+
+
+    /**
+     * appends the given query string to the given builder with the redacted values masked
+     * @param builder
+     * @param queryString
+     */
+    public void appendRedacted(StringBuilder builder, String queryString)
+    {
+        if(isEmpty())
+        {
+            builder.append(queryString);
+            return;
+        }
+        int length = queryString.length();
+        int start = 0;
+        while(start <= length)
+        {
+            //the '=' and the '&' of the parameter are found in the same forward scan, which stops at the end of the parameter
+            int separator = -1;
+            int end = start;
+            while(end < length)
+            {
+                char character = queryString.charAt(end);
+                if(character == '&')
+                {
+                    break;
+                }
+                else if(character == '=' && separator < 0)
+                {
+                    separator = end;
+                }
+                end++;
+            }
+            if(separator < 0)
+            {
+                builder.append(queryString, start, end);
+            }
+            else
+            {
+                builder.append(queryString, start, separator + 1);
+                if(separator + 1 < end && isRedacted(queryString, start, separator, end))
+                {
+                    builder.append(REDACTED_VALUE);
+                }
+                else
+                {
+                    builder.append(queryString, separator + 1, end);
+                }
+            }
+            if(end < length)
+            {
+                builder.append('&');
+            }
+            start = end + 1;
+        }
+    }
+
+
+    private boolean isRedacted(String queryString, int nameStart, int nameEnd, int valueEnd)
+    {
+        int nameLength = nameEnd - nameStart;
+        for(String parameterName : parameterNames)
+        {
+            if(parameterName.length() == nameLength && queryString.regionMatches(true, nameStart, parameterName, 0, nameLength))
+            {
+                return true;
+            }
+        }
+        return valuePattern != null && valuePattern.matcher(CharBuffer.wrap(queryString, nameEnd + 1, valueEnd)).matches();
+    }
+}
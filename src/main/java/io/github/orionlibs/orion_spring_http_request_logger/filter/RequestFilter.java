@@ -0,0 +1,74 @@
+package io.github.orionlibs.orion_spring_http_request_logger.filter;
+
+/**
+ * Compiled decision of whether a request is logged at all, from the {@code log.uris.excluded} list,
+ * the {@code log.http.methods.logged} list and the {@code log.uris.logged.pattern} expression.
+ * Excluded URIs are rejected first, with a single lookup, since they are typically the bulk of the traffic
+ * of health checks, probes and static resources.
+ * Then the HTTP method is checked, since that is a single bit test, and the URI pattern only if the method is accepted.
+ * When nothing is filtered, accepting a request is a single field read.
+ */
+public final class RequestFilter
+{
+    private final UriExclusions uriExclusions;
+    private final HttpMethodMatcher httpMethodMatcher;
+    private final UriMatcher uriMatcher;
+    private final boolean noExclusions;
+    private final boolean allHttpMethods;
+    private final boolean allUris;
+
+
+    private RequestFilter(UriExclusions uriExclusions, HttpMethodMatcher httpMethodMatcher, UriMatcher uriMatcher)
+    {
+        this.uriExclusions = uriExclusions;
+        this.httpMethodMatcher = httpMethodMatcher;
+        this.uriMatcher = uriMatcher;
+        this.noExclusions = uriExclusions.isEmpty();
+        this.allHttpMethods = httpMethodMatcher.matchesAll();
+        this.allUris = uriMatcher.matchesAll();
+    }
+
+
+    /**
+     * @param httpMethodMatcher
+     * @param uriMatcher
+     * @return the filter
+     */
+    public static RequestFilter compile(HttpMethodMatcher httpMethodMatcher, UriMatcher uriMatcher)
+    {
+        return compile(UriExclusions.compile(null), httpMethodMatcher, uriMatcher);
+    }
+
+
+    /**
+     * @param uriExclusions
+     * @param httpMethodMatcher
+     * @param uriMatcher
+     * @return the filter
+     */
+    public static RequestFilter compile(UriExclusions uriExclusions, HttpMethodMatcher httpMethodMatcher, UriMatcher uriMatcher)
+    {
+        return new RequestFilter(uriExclusions, httpMethodMatcher, uriMatcher);
+    }
+
+
+    /**
+     * checks if a request with the given HTTP method and URI is logged
+     * @param httpMethod
+     * @param uri
+     * @return true if the URI is not excluded and both the HTTP method and the URI are accepted
+     */
+    public boolean accepts(String httpMethod, String uri)
+    {
+        if(!noExclusions && uriExclusions.excludes(uri))
+        {
+            return false;
+        }
+        else if(allHttpMethods && allUris)
+        {
+            return true;
+        }
+        return (allHttpMethods || httpMethodMatcher.matches(httpMethod))
+                        && (allUris || (uri != null && uriMatcher.matches(uri)));
+    }
+}
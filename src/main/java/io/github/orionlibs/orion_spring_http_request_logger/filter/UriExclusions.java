@@ -0,0 +1,181 @@
+package io.github.orionlibs.orion_spring_http_request_logger.filter;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Compiled form of the {@code log.uris.excluded} list, i.e. of the URIs of the health, probe and static resource requests
+ * that bypass the logger entirely.
+ * Exact paths are kept in a hash set, prefixes like {@code /actuator/*} in a trie that is walked forwards
+ * and suffixes like {@code *.css} in a trie that is walked backwards from the end of the URI, case-insensitively.
+ * So checking a URI is a hash lookup and at most two trie walks, none of which allocates.
+ */
+public final class UriExclusions
+{
+    private static final UriExclusions NONE = new UriExclusions(Set.of(), null, null);
+    private final Set<String> exactPaths;
+    private final TrieNode prefixes;
+    private final TrieNode suffixes;
+
+
+    private UriExclusions(Set<String> exactPaths, TrieNode prefixes, TrieNode suffixes)
+    {
+        this.exactPaths = exactPaths;
+        this.prefixes = prefixes;
+        this.suffixes = suffixes;
+    }
+
+
+    /**
+     * compiles the given comma-separated list of excluded URIs.
+     * An entry that ends with {@code *} excludes the URIs that start with the rest of it, e.g. {@code /actuator/*},
+     * an entry that starts with {@code *} excludes the URIs that end with the rest of it, e.g. {@code *.css},
+     * and any other entry excludes that exact URI, e.g. {@code /health}.
+     * @param excludedUris
+     * @return the exclusions
+     */
+    public static UriExclusions compile(String excludedUris)
+    {
+        if(excludedUris == null || excludedUris.isBlank())
+        {
+            return NONE;
+        }
+        Set<String> exactPaths = new HashSet<>();
+        TrieNode prefixes = null;
+        TrieNode suffixes = null;
+        for(String excludedUri : excludedUris.split(","))
+        {
+            String entry = excludedUri.trim();
+            if(entry.length() > 1 && entry.endsWith("*"))
+            {
+                prefixes = prefixes != null ? prefixes : new TrieNode();
+                prefixes.add(entry.substring(0, entry.length() - 1), false);
+            }
+            else if(entry.length() > 1 && entry.startsWith("*"))
+            {
+                suffixes = suffixes != null ? suffixes : new TrieNode();
+                suffixes.add(entry.substring(1).toLowerCase(Locale.ROOT), true);
+            }
+            else if(!entry.isEmpty())
+            {
+                exactPaths.add(entry);
+            }
+        }
+        return new UriExclusions(exactPaths, prefixes, suffixes);
+    }
+
+
+    /**
+     * @return true if no URI is excluded
+     */
+    public boolean isEmpty()
+    {
+        return exactPaths.isEmpty() && prefixes == null && suffixes == null;
+    }
+
+
+    /**
+     * checks if the given URI is excluded
+     * @param uri
+     * @return true if the URI is one of the exact paths, starts with one of the prefixes or ends with one of the suffixes
+     */
+    public boolean excludes(String uri)
+    {
+        if(uri == null)
+        {
+            return false;
+        }
+        return (!exactPaths.isEmpty() && exactPaths.contains(uri))
+                        || (prefixes != null && prefixes.matchesPrefix(uri))
+                        || (suffixes != null && suffixes.matchesSuffix(uri));
+    }
+
+
+    /**
+     * Node of a character trie whose children are kept in arrays sorted by character, so that lookups do not box characters.
+     */
+    private static final class TrieNode
+    {
+        private char[] keys = new char[0];
+        private TrieNode[] children = new TrieNode[0];
+        private boolean terminal;
+
+
+        private void add(String value, boolean reversed)
+        {
+            TrieNode node = this;
+            for(int i = 0; i < value.length(); i++)
+            {
+                char c = value.charAt(reversed ? value.length() - 1 - i : i);
+                int index = Arrays.binarySearch(node.keys, c);
+                if(index < 0)
+                {
+                    index = -index - 1;
+                    node.keys = insert(node.keys, index, c);
+                    node.children = insert(node.children, index, new TrieNode());
+                }
+                node = node.children[index];
+            }
+            node.terminal = true;
+        }
+
+
+        private static char[] insert(char[] array, int index, char value)
+        {
+            char[] newArray = new char[array.length + 1];
+            System.arraycopy(array, 0, newArray, 0, index);
+            newArray[index] = value;
+            System.arraycopy(array, index, newArray, index + 1, array.length - index);
+            return newArray;
+        }
+
+
+        private static TrieNode[] insert(TrieNode[] array, int index, TrieNode value)
+        {
+            TrieNode[] newArray = new TrieNode[array.length + 1];
+            System.arraycopy(array, 0, newArray, 0, index);
+            newArray[index] = value;
+            System.arraycopy(array, index, newArray, index + 1, array.length - index);
+            return newArray;
+        }
+
+
+        private TrieNode child(char c)
+        {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+
+        private boolean matchesPrefix(String uri)
+        {
+            TrieNode node = this;
+            for(int i = 0; i < uri.length() && !node.terminal; i++)
+            {
+                node = node.child(uri.charAt(i));
+                if(node == null)
+                {
+                    return false;
+                }
+            }
+            return node.terminal;
+        }
+
+
+        private boolean matchesSuffix(String uri)
+        {
+            TrieNode node = this;
+            for(int i = uri.length() - 1; i >= 0 && !node.terminal; i--)
+            {
+                node = node.child(Character.toLowerCase(uri.charAt(i)));
+                if(node == null)
+                {
+                    return false;
+                }
+            }
+            return node.terminal;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package io.github.orionlibs.orion_spring_http_request_logger.filter;
+
+import java.util.regex.Pattern;
+
+/**
+ * Compiled form of the {@code log.uris.logged.pattern} expression.
+ * The expression shapes that are common in practice, i.e. exact, prefix, suffix and contains rules
+ * like {@code ^(/api/v1/[-a-zA-Z0-9]*)$}, {@code /health.*} or {@code .*\.css}, are evaluated
+ * as plain string checks without the regex engine.
+ * Any other expression falls back to a {@link Pattern} that is compiled once.
+ * Like {@link java.util.regex.Matcher#matches()}, a matcher has to match the whole URI.
+ * The fast paths treat {@code .*} as "anything", which is exact for request URIs
+ * since they are not decoded and therefore never contain line terminators.
+ */
+public abstract class UriMatcher
+{
+    private static final String REGEX_METACHARACTERS = "\\.[]{}()*+?^$|";
+
+
+    /**
+     * checks if the given URI matches the compiled expression
+     * @param uri
+     * @return true if the URI matches
+     */
+    public abstract boolean matches(String uri);
+
+
+    /**
+     * @return true if every URI matches
+     */
+    public boolean matchesAll()
+    {
+        return false;
+    }
+
+
+    /**
+     * compiles the given expression into the cheapest matcher that has the same semantics.
+     * A {@code *} expression matches every URI and a null expression matches none.
+     * @param expression
+     * @return the matcher
+     * @throws java.util.regex.PatternSyntaxException if the expression needs the regex engine and it is not a valid regex
+     */
+    public static UriMatcher compile(String expression)
+    {
+        if(expression == null)
+        {
+            return new NoUriMatcher();
+        }
+        else if("*".equals(expression))
+        {
+            return new AnyUriMatcher();
+        }
+        UriMatcher matcher = compileFastPath(expression);
+        if(matcher != null)
+        {
+            return matcher;
+        }
+        return new RegexUriMatcher(Pattern.compile(expression));
+    }
+
+
+    private static UriMatcher compileFastPath(String expression)
+    {
+        String body = expression;
+        if(body.startsWith("^"))
+        {
+            body = body.substring(1);
+        }
+        if(body.endsWith("$") && !body.endsWith("\\$"))
+        {
+            body = body.substring(0, body.length() - 1);
+        }
+        if(body.startsWith("(") && body.endsWith(")") && body.indexOf('(', 1) == -1 && body.indexOf(')') == body.length() - 1)
+        {
+            body = body.substring(1, body.length() - 1);
+        }
+        boolean anythingBefore = body.startsWith(".*");
+        if(anythingBefore)
+        {
+            body = body.substring(2);
+        }
+        boolean anythingAfter = body.endsWith(".*") && !body.endsWith("\\.*");
+        if(anythingAfter)
+        {
+            body = body.substring(0, body.length() - 2);
+        }
+        StringBuilder literal = new StringBuilder();
+        int index = parseLiteral(body, literal);
+        if(index == -1)
+        {
+            return null;
+        }
+        else if(index == body.length())
+        {
+            if(anythingBefore && anythingAfter)
+            {
+                return new ContainsUriMatcher(literal.toString());
+            }
+            else if(anythingBefore)
+            {
+                return new SuffixUriMatcher(literal.toString());
+            }
+            else if(anythingAfter)
+            {
+                return new PrefixUriMatcher(literal.toString());
+            }
+            return new ExactUriMatcher(literal.toString());
+        }
+        else if(!anythingBefore && !anythingAfter)
+        {
+            boolean[] allowedCharacters = parseRepeatedCharacterClass(body.substring(index));
+            if(allowedCharacters != null)
+            {
+                return new PrefixAndCharacterClassUriMatcher(literal.toString(), allowedCharacters);
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * @return the index of the first character that is not part of the literal or -1 if
+     * the expression contains regex constructs other than a trailing character class
+     */
+    private static int parseLiteral(String body, StringBuilder literal)
+    {
+        int i = 0;
+        while(i < body.length())
+        {
+            char c = body.charAt(i);
+            if(c == '\\')
+            {
+                if(i + 1 == body.length() || Character.isLetterOrDigit(body.charAt(i + 1)))
+                {
+                    return -1;
+                }
+                literal.append(body.charAt(i + 1));
+                i += 2;
+            }
+            else if(c == '[')
+            {
+                return i;
+            }
+            else if(REGEX_METACHARACTERS.indexOf(c) != -1)
+            {
+                return -1;
+            }
+            else
+            {
+                literal.append(c);
+                i++;
+            }
+        }
+        return i;
+    }
+
+
+    /**
+     * parses a trailing {@code [...]*} of plain ASCII characters and ranges into a lookup table
+     * @return the lookup table or null if the character class is not that simple
+     */
+    private static boolean[] parseRepeatedCharacterClass(String characterClass)
+    {
+        if(characterClass.length() < 4 || characterClass.charAt(0) != '[' || !characterClass.endsWith("]*"))
+        {
+            return null;
+        }
+        String members = characterClass.substring(1, characterClass.length() - 2);
+        if(members.startsWith("^") || members.contains("[") || members.contains("]") || members.contains("\\") || members.contains("&&"))
+        {
+            return null;
+        }
+        boolean[] allowedCharacters = new boolean[128];
+        for(int i = 0; i < members.length(); i++)
+        {
+            char from = members.charAt(i);
+            char to = from;
+            if(i + 2 < members.length() && members.charAt(i + 1) == '-')
+            {
+                to = members.charAt(i + 2);
+                i += 2;
+            }
+            if(from > to || to >= allowedCharacters.length)
+            {
+                return null;
+            }
+            for(char c = from; c <= to; c++)
+            {
+                allowedCharacters[c] = true;
+            }
+        }
+        return allowedCharacters;
+    }
+
+
+    private static final class AnyUriMatcher extends UriMatcher
+    {
+        @Override
+        public boolean matches(String uri)
+        {
+            return true;
+        }
+
+
+        @Override
+        public boolean matchesAll()
+        {
+            return true;
+        }
+    }
+
+
+    private static final class NoUriMatcher extends UriMatcher
+    {
+        @Override
+        public boolean matches(String uri)
+        {
+            return false;
+        }
+    }
+
+
+    private static final class ExactUriMatcher extends UriMatcher
+    {
+        private final String literal;
+
+
+        private ExactUriMatcher(String literal)
+        {
+            this.literal = literal;
+        }
+
+
+        @Override
+        public boolean matches(String uri)
+        {
+            return literal.equals(uri);
+        }
+    }
+
+
+    private static final class PrefixUriMatcher extends UriMatcher
+    {
+        private final String prefix;
+
+
+        private PrefixUriMatcher(String prefix)
+        {
+            this.prefix = prefix;
+        }
+
+
+        @Override
+        public boolean matches(String uri)
+        {
+            return uri.startsWith(prefix);
+        }
+    }
+
+
+    private static final class SuffixUriMatcher extends UriMatcher
+    {
+        private final String suffix;
+
+
+        private SuffixUriMatcher(String suffix)
+        {
+            this.suffix = suffix;
+        }
+
+
+        @Override
+        public boolean matches(String uri)
+        {
+            return uri.endsWith(suffix);
+        }
+    }
+
+
+    private static final class ContainsUriMatcher extends UriMatcher
+    {
+        private final String infix;
+
+
+        private ContainsUriMatcher(String infix)
+        {
+            this.infix = infix;
+        }
+
+
+        @Override
+        public boolean matches(String uri)
+        {
+            return uri.contains(infix);
+        }
+    }
+
+
+    private static final class PrefixAndCharacterClassUriMatcher extends UriMatcher
+    {
+        private final String prefix;
+        private final boolean[] allowedCharacters;
+
+
+        private PrefixAndCharacterClassUriMatcher(String prefix, boolean[] allowedCharacters)
+        {
+            this.prefix = prefix;
+            this.allowedCharacters = allowedCharacters;
+        }
+
+
+        @Override
+        public boolean matches(String uri)
+        {
+            if(!uri.startsWith(prefix))
+            {
+                return false;
+            }
+            for(int i = prefix.length(); i < uri.length(); i++)
+            {
+                char c = uri.charAt(i);
+                if(c >= allowedCharacters.length || !allowedCharacters[c])
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+
+    private static final class RegexUriMatcher extends UriMatcher
+    {
+        private final Pattern pattern;
+
+
+        private RegexUriMatcher(Pattern pattern)
+        {
+            this.pattern = pattern;
+        }
+
+
+        @Override
+        public boolean matches(String uri)
+        {
+            return pattern.matcher(uri).matches();
+        }
+    }
+}
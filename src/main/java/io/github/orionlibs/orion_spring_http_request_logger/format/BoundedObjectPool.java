@@ -0,0 +1,85 @@
+package io.github.orionlibs.orion_spring_http_request_logger.format;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Small lock-free pool of reusable buffers for building log records.
+ * Unlike a {@link ThreadLocal} cache, its memory is bounded by the number of slots
+ * rather than the number of threads, which keeps it cheap with virtual threads.
+ * When every slot is taken, a new object is created and discarded after use.
+ * @param <T> the type of the pooled objects
+ */
+public final class BoundedObjectPool<T>
+{
+    private final AtomicReferenceArray<T> slots;
+    private final Supplier<T> factory;
+    private final Predicate<T> resetter;
+
+
+    /**
+     * @param slotCount the maximum number of idle objects the pool retains
+     * @param factory creates a new object
+     * @param resetter clears an object that is given back and returns false if it should not be retained
+     */
+    public BoundedObjectPool(int slotCount, Supplier<T> factory, Predicate<T> resetter)
+    {
+        this.slots = new AtomicReferenceArray<>(slotCount);
+        this.factory = factory;
+        this.resetter = resetter;
+    }
+
+
+    /**
+     * @return a pooled or new object that has to be given back with {@link #release(Object)}
+     */
+    public T acquire()
+    {
+        int slotCount = slots.length();
+        int start = ThreadLocalRandom.current().nextInt(slotCount);
+        for(int i = 0; i < slotCount; i++)
+        {
+            int index = (start + i) % slotCount;
+            T pooled = slots.get(index);
+            if(pooled != null && slots.compareAndSet(index, pooled, null))
+            {
+                return pooled;
+            }
+        }
+        return factory.get();
+    }
+
+
+    /**
+     * gives the given object back to the pool
+     * @param pooled
+     */
+    public void release(T pooled)
+    {
+        if(!resetter.test(pooled))
+        {
+            return;
+        }
+        int slotCount = slots.length();
+        int start = ThreadLocalRandom.current().nextInt(slotCount);
+        for(int i = 0; i < slotCount; i++)
+        {
+            int index = (start + i) % slotCount;
+            if(slots.get(index) == null && slots.compareAndSet(index, null, pooled))
+            {
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * @return a slot count that scales with the number of CPUs, which bounds the number of objects in use at the same time
+     */
+    public static int defaultSlotCount()
+    {
+        return Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+    }
+}
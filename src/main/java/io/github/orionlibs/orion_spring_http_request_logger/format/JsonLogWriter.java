@@ -0,0 +1,325 @@
+package io.github.orionlibs.orion_spring_http_request_logger.format;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Hand-rolled streaming encoder that writes one flat JSON object as UTF-8 straight into a reusable byte buffer.
+ * Writers are pooled, so encoding a log record involves neither reflection nor intermediate Strings.
+ */
+public final class JsonLogWriter
+{
+    private static final int INITIAL_CAPACITY = 512;
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final BoundedObjectPool<JsonLogWriter> pool = new BoundedObjectPool<>(BoundedObjectPool.defaultSlotCount(),
+                    JsonLogWriter::new,
+                    JsonLogWriter::reset);
+    private byte[] bytes;
+    private int size;
+    private boolean firstField;
+
+
+    private JsonLogWriter()
+    {
+        this.bytes = new byte[INITIAL_CAPACITY];
+    }
+
+
+    /**
+     * @return an empty writer that has to be given back with {@link #release(JsonLogWriter)}
+     */
+    public static JsonLogWriter acquire()
+    {
+        return pool.acquire();
+    }
+
+
+    /**
+     * gives the given writer back to the pool
+     * @param writer
+     */
+    public static void release(JsonLogWriter writer)
+    {
+        pool.release(writer);
+    }
+
+
+    private static boolean reset(JsonLogWriter writer)
+    {
+        if(writer.bytes.length > MAX_RETAINED_CAPACITY)
+        {
+            return false;
+        }
+        writer.size = 0;
+        return true;
+    }
+
+
+    public JsonLogWriter beginObject()
+    {
+        writeByte('{');
+        firstField = true;
+        return this;
+    }
+
+
+    /**
+     * begins a field whose value is a nested object
+     * @param name a field name that does not need escaping
+     * @return this writer
+     */
+    public JsonLogWriter beginObject(String name)
+    {
+        writeFieldName(name);
+        return beginObject();
+    }
+
+
+    public JsonLogWriter endObject()
+    {
+        writeByte('}');
+        firstField = false;
+        return this;
+    }
+
+
+    /**
+     * writes a string field. A null value is written as JSON null.
+     * @param name a field name that does not need escaping
+     * @param value
+     * @return this writer
+     */
+    public JsonLogWriter field(String name, CharSequence value)
+    {
+        writeFieldName(name);
+        if(value == null)
+        {
+            writeBytes(NULL);
+        }
+        else
+        {
+            writeString(value);
+        }
+        return this;
+    }
+
+
+    /**
+     * writes a string field whose name comes from the request and may need escaping
+     * @param name
+     * @param value
+     * @return this writer
+     */
+    public JsonLogWriter fieldWithEscapedName(CharSequence name, CharSequence value)
+    {
+        if(!firstField)
+        {
+            writeByte(',');
+        }
+        firstField = false;
+        writeString(name);
+        writeByte(':');
+        if(value == null)
+        {
+            writeBytes(NULL);
+        }
+        else
+        {
+            writeString(value);
+        }
+        return this;
+    }
+
+
+    /**
+     * writes a numeric field
+     * @param name a field name that does not need escaping
+     * @param value
+     * @return this writer
+     */
+    public JsonLogWriter field(String name, long value)
+    {
+        writeFieldName(name);
+        writeLong(value);
+        return this;
+    }
+
+
+    private void writeFieldName(String name)
+    {
+        if(!firstField)
+        {
+            writeByte(',');
+        }
+        firstField = false;
+        writeByte('"');
+        for(int i = 0; i < name.length(); i++)
+        {
+            writeByte(name.charAt(i));
+        }
+        writeByte('"');
+        writeByte(':');
+    }
+
+
+    private void writeString(CharSequence value)
+    {
+        ensureCapacity(value.length() * 3 + 2);
+        bytes[size++] = '"';
+        for(int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if(c == '"' || c == '\\')
+            {
+                ensureCapacity(2 + (value.length() - i) * 3);
+                bytes[size++] = '\\';
+                bytes[size++] = (byte)c;
+            }
+            else if(c < 0x20)
+            {
+                ensureCapacity(6 + (value.length() - i) * 3);
+                writeControlCharacter(c);
+            }
+            else if(c < 0x80)
+            {
+                bytes[size++] = (byte)c;
+            }
+            else if(c < 0x800)
+            {
+                bytes[size++] = (byte)(0xC0 | (c >> 6));
+                bytes[size++] = (byte)(0x80 | (c & 0x3F));
+            }
+            else if(Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1)))
+            {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[size++] = (byte)(0xF0 | (codePoint >> 18));
+                bytes[size++] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[size++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[size++] = (byte)(0x80 | (codePoint & 0x3F));
+            }
+            else if(Character.isSurrogate(c))
+            {
+                bytes[size++] = '?';
+            }
+            else
+            {
+                bytes[size++] = (byte)(0xE0 | (c >> 12));
+                bytes[size++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                bytes[size++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+        bytes[size++] = '"';
+    }
+
+
+    private void writeControlCharacter(char c)
+    {
+        bytes[size++] = '\\';
+        switch(c)
+        {
+            case '\n' -> bytes[size++] = 'n';
+            case '\r' -> bytes[size++] = 'r';
+            case '\t' -> bytes[size++] = 't';
+            case '\b' -> bytes[size++] = 'b';
+            case '\f' -> bytes[size++] = 'f';
+            default ->
+            {
+                bytes[size++] = 'u';
+                bytes[size++] = '0';
+                bytes[size++] = '0';
+                bytes[size++] = HEX_DIGITS[c >> 4];
+                bytes[size++] = HEX_DIGITS[c & 0xF];
+            }
+        }
+    }
+
+
+    private void writeLong(long value)
+    {
+        if(value == Long.MIN_VALUE)
+        {
+            writeBytes(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        ensureCapacity(20);
+        if(value < 0)
+        {
+            bytes[size++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for(long remainder = value / 10; remainder > 0; remainder /= 10)
+        {
+            digits++;
+        }
+        int position = size + digits;
+        size = position;
+        do
+        {
+            bytes[--position] = (byte)('0' + (value % 10));
+            value /= 10;
+        }
+        while(value > 0);
+    }
+
+
+    private void writeByte(int b)
+    {
+        ensureCapacity(1);
+        bytes[size++] = (byte)b;
+    }
+
+
+    private void writeBytes(byte[] source)
+    {
+        ensureCapacity(source.length);
+        System.arraycopy(source, 0, bytes, size, source.length);
+        size += source.length;
+    }
+
+
+    private void ensureCapacity(int additionalBytes)
+    {
+        if(size + additionalBytes > bytes.length)
+        {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additionalBytes));
+        }
+    }
+
+
+    /**
+     * copies the encoded bytes into the given stream
+     * @param output
+     * @throws IOException
+     */
+    public void writeTo(OutputStream output) throws IOException
+    {
+        output.write(bytes, 0, size);
+    }
+
+
+    /**
+     * @return the encoded bytes. Only the first {@link #size()} bytes are valid.
+     */
+    public byte[] getBytes()
+    {
+        return bytes;
+    }
+
+
+    public int size()
+    {
+        return size;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return new String(bytes, 0, size, StandardCharsets.UTF_8);
+    }
+}
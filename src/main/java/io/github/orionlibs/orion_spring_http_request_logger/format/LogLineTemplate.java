@@ -0,0 +1,211 @@
+package io.github.orionlibs.orion_spring_http_request_logger.format;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pre-parsed form of the {@code log.pattern.for.each.log.record.element} pattern, e.g. {@code %s: %s},
+ * where the first argument is the name of the log element and the second one is its value.
+ * The pattern is split once into literal and placeholder segments that are appended straight into
+ * a {@link StringBuilder}, so that the format string is not parsed for every log element.
+ * Patterns that use more than {@code %s}, {@code %1$s}, {@code %2$s}, {@code %%} and {@code %n}
+ * are delegated to {@link String#format(String, Object...)}.
+ */
+public final class LogLineTemplate
+{
+    private static final int NAME_ARGUMENT = 0;
+    private static final int VALUE_ARGUMENT = 1;
+    private static final int LITERAL = -1;
+    private final String pattern;
+    private final String[] literals;
+    private final int[] arguments;
+    private final int valueSegment;
+
+
+    private LogLineTemplate(String pattern, String[] literals, int[] arguments, int valueSegment)
+    {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.arguments = arguments;
+        this.valueSegment = valueSegment;
+    }
+
+
+    /**
+     * parses the given pattern. A null pattern is treated as {@code %s: %s}.
+     * @param pattern
+     * @return the template
+     */
+    public static LogLineTemplate compile(String pattern)
+    {
+        if(pattern == null)
+        {
+            pattern = "%s: %s";
+        }
+        List<String> literals = new ArrayList<>();
+        List<Integer> arguments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int implicitArgument = 0;
+        int valueSegment = -1;
+        int i = 0;
+        while(i < pattern.length())
+        {
+            char c = pattern.charAt(i);
+            if(c != '%')
+            {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            int argument;
+            int conversionEnd = i + 1;
+            while(conversionEnd < pattern.length() && Character.isDigit(pattern.charAt(conversionEnd)))
+            {
+                conversionEnd++;
+            }
+            if(conversionEnd < pattern.length() && pattern.charAt(conversionEnd) == '%' && conversionEnd == i + 1)
+            {
+                literal.append('%');
+                i += 2;
+                continue;
+            }
+            else if(conversionEnd < pattern.length() && pattern.charAt(conversionEnd) == 'n' && conversionEnd == i + 1)
+            {
+                literal.append(System.lineSeparator());
+                i += 2;
+                continue;
+            }
+            else if(conversionEnd < pattern.length() && pattern.charAt(conversionEnd) == 's' && conversionEnd == i + 1)
+            {
+                argument = implicitArgument++;
+                i += 2;
+            }
+            else if(conversionEnd + 1 < pattern.length() && conversionEnd > i + 1
+                            && pattern.charAt(conversionEnd) == '$' && pattern.charAt(conversionEnd + 1) == 's')
+            {
+                argument = Integer.parseInt(pattern.substring(i + 1, conversionEnd)) - 1;
+                i = conversionEnd + 2;
+            }
+            else
+            {
+                return new LogLineTemplate(pattern, null, null, -1);
+            }
+            if(argument != NAME_ARGUMENT && argument != VALUE_ARGUMENT)
+            {
+                return new LogLineTemplate(pattern, null, null, -1);
+            }
+            if(literal.length() > 0)
+            {
+                literals.add(literal.toString());
+                arguments.add(LITERAL);
+                literal.setLength(0);
+            }
+            if(argument == VALUE_ARGUMENT)
+            {
+                if(valueSegment != -1)
+                {
+                    return new LogLineTemplate(pattern, null, null, -1);
+                }
+                valueSegment = arguments.size();
+            }
+            literals.add(null);
+            arguments.add(argument);
+        }
+        if(literal.length() > 0)
+        {
+            literals.add(literal.toString());
+            arguments.add(LITERAL);
+        }
+        if(valueSegment == -1)
+        {
+            return new LogLineTemplate(pattern, null, null, -1);
+        }
+        return new LogLineTemplate(pattern,
+                        literals.toArray(new String[0]),
+                        arguments.stream().mapToInt(Integer::intValue).toArray(),
+                        valueSegment);
+    }
+
+
+    /**
+     * appends the part of the log element that comes before its value.
+     * The caller appends the value right after this call and then calls {@link #endElement(StringBuilder, String, int)}.
+     * @param logMessage
+     * @param name the name of the log element
+     * @return the mark that has to be passed to {@link #endElement(StringBuilder, String, int)}
+     */
+    public int beginElement(StringBuilder logMessage, String name)
+    {
+        if(isPrecompiled())
+        {
+            appendSegments(logMessage, name, 0, valueSegment);
+        }
+        return logMessage.length();
+    }
+
+
+    /**
+     * appends the part of the log element that comes after its value
+     * @param logMessage
+     * @param name the name of the log element
+     * @param valueStart the mark returned by {@link #beginElement(StringBuilder, String)}
+     */
+    public void endElement(StringBuilder logMessage, String name, int valueStart)
+    {
+        if(isPrecompiled())
+        {
+            appendSegments(logMessage, name, valueSegment + 1, arguments.length);
+        }
+        else
+        {
+            String value = logMessage.substring(valueStart);
+            logMessage.setLength(valueStart);
+            logMessage.append(String.format(pattern, name, value));
+        }
+    }
+
+
+    /**
+     * appends the whole log element
+     * @param logMessage
+     * @param name
+     * @param value
+     */
+    public void appendElement(StringBuilder logMessage, String name, String value)
+    {
+        int valueStart = beginElement(logMessage, name);
+        logMessage.append(value);
+        endElement(logMessage, name, valueStart);
+    }
+
+
+    private void appendSegments(StringBuilder logMessage, String name, int from, int to)
+    {
+        for(int i = from; i < to; i++)
+        {
+            if(arguments[i] == NAME_ARGUMENT)
+            {
+                logMessage.append(name);
+            }
+            else
+            {
+                logMessage.append(literals[i]);
+            }
+        }
+    }
+
+
+    /**
+     * @return false if the pattern is delegated to {@link String#format(String, Object...)}
+     */
+    public boolean isPrecompiled()
+    {
+        return arguments != null;
+    }
+
+
+    public String getPattern()
+    {
+        return pattern;
+    }
+}
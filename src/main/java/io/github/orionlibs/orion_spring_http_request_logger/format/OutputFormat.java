@@ -0,0 +1,17 @@
+package io.github.orionlibs.orion_spring_http_request_logger.format;
+
+/**
+ * The format of the log records the interceptor emits
+ */
+public enum OutputFormat
+{
+    /**
+     * one line per request that is built from the {@code log.pattern.for.each.log.record.element} pattern and emitted after the request completes,
+     * with the response status and, if enabled, the request processing duration
+     */
+    TEXT,
+    /**
+     * one JSON object per line and per request that is emitted after the request completes
+     */
+    JSON
+}
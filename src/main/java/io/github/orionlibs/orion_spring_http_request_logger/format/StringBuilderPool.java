@@ -0,0 +1,49 @@
+package io.github.orionlibs.orion_spring_http_request_logger.format;
+
+/**
+ * Pool of reusable {@link StringBuilder}s for building log lines.
+ * Builders that grew too large are not retained.
+ */
+public final class StringBuilderPool
+{
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 8 * 1024;
+    private static final BoundedObjectPool<StringBuilder> pool = new BoundedObjectPool<>(BoundedObjectPool.defaultSlotCount(),
+                    () -> new StringBuilder(INITIAL_CAPACITY),
+                    StringBuilderPool::reset);
+
+
+    private StringBuilderPool()
+    {
+    }
+
+
+    /**
+     * @return an empty builder that has to be given back with {@link #release(StringBuilder)}
+     */
+    public static StringBuilder acquire()
+    {
+        return pool.acquire();
+    }
+
+
+    /**
+     * gives the given builder back to the pool
+     * @param builder
+     */
+    public static void release(StringBuilder builder)
+    {
+        pool.release(builder);
+    }
+
+
+    private static boolean reset(StringBuilder builder)
+    {
+        if(builder.capacity() > MAX_RETAINED_CAPACITY)
+        {
+            return false;
+        }
+        builder.setLength(0);
+        return true;
+    }
+}
@@ -0,0 +1,129 @@
+package io.github.orionlibs.orion_spring_http_request_logger.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-memory, lock-free log-linear histogram of durations in nanoseconds, in the style of HdrHistogram.
+ * Every power of two is split into 32 linear sub-buckets, which bounds the relative error of
+ * the reported percentiles to about 3%. Durations above 2^42ns (about 73 minutes) are counted in the last bucket.
+ */
+public final class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_TRACKABLE_VALUE = (1L << 42) - 1;
+    private static final int BUCKET_COUNT = bucketIndex(MAX_TRACKABLE_VALUE) + 1;
+    private final String name;
+    private final AtomicLongArray counts;
+    private final LongAdder totalCount;
+    private final LongAdder totalNanos;
+    private final AtomicLong maxNanos;
+
+
+    /**
+     * @param name the name the snapshots of this histogram are reported with
+     */
+    public LatencyHistogram(String name)
+    {
+        this.name = name;
+        this.counts = new AtomicLongArray(BUCKET_COUNT);
+        this.totalCount = new LongAdder();
+        this.totalNanos = new LongAdder();
+        this.maxNanos = new AtomicLong();
+    }
+
+
+    /**
+     * records the given duration
+     * @param durationNanos
+     */
+    public void record(long durationNanos)
+    {
+        long value = Math.max(0L, durationNanos);
+        counts.incrementAndGet(bucketIndex(Math.min(value, MAX_TRACKABLE_VALUE)));
+        totalCount.increment();
+        totalNanos.add(value);
+        long currentMax = maxNanos.get();
+        while(value > currentMax && !maxNanos.compareAndSet(currentMax, value))
+        {
+            currentMax = maxNanos.get();
+        }
+    }
+
+
+    /**
+     * @return the count, mean, max and percentiles of the durations recorded so far
+     */
+    public LatencySnapshot snapshot()
+    {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        long count = 0L;
+        for(int i = 0; i < BUCKET_COUNT; i++)
+        {
+            bucketCounts[i] = counts.get(i);
+            count += bucketCounts[i];
+        }
+        long max = maxNanos.get();
+        long mean = count > 0 ? totalNanos.sum() / Math.max(1L, totalCount.sum()) : 0L;
+        return new LatencySnapshot(name,
+                        count,
+                        mean,
+                        max,
+                        valueAtPercentile(bucketCounts, count, 50.0d, max),
+                        valueAtPercentile(bucketCounts, count, 90.0d, max),
+                        valueAtPercentile(bucketCounts, count, 99.0d, max),
+                        valueAtPercentile(bucketCounts, count, 99.9d, max));
+    }
+
+
+    public String getName()
+    {
+        return name;
+    }
+
+
+    private static long valueAtPercentile(long[] bucketCounts, long count, double percentile, long max)
+    {
+        if(count == 0)
+        {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long)Math.ceil(percentile / 100.0d * count));
+        long cumulativeCount = 0L;
+        for(int i = 0; i < bucketCounts.length; i++)
+        {
+            cumulativeCount += bucketCounts[i];
+            if(cumulativeCount >= rank)
+            {
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+
+    static int bucketIndex(long value)
+    {
+        int highestBit = 63 - Long.numberOfLeadingZeros(value | 1L);
+        if(highestBit <= SUB_BUCKET_BITS)
+        {
+            return (int)value;
+        }
+        int shift = highestBit - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int)(value >>> shift);
+    }
+
+
+    static long bucketUpperBound(int index)
+    {
+        if(index < 2 * SUB_BUCKET_COUNT)
+        {
+            return index;
+        }
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        long mantissa = (index & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
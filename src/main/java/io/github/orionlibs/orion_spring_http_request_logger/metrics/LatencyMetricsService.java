@@ -0,0 +1,108 @@
+package io.github.orionlibs.orion_spring_http_request_logger.metrics;
+
+import io.github.orionlibs.orion_spring_http_request_logger.scheduling.PeriodicTask;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Service that keeps one {@link LatencyHistogram} per request handler
+ * and optionally logs a summary of all of them periodically.
+ * The number of histograms is capped, and handlers beyond the cap share the {@link #OTHER_HANDLERS} histogram.
+ */
+public class LatencyMetricsService
+{
+    /**
+     * the name of the histogram of the handlers that exceeded the maximum number of histograms
+     */
+    public static final String OTHER_HANDLERS = "OTHER";
+    private static final ConcurrentHashMap<Object, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static volatile LatencyHistogram otherHandlersHistogram = new LatencyHistogram(OTHER_HANDLERS);
+    private static final PeriodicTask summaryTask = new PeriodicTask("orion-http-request-logger-latency-summary", LatencyMetricsService::logSummaries);
+    private static volatile Consumer<String> summaryLogger;
+
+
+    /**
+     * records the given duration in the histogram of the given handler
+     * @param handler the handler, or any other key whose equality identifies the endpoint
+     * @param durationNanos
+     * @param maxHistograms the maximum number of histograms
+     */
+    public static void record(Object handler, long durationNanos, int maxHistograms)
+    {
+        Object key = handler != null ? handler : "UNKNOWN";
+        LatencyHistogram histogram = histograms.get(key);
+        if(histogram == null)
+        {
+            if(histograms.size() >= maxHistograms)
+            {
+                histogram = otherHandlersHistogram;
+            }
+            else
+            {
+                histogram = histograms.computeIfAbsent(key, k -> new LatencyHistogram(k.toString()));
+            }
+        }
+        histogram.record(durationNanos);
+    }
+
+
+    /**
+     * @return a snapshot of every histogram that has recorded durations
+     */
+    public static List<LatencySnapshot> getSnapshots()
+    {
+        List<LatencySnapshot> snapshots = new ArrayList<>(histograms.size() + 1);
+        for(LatencyHistogram histogram : histograms.values())
+        {
+            snapshots.add(histogram.snapshot());
+        }
+        LatencySnapshot otherHandlersSnapshot = otherHandlersHistogram.snapshot();
+        if(otherHandlersSnapshot.getCount() > 0)
+        {
+            snapshots.add(otherHandlersSnapshot);
+        }
+        return snapshots;
+    }
+
+
+    /**
+     * discards every histogram
+     */
+    public static void reset()
+    {
+        histograms.clear();
+        otherHandlersHistogram = new LatencyHistogram(OTHER_HANDLERS);
+    }
+
+
+    /**
+     * makes sure that the summary of every histogram is passed to the given logger every intervalSeconds.
+     * It only reschedules when the interval changes.
+     * @param intervalSeconds the interval or 0 to stop the periodic summaries
+     * @param logger
+     */
+    public static void scheduleSummaries(long intervalSeconds, Consumer<String> logger)
+    {
+        if(summaryLogger != logger)
+        {
+            summaryLogger = logger;
+        }
+        summaryTask.schedule(TimeUnit.SECONDS.toMillis(intervalSeconds));
+    }
+
+
+    private static void logSummaries()
+    {
+        Consumer<String> logger = summaryLogger;
+        for(LatencySnapshot snapshot : getSnapshots())
+        {
+            if(snapshot.getCount() > 0)
+            {
+                logger.accept(snapshot.toString());
+            }
+        }
+    }
+}
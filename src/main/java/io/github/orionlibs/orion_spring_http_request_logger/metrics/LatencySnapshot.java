@@ -0,0 +1,93 @@
+package io.github.orionlibs.orion_spring_http_request_logger.metrics;
+
+/**
+ * Point-in-time view of a {@link LatencyHistogram}. All durations are in nanoseconds.
+ */
+public final class LatencySnapshot
+{
+    private final String name;
+    private final long count;
+    private final long meanNanos;
+    private final long maxNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+
+
+    LatencySnapshot(String name, long count, long meanNanos, long maxNanos, long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos)
+    {
+        this.name = name;
+        this.count = count;
+        this.meanNanos = meanNanos;
+        this.maxNanos = maxNanos;
+        this.p50Nanos = p50Nanos;
+        this.p90Nanos = p90Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+    }
+
+
+    public String getName()
+    {
+        return name;
+    }
+
+
+    public long getCount()
+    {
+        return count;
+    }
+
+
+    public long getMeanNanos()
+    {
+        return meanNanos;
+    }
+
+
+    public long getMaxNanos()
+    {
+        return maxNanos;
+    }
+
+
+    public long getP50Nanos()
+    {
+        return p50Nanos;
+    }
+
+
+    public long getP90Nanos()
+    {
+        return p90Nanos;
+    }
+
+
+    public long getP99Nanos()
+    {
+        return p99Nanos;
+    }
+
+
+    public long getP999Nanos()
+    {
+        return p999Nanos;
+    }
+
+
+    /**
+     * @return the summary log line of this snapshot
+     */
+    @Override
+    public String toString()
+    {
+        return "Latency of " + name + ": count=" + count
+                        + ", mean=" + meanNanos + "ns"
+                        + ", p50=" + p50Nanos + "ns"
+                        + ", p90=" + p90Nanos + "ns"
+                        + ", p99=" + p99Nanos + "ns"
+                        + ", p999=" + p999Nanos + "ns"
+                        + ", max=" + maxNanos + "ns";
+    }
+}
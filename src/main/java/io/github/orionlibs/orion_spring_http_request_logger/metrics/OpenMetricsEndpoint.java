@@ -0,0 +1,27 @@
+package io.github.orionlibs.orion_spring_http_request_logger.metrics;
+
+import io.github.orionlibs.orion_spring_http_request_logger.config.ConfigurationService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.web.HttpRequestHandler;
+
+/**
+ * Spring MVC handler that serves the metrics of {@link OpenMetricsService} in the OpenMetrics text format,
+ * so that they can be scraped e.g. by Prometheus. It responds with 404 while the metrics endpoint is disabled.
+ */
+public class OpenMetricsEndpoint implements HttpRequestHandler
+{
+    @Override
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        if(!ConfigurationService.getLoggingPolicy().isMetricsEndpointEnabled())
+        {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(OpenMetricsService.CONTENT_TYPE);
+        OpenMetricsService.writeTo(response.getOutputStream());
+    }
+}
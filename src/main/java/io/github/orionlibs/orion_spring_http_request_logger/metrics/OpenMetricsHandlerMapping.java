@@ -0,0 +1,38 @@
+package io.github.orionlibs.orion_spring_http_request_logger.metrics;
+
+import io.github.orionlibs.orion_spring_http_request_logger.config.ConfigurationService;
+import io.github.orionlibs.orion_spring_http_request_logger.config.LoggingPolicy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.handler.AbstractHandlerMapping;
+
+/**
+ * Spring MVC handler mapping that maps the configured metrics endpoint path to the {@link OpenMetricsEndpoint}, ahead of the application's own mappings.
+ * Both the path and whether the endpoint is enabled are read from the current {@link LoggingPolicy} on every request,
+ * so they follow runtime configuration reloads. While the endpoint is disabled it maps nothing,
+ * so the requests fall through to the application, which may serve the same path itself.
+ * It has no interceptors, so scrapes are not logged.
+ */
+public class OpenMetricsHandlerMapping extends AbstractHandlerMapping
+{
+    private final OpenMetricsEndpoint endpoint;
+
+
+    public OpenMetricsHandlerMapping()
+    {
+        this.endpoint = new OpenMetricsEndpoint();
+        setOrder(Ordered.HIGHEST_PRECEDENCE);
+    }
+
+
+    @Override
+    protected Object getHandlerInternal(HttpServletRequest request)
+    {
+        LoggingPolicy policy = ConfigurationService.getLoggingPolicy();
+        if(policy.isMetricsEndpointEnabled() && policy.getMetricsEndpointPath().equals(initLookupPath(request)))
+        {
+            return endpoint;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,195 @@
+package io.github.orionlibs.orion_spring_http_request_logger.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service that keeps cumulative request counts per status class and request duration histograms per route
+ * and renders them in the OpenMetrics text format, without depending on a metrics library.
+ * Recording only increments striped counters. Rendering reuses a single output buffer, which keeps
+ * the largest size it has grown to, so periodic scrapes do not allocate in proportion to the number of routes.
+ * The number of routes is capped, and routes beyond the cap share the {@link #OTHER_ROUTES} metrics.
+ */
+public class OpenMetricsService
+{
+    /**
+     * the content type of the OpenMetrics text format
+     */
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+    /**
+     * the method and route labels of the routes that exceeded the maximum number of routes
+     */
+    public static final String OTHER_ROUTES = "OTHER";
+    private static final String REQUESTS = "http_server_requests";
+    private static final String DURATION = "http_server_request_duration_seconds";
+    private static final String[] STATUS_CLASS_LABELS = {"other", "1xx", "2xx", "3xx", "4xx", "5xx"};
+    private static final String[] BUCKET_BOUND_LABELS = new String[RouteMetrics.BUCKET_BOUNDS_NANOS.length + 1];
+    private static final ConcurrentHashMap<Object, RouteMetrics> routes = new ConcurrentHashMap<>();
+    private static volatile RouteMetrics otherRoutesMetrics = new RouteMetrics(OTHER_ROUTES, OTHER_ROUTES);
+    private static final OpenMetricsWriter writer = new OpenMetricsWriter(16 * 1024);
+    private static final ReentrantLock writerLock = new ReentrantLock();
+
+    static
+    {
+        for(int i = 0; i < RouteMetrics.BUCKET_BOUNDS_NANOS.length; i++)
+        {
+            BUCKET_BOUND_LABELS[i] = Double.toString(RouteMetrics.BUCKET_BOUNDS_NANOS[i] / 1_000_000_000.0d);
+        }
+        BUCKET_BOUND_LABELS[RouteMetrics.BUCKET_BOUNDS_NANOS.length] = "+Inf";
+    }
+
+    /**
+     * counts a completed request in the metrics of the given route
+     * @param route the HTTP method and route template of the request
+     * @param status
+     * @param durationNanos the request processing duration or -1 if it was not measured
+     * @param maxRoutes the maximum number of routes
+     */
+    public static void record(RouteKey route, int status, long durationNanos, int maxRoutes)
+    {
+        RouteMetrics metrics = routes.get(route);
+        if(metrics == null)
+        {
+            if(routes.size() >= maxRoutes)
+            {
+                metrics = otherRoutesMetrics;
+            }
+            else
+            {
+                metrics = routes.computeIfAbsent(route, k -> new RouteMetrics(route.getHttpMethod(), route.getRouteTemplate()));
+            }
+        }
+        metrics.record(status, durationNanos);
+    }
+
+
+    /**
+     * discards every metric
+     */
+    public static void reset()
+    {
+        routes.clear();
+        otherRoutesMetrics = new RouteMetrics(OTHER_ROUTES, OTHER_ROUTES);
+    }
+
+
+    /**
+     * renders every metric in the OpenMetrics text format to the given output.
+     * Concurrent scrapes take turns on the shared output buffer.
+     * @param output
+     * @return the number of bytes written
+     * @throws IOException
+     */
+    public static int writeTo(OutputStream output) throws IOException
+    {
+        writerLock.lock();
+        try
+        {
+            render(writer);
+            writer.writeTo(output);
+            return writer.size();
+        }
+        finally
+        {
+            writerLock.unlock();
+        }
+    }
+
+
+    /**
+     * @return every metric in the OpenMetrics text format
+     */
+    public static String render()
+    {
+        writerLock.lock();
+        try
+        {
+            render(writer);
+            return writer.toString();
+        }
+        finally
+        {
+            writerLock.unlock();
+        }
+    }
+
+
+    /**
+     * @return the capacity of the shared output buffer
+     */
+    static int getBufferCapacity()
+    {
+        return writer.capacity();
+    }
+
+
+    private static void render(OpenMetricsWriter writer)
+    {
+        writer.reset();
+        RouteMetrics otherRoutes = otherRoutesMetrics;
+        writer.append("# TYPE ").append(REQUESTS).append(" counter\n");
+        writer.append("# HELP ").append(REQUESTS).append(" The number of completed HTTP requests.\n");
+        for(RouteMetrics metrics : routes.values())
+        {
+            writeRequests(writer, metrics);
+        }
+        writeRequests(writer, otherRoutes);
+        writer.append("# TYPE ").append(DURATION).append(" histogram\n");
+        writer.append("# UNIT ").append(DURATION).append(" seconds\n");
+        writer.append("# HELP ").append(DURATION).append(" The processing duration of completed HTTP requests.\n");
+        for(RouteMetrics metrics : routes.values())
+        {
+            writeDurations(writer, metrics);
+        }
+        writeDurations(writer, otherRoutes);
+        writer.append("# EOF\n");
+    }
+
+
+    private static void writeRequests(OpenMetricsWriter writer, RouteMetrics metrics)
+    {
+        for(int statusClass = 0; statusClass < STATUS_CLASS_LABELS.length; statusClass++)
+        {
+            long count = metrics.getStatusClassCount(statusClass);
+            if(count > 0)
+            {
+                writer.append(REQUESTS).append("_total");
+                writeRouteLabels(writer, metrics);
+                writer.append(",status=\"").append(STATUS_CLASS_LABELS[statusClass]).append("\"} ").append(count).append('\n');
+            }
+        }
+    }
+
+
+    private static void writeDurations(OpenMetricsWriter writer, RouteMetrics metrics)
+    {
+        if(!metrics.hasDurations())
+        {
+            return;
+        }
+        long cumulativeCount = 0L;
+        for(int i = 0; i < BUCKET_BOUND_LABELS.length; i++)
+        {
+            cumulativeCount += metrics.getBucketCount(i);
+            writer.append(DURATION).append("_bucket");
+            writeRouteLabels(writer, metrics);
+            writer.append(",le=\"").append(BUCKET_BOUND_LABELS[i]).append("\"} ").append(cumulativeCount).append('\n');
+        }
+        //the count is the +Inf bucket, so that it stays consistent with the buckets while requests are recorded
+        writer.append(DURATION).append("_count");
+        writeRouteLabels(writer, metrics);
+        writer.append("} ").append(cumulativeCount).append('\n');
+        writer.append(DURATION).append("_sum");
+        writeRouteLabels(writer, metrics);
+        writer.append("} ").appendSeconds(metrics.getDurationSumNanos()).append('\n');
+    }
+
+
+    private static void writeRouteLabels(OpenMetricsWriter writer, RouteMetrics metrics)
+    {
+        writer.append("{method=\"").appendLabelValue(metrics.getHttpMethod())
+                        .append("\",route=\"").appendLabelValue(metrics.getRouteTemplate()).append('"');
+    }
+}
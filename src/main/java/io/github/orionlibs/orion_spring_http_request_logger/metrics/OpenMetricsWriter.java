@@ -0,0 +1,193 @@
+package io.github.orionlibs.orion_spring_http_request_logger.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer that the OpenMetrics text exposition is rendered into.
+ * It is meant to be reused for every scrape, so it keeps the largest capacity it has grown to,
+ * and numbers and strings are encoded straight into it, without intermediate strings.
+ * It is not thread-safe.
+ */
+final class OpenMetricsWriter
+{
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private byte[] bytes;
+    private int size;
+
+
+    OpenMetricsWriter(int initialCapacity)
+    {
+        this.bytes = new byte[initialCapacity];
+    }
+
+
+    /**
+     * discards the rendered bytes and keeps the capacity
+     */
+    void reset()
+    {
+        size = 0;
+    }
+
+
+    int size()
+    {
+        return size;
+    }
+
+
+    int capacity()
+    {
+        return bytes.length;
+    }
+
+
+    void writeTo(OutputStream output) throws IOException
+    {
+        output.write(bytes, 0, size);
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return new String(bytes, 0, size, StandardCharsets.UTF_8);
+    }
+
+
+    private void ensureCapacity(int extraBytes)
+    {
+        if(size + extraBytes > bytes.length)
+        {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extraBytes));
+        }
+    }
+
+
+    OpenMetricsWriter append(char c)
+    {
+        ensureCapacity(1);
+        bytes[size++] = (byte)c;
+        return this;
+    }
+
+
+    /**
+     * appends the given ASCII text, e.g. a metric name
+     */
+    OpenMetricsWriter append(String text)
+    {
+        int length = text.length();
+        ensureCapacity(length);
+        for(int i = 0; i < length; i++)
+        {
+            bytes[size++] = (byte)text.charAt(i);
+        }
+        return this;
+    }
+
+
+    /**
+     * appends the given label value in UTF-8, with backslashes, double quotes and line feeds escaped
+     */
+    OpenMetricsWriter appendLabelValue(String value)
+    {
+        int length = value.length();
+        for(int i = 0; i < length; i++)
+        {
+            char c = value.charAt(i);
+            if(c == '\\' || c == '"')
+            {
+                append('\\').append(c);
+            }
+            else if(c == '\n')
+            {
+                append('\\').append('n');
+            }
+            else if(c < 0x80)
+            {
+                append(c);
+            }
+            else
+            {
+                int codePoint = value.codePointAt(i);
+                if(Character.isSupplementaryCodePoint(codePoint))
+                {
+                    i++;
+                }
+                appendUtf8(codePoint);
+            }
+        }
+        return this;
+    }
+
+
+    private void appendUtf8(int codePoint)
+    {
+        ensureCapacity(4);
+        if(codePoint < 0x800)
+        {
+            bytes[size++] = (byte)(0xC0 | (codePoint >> 6));
+        }
+        else if(codePoint < 0x10000)
+        {
+            bytes[size++] = (byte)(0xE0 | (codePoint >> 12));
+            bytes[size++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+        }
+        else
+        {
+            bytes[size++] = (byte)(0xF0 | (codePoint >> 18));
+            bytes[size++] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+            bytes[size++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+        }
+        bytes[size++] = (byte)(0x80 | (codePoint & 0x3F));
+    }
+
+
+    OpenMetricsWriter append(long value)
+    {
+        if(value < 0)
+        {
+            if(value == Long.MIN_VALUE)
+            {
+                return append(Long.toString(value));
+            }
+            append('-');
+            value = -value;
+        }
+        int digits = 1;
+        for(long remaining = value / 10; remaining > 0; remaining /= 10)
+        {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for(int i = size + digits - 1; i >= size; i--)
+        {
+            bytes[i] = (byte)('0' + (value % 10));
+            value /= 10;
+        }
+        size += digits;
+        return this;
+    }
+
+
+    /**
+     * appends the given non-negative duration in seconds, with nanosecond precision
+     */
+    OpenMetricsWriter appendSeconds(long nanos)
+    {
+        append(nanos / NANOS_PER_SECOND).append('.');
+        long fraction = nanos % NANOS_PER_SECOND;
+        ensureCapacity(9);
+        for(int i = size + 8; i >= size; i--)
+        {
+            bytes[i] = (byte)('0' + (fraction % 10));
+            fraction /= 10;
+        }
+        size += 9;
+        return this;
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.orionlibs.orion_spring_http_request_logger.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free rolling-window counter of requests by response status class.
+ * The window is a ring of one-second slots, each one with a {@link LongAdder} per status class,
+ * so that many request threads can count at the same time without contending on a single cache line.
+ * A slot is reset by the first request of the second it is reused for, so counts are approximate
+ * for the requests that race with that reset at the second boundary.
+ */
+public final class RequestRateCounter
+{
+    /**
+     * the number of status classes, where the index of a status class is its first digit
+     * and index 0 counts the statuses that are not in the range 100-599
+     */
+    public static final int STATUS_CLASS_COUNT = 6;
+    private final String name;
+    private final int windowSeconds;
+    private final AtomicLongArray slotSeconds;
+    private final LongAdder[] counts;
+
+
+    /**
+     * @param name the name the snapshots of this counter are reported with
+     * @param windowSeconds the number of one-second slots of the window
+     */
+    public RequestRateCounter(String name, int windowSeconds)
+    {
+        if(windowSeconds <= 0)
+        {
+            throw new IllegalArgumentException("windowSeconds must be positive: " + windowSeconds);
+        }
+        this.name = name;
+        this.windowSeconds = windowSeconds;
+        this.slotSeconds = new AtomicLongArray(windowSeconds);
+        this.counts = new LongAdder[windowSeconds * STATUS_CLASS_COUNT];
+        for(int i = 0; i < counts.length; i++)
+        {
+            counts[i] = new LongAdder();
+        }
+        for(int i = 0; i < windowSeconds; i++)
+        {
+            slotSeconds.set(i, Long.MIN_VALUE);
+        }
+    }
+
+
+    /**
+     * counts a request with the given response status in the current second
+     * @param status
+     */
+    public void record(int status)
+    {
+        record(status, System.currentTimeMillis() / 1000L);
+    }
+
+
+    void record(int status, long epochSecond)
+    {
+        int slot = (int)Math.floorMod(epochSecond, (long)windowSeconds);
+        long slotSecond = slotSeconds.get(slot);
+        if(slotSecond < epochSecond && slotSeconds.compareAndSet(slot, slotSecond, epochSecond))
+        {
+            for(int i = slot * STATUS_CLASS_COUNT; i < (slot + 1) * STATUS_CLASS_COUNT; i++)
+            {
+                counts[i].reset();
+            }
+        }
+        counts[slot * STATUS_CLASS_COUNT + statusClass(status)].increment();
+    }
+
+
+    /**
+     * @param status
+     * @return the index of the status class of the given status
+     */
+    public static int statusClass(int status)
+    {
+        return status >= 100 && status < 600 ? status / 100 : 0;
+    }
+
+
+    /**
+     * @return the counts of the window that ends with the current second
+     */
+    public RequestRateSnapshot snapshot()
+    {
+        return snapshot(System.currentTimeMillis() / 1000L);
+    }
+
+
+    RequestRateSnapshot snapshot(long epochSecond)
+    {
+        long[] statusClassCounts = new long[STATUS_CLASS_COUNT];
+        for(int slot = 0; slot < windowSeconds; slot++)
+        {
+            long slotSecond = slotSeconds.get(slot);
+            if(slotSecond <= epochSecond && slotSecond > epochSecond - windowSeconds)
+            {
+                for(int statusClass = 0; statusClass < STATUS_CLASS_COUNT; statusClass++)
+                {
+                    statusClassCounts[statusClass] += counts[slot * STATUS_CLASS_COUNT + statusClass].sum();
+                }
+            }
+        }
+        return new RequestRateSnapshot(name, windowSeconds, statusClassCounts);
+    }
+
+
+    public String getName()
+    {
+        return name;
+    }
+
+
+    public int getWindowSeconds()
+    {
+        return windowSeconds;
+    }
+}
@@ -0,0 +1,151 @@
+package io.github.orionlibs.orion_spring_http_request_logger.metrics;
+
+import io.github.orionlibs.orion_spring_http_request_logger.scheduling.PeriodicTask;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Service that keeps one {@link RequestRateCounter} per route
+ * and optionally logs a summary of all of them periodically.
+ * The number of counters is capped, and routes beyond the cap share the {@link #OTHER_ROUTES} counter.
+ * Counters are discarded when the window length changes.
+ */
+public class RequestRateService
+{
+    /**
+     * the name of the counter of the routes that exceeded the maximum number of counters
+     */
+    public static final String OTHER_ROUTES = "OTHER";
+    private static final ConcurrentHashMap<Object, RequestRateCounter> counters = new ConcurrentHashMap<>();
+    private static volatile RequestRateCounter otherRoutesCounter;
+    private static volatile int windowSeconds;
+    private static final ReentrantLock countersLock = new ReentrantLock();
+    private static final PeriodicTask summaryTask = new PeriodicTask("orion-http-request-logger-request-rate-summary", RequestRateService::logSummaries);
+    private static volatile Consumer<String> summaryLogger;
+
+
+    /**
+     * counts a request with the given response status in the counter of the given route
+     * @param route the route, or any other key whose equality identifies the endpoint
+     * @param status
+     * @param windowSeconds the length of the window of the counters
+     * @param maxCounters the maximum number of counters
+     */
+    public static void record(Object route, int status, int windowSeconds, int maxCounters)
+    {
+        if(RequestRateService.windowSeconds != windowSeconds)
+        {
+            resize(windowSeconds);
+        }
+        Object key = route != null ? route : "UNKNOWN";
+        RequestRateCounter counter = counters.get(key);
+        if(counter == null)
+        {
+            RequestRateCounter otherRoutes = otherRoutesCounter;
+            if(counters.size() >= maxCounters && otherRoutes != null)
+            {
+                counter = otherRoutes;
+            }
+            else
+            {
+                counter = counters.computeIfAbsent(key, k -> new RequestRateCounter(k.toString(), windowSeconds));
+            }
+        }
+        counter.record(status);
+    }
+
+
+    private static void resize(int windowSeconds)
+    {
+        countersLock.lock();
+        try
+        {
+            if(RequestRateService.windowSeconds != windowSeconds)
+            {
+                counters.clear();
+                otherRoutesCounter = new RequestRateCounter(OTHER_ROUTES, windowSeconds);
+                RequestRateService.windowSeconds = windowSeconds;
+            }
+        }
+        finally
+        {
+            countersLock.unlock();
+        }
+    }
+
+
+    /**
+     * @return a snapshot of every counter that has counted requests in its window
+     */
+    public static List<RequestRateSnapshot> getSnapshots()
+    {
+        List<RequestRateSnapshot> snapshots = new ArrayList<>(counters.size() + 1);
+        for(RequestRateCounter counter : counters.values())
+        {
+            RequestRateSnapshot snapshot = counter.snapshot();
+            if(snapshot.getCount() > 0)
+            {
+                snapshots.add(snapshot);
+            }
+        }
+        RequestRateCounter otherRoutes = otherRoutesCounter;
+        if(otherRoutes != null)
+        {
+            RequestRateSnapshot otherRoutesSnapshot = otherRoutes.snapshot();
+            if(otherRoutesSnapshot.getCount() > 0)
+            {
+                snapshots.add(otherRoutesSnapshot);
+            }
+        }
+        return snapshots;
+    }
+
+
+    /**
+     * discards every counter
+     */
+    public static void reset()
+    {
+        countersLock.lock();
+        try
+        {
+            counters.clear();
+            otherRoutesCounter = null;
+            windowSeconds = 0;
+        }
+        finally
+        {
+            countersLock.unlock();
+        }
+    }
+
+
+    /**
+     * makes sure that the summary of every counter is passed to the given logger every intervalSeconds.
+     * It only reschedules when the interval changes.
+     * @param intervalSeconds the interval or 0 to stop the periodic summaries
+     * @param logger
+     */
+    public static void scheduleSummaries(long intervalSeconds, Consumer<String> logger)
+    {
+        if(summaryLogger != logger)
+        {
+            summaryLogger = logger;
+        }
+        summaryTask.schedule(TimeUnit.SECONDS.toMillis(intervalSeconds));
+    }
+
+
+    private static void logSummaries()
+    {
+        Consumer<String> logger = summaryLogger;
+        for(RequestRateSnapshot snapshot : getSnapshots())
+        {
+            logger.accept(snapshot.toString());
+        }
+    }
+}
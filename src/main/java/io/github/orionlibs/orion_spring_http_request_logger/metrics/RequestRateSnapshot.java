@@ -0,0 +1,102 @@
+package io.github.orionlibs.orion_spring_http_request_logger.metrics;
+
+import java.util.Locale;
+
+/**
+ * Point-in-time view of the window of a {@link RequestRateCounter}.
+ */
+public final class RequestRateSnapshot
+{
+    private final String name;
+    private final int windowSeconds;
+    private final long[] statusClassCounts;
+    private final long count;
+
+
+    RequestRateSnapshot(String name, int windowSeconds, long[] statusClassCounts)
+    {
+        this.name = name;
+        this.windowSeconds = windowSeconds;
+        this.statusClassCounts = statusClassCounts;
+        long count = 0L;
+        for(long statusClassCount : statusClassCounts)
+        {
+            count += statusClassCount;
+        }
+        this.count = count;
+    }
+
+
+    public String getName()
+    {
+        return name;
+    }
+
+
+    public int getWindowSeconds()
+    {
+        return windowSeconds;
+    }
+
+
+    /**
+     * @return the number of requests in the window
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+
+    /**
+     * @param statusClass the first digit of the statuses e.g. 5 for 5xx, or 0 for the statuses that are not in the range 100-599
+     * @return the number of requests in the window with a status of the given class
+     */
+    public long getCount(int statusClass)
+    {
+        return statusClassCounts[statusClass];
+    }
+
+
+    /**
+     * @return the average number of requests per second over the window
+     */
+    public double getRequestsPerSecond()
+    {
+        return (double)count / windowSeconds;
+    }
+
+
+    /**
+     * @return the fraction of the requests in the window that failed with a 5xx status
+     */
+    public double getErrorRate()
+    {
+        return count > 0 ? (double)statusClassCounts[5] / count : 0.0d;
+    }
+
+
+    /**
+     * @return the fraction of the requests in the window that were rejected with a 4xx status
+     */
+    public double getClientErrorRate()
+    {
+        return count > 0 ? (double)statusClassCounts[4] / count : 0.0d;
+    }
+
+
+    /**
+     * @return the summary log line of this snapshot
+     */
+    @Override
+    public String toString()
+    {
+        return "Request rates of " + name + " over " + windowSeconds + "s: count=" + count
+                        + ", rate=" + String.format(Locale.ROOT, "%.3f", getRequestsPerSecond()) + "/s"
+                        + ", 2xx=" + statusClassCounts[2]
+                        + ", 3xx=" + statusClassCounts[3]
+                        + ", 4xx=" + statusClassCounts[4]
+                        + ", 5xx=" + statusClassCounts[5]
+                        + ", errorRate=" + String.format(Locale.ROOT, "%.4f", getErrorRate());
+    }
+}
@@ -0,0 +1,62 @@
+package io.github.orionlibs.orion_spring_http_request_logger.metrics;
+
+/**
+ * Key of the metrics of a route, i.e. of an HTTP method and a route template as resolved by {@link RouteTemplateResolver}.
+ * Its string form is {@code <HTTP method> <route template>}, e.g. {@code GET /api/v1/users/{id}}.
+ */
+public final class RouteKey
+{
+    private final String httpMethod;
+    private final String routeTemplate;
+    private final int hashCode;
+
+
+    public RouteKey(String httpMethod, String routeTemplate)
+    {
+        this.httpMethod = httpMethod;
+        this.routeTemplate = routeTemplate;
+        this.hashCode = 31 * httpMethod.hashCode() + routeTemplate.hashCode();
+    }
+
+
+    public String getHttpMethod()
+    {
+        return httpMethod;
+    }
+
+
+    public String getRouteTemplate()
+    {
+        return routeTemplate;
+    }
+
+
+    @Override
+    public boolean equals(Object other)
+    {
+        if(this == other)
+        {
+            return true;
+        }
+        else if(!(other instanceof RouteKey))
+        {
+            return false;
+        }
+        RouteKey otherKey = (RouteKey)other;
+        return hashCode == otherKey.hashCode && httpMethod.equals(otherKey.httpMethod) && routeTemplate.equals(otherKey.routeTemplate);
+    }
+
+
+    @Override
+    public int hashCode()
+    {
+        return hashCode;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return httpMethod + " " + routeTemplate;
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.orionlibs.orion_spring_http_request_logger.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free cumulative counters of the requests of a route, as exposed by {@link OpenMetricsService}:
+ * the number of requests per status class and a histogram of their durations with fixed bucket bounds.
+ */
+final class RouteMetrics
+{
+    /**
+     * the upper bounds of the duration buckets, the default buckets of the Prometheus client libraries
+     */
+    static final long[] BUCKET_BOUNDS_NANOS = {5_000_000L,
+                    10_000_000L,
+                    25_000_000L,
+                    50_000_000L,
+                    100_000_000L,
+                    250_000_000L,
+                    500_000_000L,
+                    1_000_000_000L,
+                    2_500_000_000L,
+                    5_000_000_000L,
+                    10_000_000_000L};
+    private final String httpMethod;
+    private final String routeTemplate;
+    private final LongAdder[] statusClassCounts;
+    private final LongAdder[] bucketCounts;
+    private final LongAdder durationSumNanos;
+
+
+    RouteMetrics(String httpMethod, String routeTemplate)
+    {
+        this.httpMethod = httpMethod;
+        this.routeTemplate = routeTemplate;
+        this.statusClassCounts = newAdders(RequestRateCounter.STATUS_CLASS_COUNT);
+        this.bucketCounts = newAdders(BUCKET_BOUNDS_NANOS.length + 1);
+        this.durationSumNanos = new LongAdder();
+    }
+
+
+    private static LongAdder[] newAdders(int count)
+    {
+        LongAdder[] adders = new LongAdder[count];
+        for(int i = 0; i < count; i++)
+        {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+
+    /**
+     * counts a request
+     * @param status
+     * @param durationNanos the request processing duration or -1 if it was not measured
+     */
+    void record(int status, long durationNanos)
+    {
+        statusClassCounts[RequestRateCounter.statusClass(status)].increment();
+        if(durationNanos >= 0)
+        {
+            bucketCounts[bucketIndex(durationNanos)].increment();
+            durationSumNanos.add(durationNanos);
+        }
+    }
+
+
+    static int bucketIndex(long durationNanos)
+    {
+        int index = 0;
+        while(index < BUCKET_BOUNDS_NANOS.length && durationNanos > BUCKET_BOUNDS_NANOS[index])
+        {
+            index++;
+        }
+        return index;
+    }
+
+
+    String getHttpMethod()
+    {
+        return httpMethod;
+    }
+
+
+    String getRouteTemplate()
+    {
+        return routeTemplate;
+    }
+
+
+    long getStatusClassCount(int statusClass)
+    {
+        return statusClassCounts[statusClass].sum();
+    }
+
+
+    /**
+     * @param index the index of a bucket, where the last index is the bucket of the durations above every bound
+     * @return the number of durations of the given bucket only, i.e. not cumulative
+     */
+    long getBucketCount(int index)
+    {
+        return bucketCounts[index].sum();
+    }
+
+
+    /**
+     * @return true if the duration of any request has been recorded
+     */
+    boolean hasDurations()
+    {
+        for(LongAdder bucketCount : bucketCounts)
+        {
+            if(bucketCount.sum() > 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    long getDurationSumNanos()
+    {
+        return durationSumNanos.sum();
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.orionlibs.orion_spring_http_request_logger.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Service that resolves the route template that a request was mapped to, e.g. {@code /api/v1/users/{id}}
+ * for both {@code /api/v1/users/123} and {@code /api/v1/users/456}, so that logs and metrics can be keyed by
+ * a bounded set of routes instead of by raw URIs.
+ * The template is the best matching pattern that Spring MVC exposes as a request attribute and,
+ * for handlers that are not mapped by a pattern, a description of the handler.
+ * The best matching pattern is returned as it is, and only the descriptions of the handlers without a pattern are cached,
+ * so resolving a template is a request attribute read and at most a map lookup.
+ * The number of cached handlers is capped, and handlers beyond the cap are described without caching.
+ */
+public class RouteTemplateResolver
+{
+    /**
+     * the route template of the requests that no handler was found for
+     */
+    public static final String UNMATCHED_ROUTE = "UNMATCHED";
+    private static final ConcurrentHashMap<Object, String> routeTemplates = new ConcurrentHashMap<>();
+
+
+    /**
+     * resolves the route template of the given request
+     * @param request
+     * @param handler the handler of the request or null if none was found
+     * @param maxRoutes the maximum number of cached handlers without a pattern
+     * @return the route template
+     */
+    public static String resolve(HttpServletRequest request, Object handler, int maxRoutes)
+    {
+        Object bestMatchingPattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if(bestMatchingPattern != null)
+        {
+            return bestMatchingPattern.toString();
+        }
+        else if(handler == null)
+        {
+            return UNMATCHED_ROUTE;
+        }
+        String routeTemplate = routeTemplates.get(handler);
+        if(routeTemplate != null)
+        {
+            return routeTemplate;
+        }
+        routeTemplate = describe(handler);
+        if(routeTemplates.size() < maxRoutes)
+        {
+            String cachedRouteTemplate = routeTemplates.putIfAbsent(handler, routeTemplate);
+            return cachedRouteTemplate != null ? cachedRouteTemplate : routeTemplate;
+        }
+        return routeTemplate;
+    }
+
+
+    private static String describe(Object handler)
+    {
+        if(handler instanceof HandlerMethod handlerMethod)
+        {
+            return handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName();
+        }
+        return handler.getClass().getSimpleName();
+    }
+
+
+    /**
+     * @return the number of cached handlers
+     */
+    public static int size()
+    {
+        return routeTemplates.size();
+    }
+
+
+    /**
+     * discards every cached route template
+     */
+    public static void reset()
+    {
+        routeTemplates.clear();
+    }
+}
@@ -0,0 +1,271 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sampling;
+
+import io.github.orionlibs.orion_spring_http_request_logger.scheduling.PeriodicTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Suppresses the repeats of identical requests, e.g. of health checks, polling clients and bots, within a window,
+ * and reports how many were suppressed with a single summary when the window closes.
+ * Requests are identical if they have the same IP address, HTTP method, route and response status,
+ * so that a route that starts failing is logged again straight away.
+ * The requests are tracked in a fixed-size, direct-mapped table indexed by a hash of those fields,
+ * where a request evicts the entry of a different request with the same index, like a cache with one way per set.
+ * The first request of a window is logged, and the summary of an entry is emitted when its window closes or when it is evicted.
+ * Summaries are passed to a {@link SummaryListener} as fields rather than as a message, so that they are formatted and written like request records.
+ */
+public final class LogDeduplicator
+{
+    private static final long FLUSH_INTERVAL_MILLIS = 1000L;
+    private static volatile LogDeduplicator scheduledDeduplicator;
+    private static volatile SummaryListener summaryListener;
+    private static final PeriodicTask flushTask = new PeriodicTask("orion-http-request-logger-log-deduplication", LogDeduplicator::flushScheduledDeduplicator);
+    private static final ReentrantLock flushLock = new ReentrantLock();
+    private final long windowSeconds;
+    private final int requestedTableSize;
+    private final long windowMillis;
+    private final AtomicReferenceArray<Entry> entries;
+    private final int mask;
+
+
+    private LogDeduplicator(long windowSeconds, int requestedTableSize, int tableSize)
+    {
+        this.windowSeconds = windowSeconds;
+        this.requestedTableSize = requestedTableSize;
+        this.windowMillis = TimeUnit.SECONDS.toMillis(windowSeconds);
+        this.entries = new AtomicReferenceArray<>(tableSize);
+        this.mask = tableSize - 1;
+    }
+
+
+    /**
+     * @param windowSeconds the length of the window in which repeats are suppressed
+     * @param tableSize the maximum number of distinct requests that are tracked, rounded up to a power of two
+     * @return the deduplicator
+     * @throws IllegalArgumentException if the window or the table size are not positive
+     */
+    public static LogDeduplicator create(long windowSeconds, int tableSize)
+    {
+        if(windowSeconds <= 0 || tableSize <= 0)
+        {
+            throw new IllegalArgumentException("the window and the table size of the log deduplication have to be positive");
+        }
+        int powerOfTwoTableSize = Integer.highestOneBit(Math.min(tableSize, 1 << 30));
+        if(powerOfTwoTableSize < tableSize)
+        {
+            powerOfTwoTableSize <<= 1;
+        }
+        return new LogDeduplicator(windowSeconds, tableSize, powerOfTwoTableSize);
+    }
+
+
+    /**
+     * checks if this deduplicator was created with the given settings
+     * @param windowSeconds
+     * @param tableSize
+     * @return true if the settings are the same
+     */
+    public boolean isConfiguredWith(long windowSeconds, int tableSize)
+    {
+        return this.windowSeconds == windowSeconds && requestedTableSize == tableSize;
+    }
+
+
+    /**
+     * decides whether the given request is logged or suppressed as a repeat of an identical request of the current window
+     * @param remoteAddress
+     * @param httpMethod
+     * @param route the route template of the request, or its URI
+     * @param status
+     * @param listener receives the summary of an entry that this request evicts
+     * @return true if the request is logged
+     */
+    public boolean shouldLog(String remoteAddress, String httpMethod, String route, int status, SummaryListener listener)
+    {
+        return shouldLog(remoteAddress, httpMethod, route, status, System.currentTimeMillis(), listener);
+    }
+
+
+    boolean shouldLog(String remoteAddress, String httpMethod, String route, int status, long nowMillis, SummaryListener listener)
+    {
+        int hash = hash(remoteAddress, httpMethod, route, status);
+        int index = (hash ^ (hash >>> 16)) & mask;
+        Entry entry = entries.get(index);
+        if(entry != null && nowMillis - entry.windowStartMillis < windowMillis && entry.matches(hash, remoteAddress, httpMethod, route, status))
+        {
+            entry.repeats.increment();
+            return false;
+        }
+        Entry newEntry = new Entry(hash, remoteAddress, httpMethod, route, status, nowMillis);
+        if(entries.compareAndSet(index, entry, newEntry) && entry != null)
+        {
+            entry.report(listener, windowSeconds);
+        }
+        return true;
+    }
+
+
+    private static int hash(String remoteAddress, String httpMethod, String route, int status)
+    {
+        int hash = remoteAddress != null ? remoteAddress.hashCode() : 0;
+        hash = 31 * hash + (httpMethod != null ? httpMethod.hashCode() : 0);
+        hash = 31 * hash + (route != null ? route.hashCode() : 0);
+        return 31 * hash + status;
+    }
+
+
+    /**
+     * removes the entries whose window has closed and emits their summaries
+     * @param nowMillis
+     * @param listener
+     */
+    void flushExpired(long nowMillis, SummaryListener listener)
+    {
+        for(int i = 0; i < entries.length(); i++)
+        {
+            Entry entry = entries.get(i);
+            if(entry != null && nowMillis - entry.windowStartMillis >= windowMillis && entries.compareAndSet(i, entry, null))
+            {
+                entry.report(listener, windowSeconds);
+            }
+        }
+    }
+
+
+    /**
+     * removes every entry and emits their summaries
+     * @param listener
+     */
+    void flushAll(SummaryListener listener)
+    {
+        for(int i = 0; i < entries.length(); i++)
+        {
+            Entry entry = entries.getAndSet(i, null);
+            if(entry != null)
+            {
+                entry.report(listener, windowSeconds);
+            }
+        }
+    }
+
+
+    int getTableSize()
+    {
+        return entries.length();
+    }
+
+
+    /**
+     * makes sure that the summaries of the given deduplicator are passed to the given listener when their windows close.
+     * When the deduplicator changes, i.e. when the deduplication settings change, the summaries of the previous one are emitted straight away.
+     * @param deduplicator the deduplicator or null to stop emitting summaries and cancel the periodic flushes
+     * @param listener
+     */
+    public static void scheduleFlushes(LogDeduplicator deduplicator, SummaryListener listener)
+    {
+        if(scheduledDeduplicator == deduplicator)
+        {
+            return;
+        }
+        flushLock.lock();
+        try
+        {
+            LogDeduplicator previousDeduplicator = scheduledDeduplicator;
+            if(previousDeduplicator == deduplicator)
+            {
+                return;
+            }
+            summaryListener = listener;
+            scheduledDeduplicator = deduplicator;
+            if(previousDeduplicator != null)
+            {
+                previousDeduplicator.flushAll(listener);
+            }
+            flushTask.schedule(deduplicator != null ? FLUSH_INTERVAL_MILLIS : 0L);
+        }
+        finally
+        {
+            flushLock.unlock();
+        }
+    }
+
+
+    private static void flushScheduledDeduplicator()
+    {
+        LogDeduplicator deduplicator = scheduledDeduplicator;
+        if(deduplicator != null)
+        {
+            deduplicator.flushExpired(System.currentTimeMillis(), summaryListener);
+        }
+    }
+
+
+    private static final class Entry
+    {
+        private final int hash;
+        private final String remoteAddress;
+        private final String httpMethod;
+        private final String route;
+        private final int status;
+        private final long windowStartMillis;
+        private final LongAdder repeats;
+
+
+        private Entry(int hash, String remoteAddress, String httpMethod, String route, int status, long windowStartMillis)
+        {
+            this.hash = hash;
+            this.remoteAddress = remoteAddress;
+            this.httpMethod = httpMethod;
+            this.route = route;
+            this.status = status;
+            this.windowStartMillis = windowStartMillis;
+            this.repeats = new LongAdder();
+        }
+
+
+        private boolean matches(int hash, String remoteAddress, String httpMethod, String route, int status)
+        {
+            return this.hash == hash
+                            && this.status == status
+                            && equals(this.route, route)
+                            && equals(this.httpMethod, httpMethod)
+                            && equals(this.remoteAddress, remoteAddress);
+        }
+
+
+        private static boolean equals(String a, String b)
+        {
+            return a == null ? b == null : a.equals(b);
+        }
+
+
+        private void report(SummaryListener listener, long windowSeconds)
+        {
+            long repeatCount = repeats.sum();
+            if(repeatCount > 0)
+            {
+                listener.repeated(remoteAddress, httpMethod, route, status, repeatCount, windowSeconds);
+            }
+        }
+    }
+
+
+    /**
+     * Receives the summaries of the repeats that were suppressed.
+     */
+    @FunctionalInterface
+    public interface SummaryListener
+    {
+        /**
+         * @param remoteAddress
+         * @param httpMethod
+         * @param route
+         * @param status
+         * @param repeats the number of identical requests that were suppressed after the first one of the window
+         * @param windowSeconds the length of the window
+         */
+        void repeated(String remoteAddress, String httpMethod, String route, int status, long repeats, long windowSeconds);
+    }
+}
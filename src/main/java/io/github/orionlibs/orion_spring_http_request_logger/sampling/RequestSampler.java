@@ -0,0 +1,168 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sampling;
+
+import io.github.orionlibs.orion_spring_http_request_logger.filter.UriMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether a completed request is logged, before any of its log message is built.
+ * Error requests and slow requests can be configured to be always logged.
+ * Every other request is kept with the sampling rate of the first URI rule that matches it,
+ * or the default rate otherwise, and the requests that are kept are then capped by a token bucket.
+ * The sampler only holds the compiled rules. The token bucket is passed in, so that it outlives configuration changes,
+ * and only when the record is about to be written, so that requests that are dropped for another reason do not take its permits.
+ */
+public final class RequestSampler
+{
+    private final double defaultRate;
+    private final UriMatcher[] uriMatchers;
+    private final double[] uriRates;
+    private final long slowRequestThresholdNanos;
+    private final boolean errorRequestsAlwaysLogged;
+
+
+    private RequestSampler(double defaultRate, UriMatcher[] uriMatchers, double[] uriRates, long slowRequestThresholdNanos, boolean errorRequestsAlwaysLogged)
+    {
+        this.defaultRate = defaultRate;
+        this.uriMatchers = uriMatchers;
+        this.uriRates = uriRates;
+        this.slowRequestThresholdNanos = slowRequestThresholdNanos;
+        this.errorRequestsAlwaysLogged = errorRequestsAlwaysLogged;
+    }
+
+
+    /**
+     * compiles the given sampling rules
+     * @param defaultRate the fraction of requests that are logged, from 0.0 to 1.0
+     * @param uriRates semicolon-separated list of URI pattern=rate rules, e.g. {@code /health=0.0;^/api/.*=0.5}, or null.
+     * The patterns have the syntax of {@code log.uris.logged.pattern}.
+     * @param slowRequestThresholdMillis the duration above which requests are always logged or 0 to disable the rule
+     * @param errorRequestsAlwaysLogged whether requests that responded with an error status or threw are always logged
+     * @return the sampler
+     * @throws IllegalArgumentException if a rate is not between 0.0 and 1.0 or a rule is malformed
+     */
+    public static RequestSampler compile(double defaultRate, String uriRates, long slowRequestThresholdMillis, boolean errorRequestsAlwaysLogged)
+    {
+        List<UriMatcher> uriMatchers = new ArrayList<>();
+        List<Double> rates = new ArrayList<>();
+        if(uriRates != null)
+        {
+            for(String uriRate : uriRates.split(";"))
+            {
+                if(!uriRate.isBlank())
+                {
+                    int separatorIndex = uriRate.lastIndexOf('=');
+                    if(separatorIndex <= 0)
+                    {
+                        throw new IllegalArgumentException("sampling rule has to be of the form pattern=rate: " + uriRate);
+                    }
+                    uriMatchers.add(UriMatcher.compile(uriRate.substring(0, separatorIndex).trim()));
+                    rates.add(checkRate(Double.parseDouble(uriRate.substring(separatorIndex + 1).trim())));
+                }
+            }
+        }
+        double[] uriRatesArray = new double[rates.size()];
+        for(int i = 0; i < uriRatesArray.length; i++)
+        {
+            uriRatesArray[i] = rates.get(i);
+        }
+        return new RequestSampler(checkRate(defaultRate),
+                        uriMatchers.toArray(new UriMatcher[0]),
+                        uriRatesArray,
+                        slowRequestThresholdMillis > 0 ? slowRequestThresholdMillis * 1_000_000L : -1L,
+                        errorRequestsAlwaysLogged);
+    }
+
+
+    private static double checkRate(double rate)
+    {
+        if(!(rate >= 0.0d && rate <= 1.0d))
+        {
+            throw new IllegalArgumentException("sampling rate has to be between 0.0 and 1.0: " + rate);
+        }
+        return rate;
+    }
+
+
+    /**
+     * decides whether the given completed request is logged, without taking a permit from the token bucket.
+     * A request that is kept by its sampling rate only takes a permit with {@link Decision#isLogged(TokenBucketRateLimiter)},
+     * so that requests that are dropped for another reason afterwards, e.g. by log deduplication, do not use up the cap.
+     * @param uri the request URI
+     * @param status the response status
+     * @param failed whether an exception escaped the handler
+     * @param durationNanos the total request processing duration or -1 if it was not measured
+     * @return the decision
+     */
+    public Decision sample(String uri, int status, boolean failed, long durationNanos)
+    {
+        if(errorRequestsAlwaysLogged && (failed || status >= 400))
+        {
+            return Decision.ALWAYS_LOGGED;
+        }
+        if(slowRequestThresholdNanos >= 0 && durationNanos > slowRequestThresholdNanos)
+        {
+            return Decision.ALWAYS_LOGGED;
+        }
+        double rate = getRate(uri);
+        if(rate < 1.0d && (rate <= 0.0d || ThreadLocalRandom.current().nextDouble() >= rate))
+        {
+            return Decision.DROPPED;
+        }
+        return Decision.SAMPLED;
+    }
+
+
+    private double getRate(String uri)
+    {
+        for(int i = 0; i < uriMatchers.length; i++)
+        {
+            if(uriMatchers[i].matches(uri))
+            {
+                return uriRates[i];
+            }
+        }
+        return defaultRate;
+    }
+
+
+    /**
+     * @return true if the request processing duration has to be measured for the slow request rule
+     */
+    public boolean isSlowRequestRuleEnabled()
+    {
+        return slowRequestThresholdNanos >= 0;
+    }
+
+
+    /**
+     * The sampling decision of a completed request.
+     */
+    public enum Decision
+    {
+        /**
+         * the request is not logged
+         */
+        DROPPED,
+        /**
+         * the request was kept by its sampling rate and it is logged if the token bucket has a permit for it
+         */
+        SAMPLED,
+        /**
+         * the request failed or was slow and it is logged whatever the token bucket
+         */
+        ALWAYS_LOGGED;
+
+
+        /**
+         * checks if a request with this decision is logged, taking a permit from the given token bucket if it was kept by its sampling rate
+         * @param rateLimiter caps the requests that are kept by their sampling rate, or null for no limit
+         * @return true if the request is logged
+         */
+        public boolean isLogged(TokenBucketRateLimiter rateLimiter)
+        {
+            return this == ALWAYS_LOGGED || (this == SAMPLED && (rateLimiter == null || rateLimiter.tryAcquire()));
+        }
+    }
+}
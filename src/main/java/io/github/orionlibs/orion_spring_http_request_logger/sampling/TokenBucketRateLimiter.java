@@ -0,0 +1,66 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sampling;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket that lets through at most a configured number of permits per second,
+ * with bursts of up to one second worth of permits.
+ * It is implemented as the equivalent generic cell rate algorithm, so the whole bucket state
+ * is a single timestamp that is advanced with compare-and-set and there is no refill thread.
+ */
+public final class TokenBucketRateLimiter
+{
+    private final int permitsPerSecond;
+    private final long nanosPerPermit;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrivalTime;
+
+
+    /**
+     * @param permitsPerSecond the sustained rate, which is also the burst size
+     */
+    public TokenBucketRateLimiter(int permitsPerSecond)
+    {
+        if(permitsPerSecond <= 0)
+        {
+            throw new IllegalArgumentException("permitsPerSecond has to be positive: " + permitsPerSecond);
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.nanosPerPermit = Math.max(1L, 1_000_000_000L / permitsPerSecond);
+        this.burstNanos = nanosPerPermit * permitsPerSecond;
+        this.theoreticalArrivalTime = new AtomicLong(System.nanoTime());
+    }
+
+
+    /**
+     * takes a permit if one is available
+     * @return true if a permit was taken
+     */
+    public boolean tryAcquire()
+    {
+        long now = System.nanoTime();
+        while(true)
+        {
+            long arrivalTime = theoreticalArrivalTime.get();
+            long nextArrivalTime = (arrivalTime - now > 0L ? arrivalTime : now) + nanosPerPermit;
+            if(nextArrivalTime - now > burstNanos)
+            {
+                return false;
+            }
+            if(theoreticalArrivalTime.compareAndSet(arrivalTime, nextArrivalTime))
+            {
+                return true;
+            }
+        }
+    }
+
+
+    /**
+     * @param permitsPerSecond
+     * @return true if this bucket was created with the given rate
+     */
+    public boolean isConfiguredWith(int permitsPerSecond)
+    {
+        return this.permitsPerSecond == permitsPerSecond;
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.orionlibs.orion_spring_http_request_logger.scheduling;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A background task of the plugin, e.g. the periodic metric summaries, the scans of the slow request watchdog
+ * or the flushes of log deduplication, that runs with a fixed delay on its own named daemon thread.
+ * The thread is only created when the task is first scheduled, the task is cancelled when it is scheduled with an interval of 0,
+ * and {@link #shutdownAll()} stops the threads of every task, e.g. when the application context is closed.
+ * Scheduling with the current interval is a single volatile read, so it is cheap to call whenever the configuration may have changed.
+ */
+public final class PeriodicTask
+{
+    private static final List<PeriodicTask> tasks = new CopyOnWriteArrayList<>();
+    private final String threadName;
+    private final Runnable task;
+    private final ReentrantLock scheduleLock;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> scheduledTask;
+    private volatile long intervalMillis;
+
+
+    /**
+     * @param threadName the name of the thread that runs the task
+     * @param task
+     */
+    public PeriodicTask(String threadName, Runnable task)
+    {
+        this.threadName = threadName;
+        this.task = task;
+        this.scheduleLock = new ReentrantLock();
+        tasks.add(this);
+    }
+
+
+    /**
+     * makes sure that the task runs every intervalMillis. It only reschedules when the interval changes.
+     * @param intervalMillis the delay between the end of a run and the start of the next one, or 0 to cancel the task
+     */
+    public void schedule(long intervalMillis)
+    {
+        if(this.intervalMillis == intervalMillis)
+        {
+            return;
+        }
+        scheduleLock.lock();
+        try
+        {
+            if(this.intervalMillis == intervalMillis)
+            {
+                return;
+            }
+            if(scheduledTask != null)
+            {
+                scheduledTask.cancel(false);
+                scheduledTask = null;
+            }
+            if(intervalMillis > 0)
+            {
+                if(scheduler == null)
+                {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+                scheduledTask = scheduler.scheduleWithFixedDelay(task, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            }
+            this.intervalMillis = intervalMillis;
+        }
+        finally
+        {
+            scheduleLock.unlock();
+        }
+    }
+
+
+    /**
+     * cancels the task, which keeps its thread for when it is scheduled again
+     */
+    public void cancel()
+    {
+        schedule(0L);
+    }
+
+
+    /**
+     * @return true if the task is scheduled
+     */
+    public boolean isScheduled()
+    {
+        return intervalMillis > 0;
+    }
+
+
+    /**
+     * cancels the task and stops its thread. Scheduling it again starts a new thread.
+     */
+    public void shutdown()
+    {
+        scheduleLock.lock();
+        try
+        {
+            if(scheduler != null)
+            {
+                scheduler.shutdownNow();
+                scheduler = null;
+            }
+            scheduledTask = null;
+            intervalMillis = 0L;
+        }
+        finally
+        {
+            scheduleLock.unlock();
+        }
+    }
+
+
+    /**
+     * cancels every task and stops their threads
+     */
+    public static void shutdownAll()
+    {
+        for(PeriodicTask periodicTask : tasks)
+        {
+            periodicTask.shutdown();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Hands records over from request threads to a single background thread that writes them in batches.
+ * Request threads only enqueue into a {@link BoundedRingBuffer}, so the formatting of the records
+ * and the I/O of the underlying log handlers happen off the request path.
+ * What happens when the buffer is full is decided by the configured {@link OverflowPolicy}.
+ * @param <E> the type of the records
+ */
+public class AsyncLogWriter<E>
+{
+    private static final long POLL_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long BLOCKED_PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private final BoundedRingBuffer<E> buffer;
+    private final int requestedCapacity;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final int sampleThreshold;
+    private final Consumer<List<E>> batchWriter;
+    private final Thread writerThread;
+    private final LongAdder droppedRecords;
+    private final LongAdder sampledOutRecords;
+    private final AtomicLong sampleCounter;
+    private final LongAdder acceptedRecords;
+    private volatile long processedRecords;
+    private volatile boolean writerIdle;
+    private volatile boolean running;
+
+
+    /**
+     * creates the writer and starts its background thread
+     * @param capacity the capacity of the buffer
+     * @param batchSize the maximum number of records the background thread writes per batch
+     * @param overflowPolicy
+     * @param sampleRate the N of {@link OverflowPolicy#SAMPLE}
+     * @param batchWriter formats and writes a batch of records. It is only called by the background thread.
+     */
+    public AsyncLogWriter(int capacity, int batchSize, OverflowPolicy overflowPolicy, int sampleRate, Consumer<List<E>> batchWriter)
+    {
+        this.buffer = new BoundedRingBuffer<>(capacity);
+        this.requestedCapacity = capacity;
+        this.batchSize = Math.max(1, batchSize);
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.sampleThreshold = buffer.capacity() - buffer.capacity() / 4;
+        this.batchWriter = batchWriter;
+        this.droppedRecords = new LongAdder();
+        this.sampledOutRecords = new LongAdder();
+        this.sampleCounter = new AtomicLong();
+        this.acceptedRecords = new LongAdder();
+        this.running = true;
+        this.writerThread = new Thread(this::writeLoop, "orion-http-request-logger-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+
+    /**
+     * enqueues the given record for the background thread
+     * @param record
+     * @return false if the record was dropped or sampled out
+     */
+    public boolean submit(E record)
+    {
+        if(!running)
+        {
+            droppedRecords.increment();
+            return false;
+        }
+        if(overflowPolicy == OverflowPolicy.SAMPLE
+                        && buffer.size() >= sampleThreshold
+                        && sampleCounter.getAndIncrement() % sampleRate != 0)
+        {
+            sampledOutRecords.increment();
+            return false;
+        }
+        boolean accepted = buffer.offer(record);
+        while(!accepted && overflowPolicy == OverflowPolicy.BLOCK && running)
+        {
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(this, BLOCKED_PRODUCER_PARK_NANOS);
+            accepted = buffer.offer(record);
+        }
+        if(!accepted)
+        {
+            droppedRecords.increment();
+            return false;
+        }
+        acceptedRecords.increment();
+        if(writerIdle)
+        {
+            LockSupport.unpark(writerThread);
+        }
+        return true;
+    }
+
+
+    private void writeLoop()
+    {
+        List<E> batch = new ArrayList<>(batchSize);
+        while(running || !buffer.isEmpty())
+        {
+            int drained = buffer.drainTo(batch, batchSize);
+            if(drained == 0)
+            {
+                //the writer announces that it is idle before it checks the buffer one last time,
+                //so a record published after that check finds the flag set and unparks the writer
+                writerIdle = true;
+                if(!running)
+                {
+                    //records that were claimed but not yet published are waited for with a timeout while draining on shutdown
+                    LockSupport.parkNanos(this, POLL_PARK_NANOS);
+                }
+                else if(buffer.isEmpty())
+                {
+                    LockSupport.park(this);
+                }
+                writerIdle = false;
+                continue;
+            }
+            try
+            {
+                batchWriter.accept(batch);
+            }
+            catch(RuntimeException e)
+            {
+                droppedRecords.add(drained);
+            }
+            finally
+            {
+                batch.clear();
+                processedRecords += drained;
+            }
+        }
+    }
+
+
+    /**
+     * waits until the background thread has written every record accepted so far
+     * @param timeoutMillis
+     * @return false if the timeout elapsed first
+     */
+    public boolean awaitWritten(long timeoutMillis)
+    {
+        long target = acceptedRecords.sum();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while(processedRecords < target)
+        {
+            if(System.nanoTime() - deadline > 0 || !writerThread.isAlive())
+            {
+                return false;
+            }
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(this, POLL_PARK_NANOS);
+        }
+        return true;
+    }
+
+
+    /**
+     * stops accepting records and lets the background thread write the ones that are already buffered and exit, without waiting for it
+     */
+    public void shutdown()
+    {
+        running = false;
+        LockSupport.unpark(writerThread);
+    }
+
+
+    /**
+     * stops accepting records, writes the ones that are already buffered and stops the background thread
+     * @param timeoutMillis how long to wait for the buffered records to be written
+     */
+    public void close(long timeoutMillis)
+    {
+        shutdown();
+        try
+        {
+            writerThread.join(timeoutMillis);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * @return true if the background thread found the buffer empty and is parked or about to park
+     */
+    boolean isWriterIdle()
+    {
+        return writerIdle;
+    }
+
+
+    /**
+     * @return the number of records that were discarded because the buffer was full, the writer was closed or the batch writer failed
+     */
+    public long getDroppedRecords()
+    {
+        return droppedRecords.sum();
+    }
+
+
+    /**
+     * @return the number of records that were discarded by {@link OverflowPolicy#SAMPLE}
+     */
+    public long getSampledOutRecords()
+    {
+        return sampledOutRecords.sum();
+    }
+
+
+    /**
+     * checks if this writer was created with the given settings
+     * @param capacity
+     * @param batchSize
+     * @param overflowPolicy
+     * @param sampleRate
+     * @return true if the settings are the same
+     */
+    public boolean isConfiguredWith(int capacity, int batchSize, OverflowPolicy overflowPolicy, int sampleRate)
+    {
+        return requestedCapacity == capacity
+                        && this.batchSize == Math.max(1, batchSize)
+                        && this.overflowPolicy == overflowPolicy
+                        && this.sampleRate == Math.max(1, sampleRate);
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sink;
+
+import io.github.orionlibs.orion_spring_http_request_logger.LogService;
+import io.github.orionlibs.orion_spring_http_request_logger.RequestLogRecord;
+import io.github.orionlibs.orion_spring_http_request_logger.config.LoggingPolicy;
+
+/**
+ * Sink that encodes the records straight into the binary format and appends them to the memory-mapped
+ * segment files of a {@link MappedLogFileWriter}, without building a text message.
+ * Combined with asynchronous logging, the request threads only enqueue the records.
+ */
+public class BinaryFileRequestLogSink implements RequestLogSink
+{
+    /**
+     * the {@code log.sink} name of this sink
+     */
+    public static final String NAME = "BINARY_FILE";
+    private final MappedLogFileWriter writer;
+
+
+    /**
+     * creates the sink with the binary file settings of the given policy
+     * @param policy
+     */
+    public BinaryFileRequestLogSink(LoggingPolicy policy)
+    {
+        this.writer = new MappedLogFileWriter(policy.getBinaryFileDirectory(),
+                        policy.getBinaryFilePrefix(),
+                        policy.getBinaryFileSegmentSize(),
+                        policy.getBinaryFileRollIntervalSeconds() * 1000L);
+    }
+
+
+    /**
+     * @throws java.io.UncheckedIOException if a new segment file cannot be created
+     */
+    @Override
+    public void write(RequestLogRecord record)
+    {
+        BinaryRecordEncoder encoder = BinaryRecordEncoder.acquire();
+        try
+        {
+            LogService.encodeBinaryLog(record, encoder);
+            writer.append(encoder);
+        }
+        finally
+        {
+            BinaryRecordEncoder.release(encoder);
+        }
+    }
+
+
+    @Override
+    public boolean isConfiguredWith(LoggingPolicy policy)
+    {
+        return NAME.equalsIgnoreCase(policy.getSinkName())
+                        && writer.isConfiguredWith(policy.getBinaryFileDirectory(),
+                                        policy.getBinaryFilePrefix(),
+                                        policy.getBinaryFileSegmentSize(),
+                                        policy.getBinaryFileRollIntervalSeconds() * 1000L);
+    }
+
+
+    /**
+     * flushes the current segment and stops appending
+     */
+    @Override
+    public void close()
+    {
+        writer.close();
+    }
+
+
+    public MappedLogFileWriter getWriter()
+    {
+        return writer;
+    }
+}
@@ -0,0 +1,375 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sink;
+
+import io.github.orionlibs.orion_spring_http_request_logger.format.JsonLogWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Decodes the segment files of {@link MappedLogFileWriter} back to log lines.
+ * It can be run from the command line with
+ * {@code java -cp <classpath> io.github.orionlibs.orion_spring_http_request_logger.sink.BinaryLogReader [--json] <segment file or directory>...},
+ * which prints the records of the given segments, and of the segments in the given directories in file name order, to standard output.
+ */
+public final class BinaryLogReader
+{
+    private BinaryLogReader()
+    {
+    }
+
+
+    public static void main(String[] args) throws IOException
+    {
+        boolean json = false;
+        List<Path> paths = new ArrayList<>();
+        for(String arg : args)
+        {
+            if("--json".equals(arg))
+            {
+                json = true;
+            }
+            else
+            {
+                paths.add(Paths.get(arg));
+            }
+        }
+        if(paths.isEmpty())
+        {
+            System.err.println("Usage: BinaryLogReader [--json] <segment file or directory>...");
+            System.exit(2);
+        }
+        PrintStream output = System.out;
+        for(Path path : paths)
+        {
+            for(Path segment : listSegments(path))
+            {
+                read(segment, json, output::println);
+            }
+        }
+        output.flush();
+    }
+
+
+    /**
+     * @param path a segment file or a directory of segment files
+     * @return the segment files in file name order
+     * @throws IOException
+     */
+    public static List<Path> listSegments(Path path) throws IOException
+    {
+        if(!Files.isDirectory(path))
+        {
+            return List.of(path);
+        }
+        try(Stream<Path> files = Files.list(path))
+        {
+            return files.filter(file -> file.getFileName().toString().endsWith(MappedLogFileWriter.SEGMENT_FILE_EXTENSION))
+                            .sorted()
+                            .toList();
+        }
+    }
+
+
+    /**
+     * decodes every record of the given segment file
+     * @param segment
+     * @param json whether the records are decoded to JSON lines instead of text lines
+     * @param output receives the decoded records
+     * @return the number of records
+     * @throws IOException
+     */
+    public static int read(Path segment, boolean json, Consumer<String> output) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ))
+        {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), json, output);
+        }
+    }
+
+
+    /**
+     * decodes every record of the given segment content
+     * @param segment
+     * @param json whether the records are decoded to JSON lines instead of text lines
+     * @param output receives the decoded records
+     * @return the number of records
+     * @throws IllegalArgumentException if a record is corrupt
+     */
+    public static int read(ByteBuffer segment, boolean json, Consumer<String> output)
+    {
+        int records = 0;
+        while(segment.remaining() >= BinaryRecordFormat.LENGTH_PREFIX_SIZE)
+        {
+            int payloadLength = segment.getInt();
+            if(payloadLength == 0)
+            {
+                break;
+            }
+            else if(payloadLength < 0 || payloadLength > segment.remaining())
+            {
+                throw new IllegalArgumentException("corrupt record at position " + (segment.position() - BinaryRecordFormat.LENGTH_PREFIX_SIZE));
+            }
+            ByteBuffer payload = segment.slice(segment.position(), payloadLength);
+            segment.position(segment.position() + payloadLength);
+            DecodedRecord record = decode(payload);
+            output.accept(json ? record.toJson() : record.toText());
+            records++;
+        }
+        return records;
+    }
+
+
+    private static DecodedRecord decode(ByteBuffer payload)
+    {
+        DecodedRecord record = new DecodedRecord();
+        while(payload.hasRemaining())
+        {
+            byte tag = payload.get();
+            if(tag == BinaryRecordFormat.HEADER)
+            {
+                record.headers.add(readString(payload));
+                record.headers.add(readString(payload));
+            }
+            else if(BinaryRecordFormat.isNumeric(tag))
+            {
+                long encoded = readVarLong(payload);
+                record.setNumber(tag, (encoded >>> 1) ^ -(encoded & 1));
+            }
+            else
+            {
+                record.setString(tag, readString(payload));
+            }
+        }
+        return record;
+    }
+
+
+    private static String readString(ByteBuffer payload)
+    {
+        int length = (int)readVarLong(payload);
+        String value = StandardCharsets.UTF_8.decode(payload.slice(payload.position(), length)).toString();
+        payload.position(payload.position() + length);
+        return value;
+    }
+
+
+    private static long readVarLong(ByteBuffer payload)
+    {
+        long value = 0L;
+        for(int shift = 0; shift < 64; shift += 7)
+        {
+            byte b = payload.get();
+            value |= (long)(b & 0x7F) << shift;
+            if((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("corrupt varint");
+    }
+
+
+    private static final class DecodedRecord
+    {
+        private final List<String> headers = new ArrayList<>();
+        private long timestampMillis = -1L;
+        private String ip;
+        private String method;
+        private String uri;
+        private String query;
+        private String route;
+        private long status = -1L;
+        private long bytes = -1L;
+        private long durationNanos = -1L;
+        private String handler;
+        private String exception;
+        private String requestBody;
+        private String responseBody;
+        private long repeats;
+        private long repeatWindowSeconds;
+
+
+        private void setNumber(byte tag, long value)
+        {
+            switch(tag)
+            {
+                case BinaryRecordFormat.TIMESTAMP_MILLIS -> timestampMillis = value;
+                case BinaryRecordFormat.STATUS -> status = value;
+                case BinaryRecordFormat.BYTES -> bytes = value;
+                case BinaryRecordFormat.DURATION_NANOS -> durationNanos = value;
+                case BinaryRecordFormat.REPEATS -> repeats = value;
+                case BinaryRecordFormat.REPEAT_WINDOW_SECONDS -> repeatWindowSeconds = value;
+                default -> throw new IllegalArgumentException("unknown numeric field " + tag);
+            }
+        }
+
+
+        private void setString(byte tag, String value)
+        {
+            switch(tag)
+            {
+                case BinaryRecordFormat.IP -> ip = value;
+                case BinaryRecordFormat.METHOD -> method = value;
+                case BinaryRecordFormat.URI -> uri = value;
+                case BinaryRecordFormat.QUERY -> query = value;
+                case BinaryRecordFormat.ROUTE -> route = value;
+                case BinaryRecordFormat.HANDLER -> handler = value;
+                case BinaryRecordFormat.EXCEPTION -> exception = value;
+                case BinaryRecordFormat.REQUEST_BODY -> requestBody = value;
+                case BinaryRecordFormat.RESPONSE_BODY -> responseBody = value;
+                default -> throw new IllegalArgumentException("unknown field " + tag);
+            }
+        }
+
+
+        private String toText()
+        {
+            StringBuilder text = new StringBuilder(256);
+            if(timestampMillis >= 0)
+            {
+                text.append(Instant.ofEpochMilli(timestampMillis)).append(' ');
+            }
+            List<String> elements = new ArrayList<>();
+            if(ip != null)
+            {
+                elements.add("IP: " + ip);
+            }
+            if(method != null || uri != null)
+            {
+                StringBuilder uriElement = new StringBuilder("URI: ");
+                if(method != null)
+                {
+                    uriElement.append(method);
+                    if(uri != null)
+                    {
+                        uriElement.append(' ');
+                    }
+                }
+                if(uri != null)
+                {
+                    uriElement.append(uri);
+                    if(query != null)
+                    {
+                        uriElement.append('?').append(query);
+                    }
+                }
+                elements.add(uriElement.toString());
+            }
+            if(route != null)
+            {
+                elements.add("Route: " + route);
+            }
+            for(int i = 0; i < headers.size(); i += 2)
+            {
+                elements.add(headers.get(i) + ": " + headers.get(i + 1));
+            }
+            if(status >= 0)
+            {
+                elements.add("Status: " + status);
+            }
+            if(bytes >= 0)
+            {
+                elements.add("Bytes: " + bytes);
+            }
+            if(durationNanos >= 0)
+            {
+                elements.add("Duration: " + durationNanos + "ns");
+            }
+            if(handler != null)
+            {
+                elements.add("Handler: " + handler);
+            }
+            if(exception != null)
+            {
+                elements.add("Exception: " + exception);
+            }
+            if(requestBody != null)
+            {
+                elements.add("Request Body: " + requestBody);
+            }
+            if(responseBody != null)
+            {
+                elements.add("Response Body: " + responseBody);
+            }
+            if(repeats > 0)
+            {
+                elements.add("Repeated: " + repeats + " times in " + repeatWindowSeconds + "s");
+            }
+            return text.append(String.join(", ", elements)).toString();
+        }
+
+
+        private String toJson()
+        {
+            JsonLogWriter json = JsonLogWriter.acquire();
+            try
+            {
+                json.beginObject();
+                if(timestampMillis >= 0)
+                {
+                    json.field("timestamp", Instant.ofEpochMilli(timestampMillis).toString());
+                }
+                putIfNotNull(json, "ip", ip);
+                putIfNotNull(json, "method", method);
+                putIfNotNull(json, "uri", uri);
+                putIfNotNull(json, "query", query);
+                putIfNotNull(json, "route", route);
+                if(!headers.isEmpty())
+                {
+                    json.beginObject("headers");
+                    for(int i = 0; i < headers.size(); i += 2)
+                    {
+                        json.fieldWithEscapedName(headers.get(i), headers.get(i + 1));
+                    }
+                    json.endObject();
+                }
+                putIfNotNegative(json, "status", status);
+                putIfNotNegative(json, "bytes", bytes);
+                putIfNotNegative(json, "durationNanos", durationNanos);
+                putIfNotNull(json, "handler", handler);
+                putIfNotNull(json, "exception", exception);
+                putIfNotNull(json, "requestBody", requestBody);
+                putIfNotNull(json, "responseBody", responseBody);
+                if(repeats > 0)
+                {
+                    json.field("repeated", repeats);
+                    json.field("repeatWindowSeconds", repeatWindowSeconds);
+                }
+                return json.endObject().toString();
+            }
+            finally
+            {
+                JsonLogWriter.release(json);
+            }
+        }
+
+
+        private static void putIfNotNull(JsonLogWriter json, String name, String value)
+        {
+            if(value != null)
+            {
+                json.field(name, value);
+            }
+        }
+
+
+        private static void putIfNotNegative(JsonLogWriter json, String name, long value)
+        {
+            if(value >= 0)
+            {
+                json.field(name, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sink;
+
+import io.github.orionlibs.orion_spring_http_request_logger.format.BoundedObjectPool;
+import java.util.Arrays;
+
+/**
+ * Encoder that writes one record of the {@link BinaryRecordFormat} into a reusable byte buffer.
+ * Encoders are pooled, so encoding a record allocates nothing once the buffer has grown to the record size.
+ */
+public final class BinaryRecordEncoder
+{
+    private static final int INITIAL_CAPACITY = 512;
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+    private static final BoundedObjectPool<BinaryRecordEncoder> pool = new BoundedObjectPool<>(BoundedObjectPool.defaultSlotCount(),
+                    BinaryRecordEncoder::new,
+                    BinaryRecordEncoder::reset);
+    private byte[] bytes;
+    private int size;
+
+
+    private BinaryRecordEncoder()
+    {
+        this.bytes = new byte[INITIAL_CAPACITY];
+    }
+
+
+    /**
+     * @return an empty encoder that has to be given back with {@link #release(BinaryRecordEncoder)}
+     */
+    public static BinaryRecordEncoder acquire()
+    {
+        return pool.acquire();
+    }
+
+
+    /**
+     * gives the given encoder back to the pool
+     * @param encoder
+     */
+    public static void release(BinaryRecordEncoder encoder)
+    {
+        pool.release(encoder);
+    }
+
+
+    private static boolean reset(BinaryRecordEncoder encoder)
+    {
+        if(encoder.bytes.length > MAX_RETAINED_CAPACITY)
+        {
+            return false;
+        }
+        encoder.size = 0;
+        return true;
+    }
+
+
+    /**
+     * begins a record by reserving its length prefix
+     * @return this encoder
+     */
+    public BinaryRecordEncoder beginRecord()
+    {
+        size = BinaryRecordFormat.LENGTH_PREFIX_SIZE;
+        ensureCapacity(0);
+        return this;
+    }
+
+
+    /**
+     * ends the record by writing its length prefix
+     * @return this encoder
+     */
+    public BinaryRecordEncoder endRecord()
+    {
+        int payloadLength = size - BinaryRecordFormat.LENGTH_PREFIX_SIZE;
+        bytes[0] = (byte)(payloadLength >>> 24);
+        bytes[1] = (byte)(payloadLength >>> 16);
+        bytes[2] = (byte)(payloadLength >>> 8);
+        bytes[3] = (byte)payloadLength;
+        return this;
+    }
+
+
+    /**
+     * writes a string field. Null values are not written.
+     * @param tag
+     * @param value
+     * @return this encoder
+     */
+    public BinaryRecordEncoder field(byte tag, CharSequence value)
+    {
+        if(value != null)
+        {
+            writeByte(tag);
+            writeString(value);
+        }
+        return this;
+    }
+
+
+    /**
+     * writes a numeric field
+     * @param tag
+     * @param value
+     * @return this encoder
+     */
+    public BinaryRecordEncoder field(byte tag, long value)
+    {
+        writeByte(tag);
+        writeVarLong((value << 1) ^ (value >> 63));
+        return this;
+    }
+
+
+    /**
+     * writes a header field
+     * @param name
+     * @param value
+     * @return this encoder
+     */
+    public BinaryRecordEncoder header(CharSequence name, CharSequence value)
+    {
+        writeByte(BinaryRecordFormat.HEADER);
+        writeString(name);
+        writeString(value != null ? value : "");
+        return this;
+    }
+
+
+    private void writeString(CharSequence value)
+    {
+        int length = value.length();
+        int utf8Length = 0;
+        for(int i = 0; i < length; i++)
+        {
+            char c = value.charAt(i);
+            if(c < 0x80)
+            {
+                utf8Length++;
+            }
+            else if(c < 0x800)
+            {
+                utf8Length += 2;
+            }
+            else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1)))
+            {
+                utf8Length += 4;
+                i++;
+            }
+            else if(Character.isSurrogate(c))
+            {
+                utf8Length++;
+            }
+            else
+            {
+                utf8Length += 3;
+            }
+        }
+        writeVarLong(utf8Length);
+        ensureCapacity(utf8Length);
+        for(int i = 0; i < length; i++)
+        {
+            char c = value.charAt(i);
+            if(c < 0x80)
+            {
+                bytes[size++] = (byte)c;
+            }
+            else if(c < 0x800)
+            {
+                bytes[size++] = (byte)(0xC0 | (c >> 6));
+                bytes[size++] = (byte)(0x80 | (c & 0x3F));
+            }
+            else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1)))
+            {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[size++] = (byte)(0xF0 | (codePoint >> 18));
+                bytes[size++] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[size++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[size++] = (byte)(0x80 | (codePoint & 0x3F));
+            }
+            else if(Character.isSurrogate(c))
+            {
+                bytes[size++] = '?';
+            }
+            else
+            {
+                bytes[size++] = (byte)(0xE0 | (c >> 12));
+                bytes[size++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                bytes[size++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+
+    private void writeVarLong(long value)
+    {
+        ensureCapacity(10);
+        while((value & ~0x7FL) != 0)
+        {
+            bytes[size++] = (byte)((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte)value;
+    }
+
+
+    private void writeByte(int b)
+    {
+        ensureCapacity(1);
+        bytes[size++] = (byte)b;
+    }
+
+
+    private void ensureCapacity(int additionalBytes)
+    {
+        if(size + additionalBytes > bytes.length)
+        {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additionalBytes));
+        }
+    }
+
+
+    /**
+     * @return the encoded bytes. Only the first {@link #size()} bytes are valid.
+     */
+    public byte[] getBytes()
+    {
+        return bytes;
+    }
+
+
+    public int size()
+    {
+        return size;
+    }
+}
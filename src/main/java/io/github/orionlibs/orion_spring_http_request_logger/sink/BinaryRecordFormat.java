@@ -0,0 +1,49 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sink;
+
+/**
+ * The compact binary format of the request log records in the memory-mapped log files.
+ * Every record is a 4-byte big-endian payload length followed by the payload, and a zero length marks
+ * the end of the records of a segment, since segments are preallocated with zeros.
+ * The payload is a sequence of fields, each one a tag byte followed by its value.
+ * Numeric values are zigzag-encoded varints and string values are a varint byte length followed by UTF-8 bytes.
+ * Header fields have two string values, the name and the value. Unknown tags are not allowed,
+ * so new fields have to be added with new tags and readers have to be updated first.
+ */
+public final class BinaryRecordFormat
+{
+    public static final byte TIMESTAMP_MILLIS = 1;
+    public static final byte IP = 2;
+    public static final byte METHOD = 3;
+    public static final byte URI = 4;
+    public static final byte QUERY = 5;
+    public static final byte HEADER = 6;
+    public static final byte STATUS = 7;
+    public static final byte BYTES = 8;
+    public static final byte DURATION_NANOS = 9;
+    public static final byte HANDLER = 10;
+    public static final byte EXCEPTION = 11;
+    public static final byte REQUEST_BODY = 12;
+    public static final byte RESPONSE_BODY = 13;
+    public static final byte ROUTE = 14;
+    public static final byte REPEATS = 15;
+    public static final byte REPEAT_WINDOW_SECONDS = 16;
+    /**
+     * the size of the length prefix of every record
+     */
+    public static final int LENGTH_PREFIX_SIZE = 4;
+
+
+    private BinaryRecordFormat()
+    {
+    }
+
+
+    /**
+     * @param tag
+     * @return true if the values of the field with the given tag are numbers
+     */
+    static boolean isNumeric(byte tag)
+    {
+        return tag == TIMESTAMP_MILLIS || tag == STATUS || tag == BYTES || tag == DURATION_NANOS || tag == REPEATS || tag == REPEAT_WINDOW_SECONDS;
+    }
+}
@@ -0,0 +1,153 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sink;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer queue backed by a ring of preallocated slots.
+ * Each slot carries a sequence number that tells producers and consumers whether
+ * the slot is free or published, so neither side ever takes a lock.
+ * The capacity is rounded up to the next power of two.
+ * @param <E> the type of the elements
+ */
+public class BoundedRingBuffer<E>
+{
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong enqueuePosition;
+    private final AtomicLong dequeuePosition;
+
+
+    /**
+     * @param requestedCapacity the minimum number of elements the buffer can hold
+     */
+    public BoundedRingBuffer(int requestedCapacity)
+    {
+        if(requestedCapacity < 2 || requestedCapacity > (1 << 30))
+        {
+            throw new IllegalArgumentException("The ring buffer capacity has to be between 2 and 2^30, but it was " + requestedCapacity);
+        }
+        int capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.elements = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for(int i = 0; i < capacity; i++)
+        {
+            sequences.set(i, i);
+        }
+        this.enqueuePosition = new AtomicLong();
+        this.dequeuePosition = new AtomicLong();
+    }
+
+
+    /**
+     * inserts the given element if there is free space
+     * @param element
+     * @return false if the buffer is full
+     */
+    public boolean offer(E element)
+    {
+        long position = enqueuePosition.get();
+        while(true)
+        {
+            int index = (int)(position & mask);
+            long difference = sequences.get(index) - position;
+            if(difference == 0)
+            {
+                if(enqueuePosition.compareAndSet(position, position + 1))
+                {
+                    elements.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = enqueuePosition.get();
+            }
+            else if(difference < 0)
+            {
+                return false;
+            }
+            else
+            {
+                position = enqueuePosition.get();
+            }
+        }
+    }
+
+
+    /**
+     * removes the oldest element
+     * @return the element or null if the buffer is empty
+     */
+    public E poll()
+    {
+        long position = dequeuePosition.get();
+        while(true)
+        {
+            int index = (int)(position & mask);
+            long difference = sequences.get(index) - (position + 1);
+            if(difference == 0)
+            {
+                if(dequeuePosition.compareAndSet(position, position + 1))
+                {
+                    E element = elements.get(index);
+                    elements.lazySet(index, null);
+                    sequences.set(index, position + mask + 1);
+                    return element;
+                }
+                position = dequeuePosition.get();
+            }
+            else if(difference < 0)
+            {
+                return null;
+            }
+            else
+            {
+                position = dequeuePosition.get();
+            }
+        }
+    }
+
+
+    /**
+     * moves up to the given number of elements into the given list
+     * @param batch
+     * @param maxElements
+     * @return the number of elements moved
+     */
+    public int drainTo(List<E> batch, int maxElements)
+    {
+        int drained = 0;
+        E element;
+        while(drained < maxElements && (element = poll()) != null)
+        {
+            batch.add(element);
+            drained++;
+        }
+        return drained;
+    }
+
+
+    /**
+     * @return an estimate of the number of elements in the buffer
+     */
+    public int size()
+    {
+        long size = enqueuePosition.get() - dequeuePosition.get();
+        return (int)Math.max(0, Math.min(size, capacity()));
+    }
+
+
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+
+    public int capacity()
+    {
+        return mask + 1;
+    }
+}
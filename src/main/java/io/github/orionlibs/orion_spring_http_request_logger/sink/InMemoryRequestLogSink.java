@@ -0,0 +1,98 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sink;
+
+import io.github.orionlibs.orion_spring_http_request_logger.RequestLogRecord;
+import io.github.orionlibs.orion_spring_http_request_logger.config.LoggingPolicy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sink that keeps the latest records in memory, unformatted, e.g. for tests or for an endpoint that shows recent requests.
+ * Once it holds {@code log.sink.memory.capacity} records, the oldest one is evicted for every new one.
+ */
+public class InMemoryRequestLogSink implements RequestLogSink
+{
+    /**
+     * the {@code log.sink} name of this sink
+     */
+    public static final String NAME = "MEMORY";
+    private final int capacity;
+    private final ArrayDeque<RequestLogRecord> records;
+    private final ReentrantLock lock;
+
+
+    /**
+     * @param capacity the maximum number of records that are kept
+     */
+    public InMemoryRequestLogSink(int capacity)
+    {
+        if(capacity < 1)
+        {
+            throw new IllegalArgumentException("The in-memory sink capacity has to be positive, but it was " + capacity);
+        }
+        this.capacity = capacity;
+        this.records = new ArrayDeque<>(Math.min(capacity, 1024));
+        this.lock = new ReentrantLock();
+    }
+
+
+    @Override
+    public void write(RequestLogRecord record)
+    {
+        lock.lock();
+        try
+        {
+            if(records.size() == capacity)
+            {
+                records.pollFirst();
+            }
+            records.addLast(record);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * @return a copy of the kept records, from the oldest to the latest
+     */
+    public List<RequestLogRecord> getRecords()
+    {
+        lock.lock();
+        try
+        {
+            return new ArrayList<>(records);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * discards the kept records
+     */
+    public void clear()
+    {
+        lock.lock();
+        try
+        {
+            records.clear();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    @Override
+    public boolean isConfiguredWith(LoggingPolicy policy)
+    {
+        return NAME.equalsIgnoreCase(policy.getSinkName()) && capacity == policy.getMemorySinkCapacity();
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sink;
+
+import io.github.orionlibs.orion_spring_http_request_logger.LogService;
+import io.github.orionlibs.orion_spring_http_request_logger.RequestLogRecord;
+import io.github.orionlibs.orion_spring_http_request_logger.config.LoggingPolicy;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sink that publishes the records as INFO messages of a {@link java.util.logging.Logger},
+ * in the text or JSON output format. The message is only built if the logger is enabled for INFO.
+ * JUL handlers may publish while holding a monitor, which pins the carrier of a virtual thread for the duration of the I/O,
+ * so on virtual threads this sink is best combined with asynchronous logging, which publishes from a platform thread.
+ */
+public class JulRequestLogSink implements RequestLogSink
+{
+    /**
+     * the {@code log.sink} name of this sink
+     */
+    public static final String NAME = "JUL";
+    private final Logger logger;
+    private final String sinkName;
+
+
+    /**
+     * @param logger
+     */
+    public JulRequestLogSink(Logger logger)
+    {
+        this(logger, NAME);
+    }
+
+
+    /**
+     * @param logger
+     * @param sinkName the {@code log.sink} value this sink was created for, which differs from {@link #NAME}
+     * when this sink replaces one that could not be created
+     */
+    JulRequestLogSink(Logger logger, String sinkName)
+    {
+        this.logger = logger;
+        this.sinkName = sinkName;
+    }
+
+
+    @Override
+    public void write(RequestLogRecord record)
+    {
+        if(logger.isLoggable(Level.INFO))
+        {
+            String logMessage = LogService.buildLog(record);
+            if(logMessage != null)
+            {
+                logger.info(logMessage);
+            }
+        }
+    }
+
+
+    @Override
+    public boolean isConfiguredWith(LoggingPolicy policy)
+    {
+        return sinkName.equalsIgnoreCase(policy.getSinkName());
+    }
+}
@@ -0,0 +1,206 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sink;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Appends encoded records to memory-mapped segment files, so that writing a record is a copy into the page cache
+ * instead of a system call. A segment is preallocated with the configured size and a new one is started
+ * when the next record does not fit or when the roll interval has elapsed.
+ * Segments are named {@code <prefix>-<creation epoch millis>-<sequence>.seg} and can be decoded with {@link BinaryLogReader}.
+ * Appending takes a {@link ReentrantLock} rather than a monitor, so that waiting virtual threads do not pin their carrier.
+ */
+public final class MappedLogFileWriter implements AutoCloseable
+{
+    static final String SEGMENT_FILE_EXTENSION = ".seg";
+    private final Path directory;
+    private final String prefix;
+    private final int segmentSize;
+    private final long rollIntervalMillis;
+    private final ReentrantLock lock;
+    private final LongAdder droppedRecords;
+    private MappedByteBuffer segment;
+    private Path segmentPath;
+    private long segmentDeadlineMillis;
+    private int segmentSequence;
+    private boolean closed;
+
+
+    /**
+     * @param directory the directory of the segment files, which is created if it does not exist
+     * @param prefix the file name prefix of the segment files
+     * @param segmentSize the size of every segment file in bytes
+     * @param rollIntervalMillis the maximum age of a segment before a new one is started or 0 to only roll when a segment is full
+     */
+    public MappedLogFileWriter(Path directory, String prefix, int segmentSize, long rollIntervalMillis)
+    {
+        if(segmentSize <= BinaryRecordFormat.LENGTH_PREFIX_SIZE)
+        {
+            throw new IllegalArgumentException("segmentSize is too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.prefix = prefix;
+        this.segmentSize = segmentSize;
+        this.rollIntervalMillis = rollIntervalMillis;
+        this.lock = new ReentrantLock();
+        this.droppedRecords = new LongAdder();
+    }
+
+
+    /**
+     * appends the record that the given encoder holds
+     * @param encoder
+     * @throws UncheckedIOException if a new segment file cannot be created
+     */
+    public void append(BinaryRecordEncoder encoder)
+    {
+        append(encoder.getBytes(), 0, encoder.size());
+    }
+
+
+    /**
+     * appends the given encoded record. Records that are larger than a segment are dropped.
+     * @param record
+     * @param offset
+     * @param length
+     * @throws UncheckedIOException if a new segment file cannot be created
+     */
+    public void append(byte[] record, int offset, int length)
+    {
+        if(length + BinaryRecordFormat.LENGTH_PREFIX_SIZE > segmentSize)
+        {
+            droppedRecords.increment();
+            return;
+        }
+        lock.lock();
+        try
+        {
+            if(closed)
+            {
+                droppedRecords.increment();
+                return;
+            }
+            if(segment == null
+                            || segment.remaining() < length + BinaryRecordFormat.LENGTH_PREFIX_SIZE
+                            || (rollIntervalMillis > 0 && System.currentTimeMillis() >= segmentDeadlineMillis))
+            {
+                roll();
+            }
+            segment.put(record, offset, length);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    private void roll()
+    {
+        if(segment != null)
+        {
+            segment.force();
+        }
+        try
+        {
+            Files.createDirectories(directory);
+            long now = System.currentTimeMillis();
+            segmentPath = directory.resolve(prefix + "-" + now + "-" + (segmentSequence++) + SEGMENT_FILE_EXTENSION);
+            try(FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE))
+            {
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            }
+            segmentDeadlineMillis = now + rollIntervalMillis;
+        }
+        catch(IOException e)
+        {
+            segment = null;
+            throw new UncheckedIOException("Could not create log segment file in " + directory, e);
+        }
+    }
+
+
+    /**
+     * flushes the current segment to the file system
+     */
+    public void flush()
+    {
+        lock.lock();
+        try
+        {
+            if(segment != null)
+            {
+                segment.force();
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * flushes the current segment and stops appending
+     */
+    @Override
+    public void close()
+    {
+        lock.lock();
+        try
+        {
+            if(segment != null)
+            {
+                segment.force();
+                segment = null;
+            }
+            closed = true;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * @return the path of the segment that records are appended to or null if none has been created
+     */
+    public Path getSegmentPath()
+    {
+        lock.lock();
+        try
+        {
+            return segmentPath;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * @return the number of records that were dropped because they did not fit in a segment or the writer was closed
+     */
+    public long getDroppedRecords()
+    {
+        return droppedRecords.sum();
+    }
+
+
+    /**
+     * @return true if this writer appends to the given directory with the given settings
+     */
+    public boolean isConfiguredWith(Path directory, String prefix, int segmentSize, long rollIntervalMillis)
+    {
+        return this.directory.equals(directory) && this.prefix.equals(prefix) && this.segmentSize == segmentSize && this.rollIntervalMillis == rollIntervalMillis;
+    }
+}
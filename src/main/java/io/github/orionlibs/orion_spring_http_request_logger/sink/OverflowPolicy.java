@@ -0,0 +1,21 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sink;
+
+/**
+ * What an {@link AsyncLogWriter} does with a record when its buffer cannot take it
+ */
+public enum OverflowPolicy
+{
+    /**
+     * the record is discarded and counted as dropped
+     */
+    DROP,
+    /**
+     * the request thread waits until the background writer frees space
+     */
+    BLOCK,
+    /**
+     * once the buffer is 3/4 full only 1 in every N records is accepted and the rest are counted as sampled out.
+     * If the buffer is completely full, the record is dropped.
+     */
+    SAMPLE
+}
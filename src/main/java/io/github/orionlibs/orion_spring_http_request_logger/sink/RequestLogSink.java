@@ -0,0 +1,43 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sink;
+
+import io.github.orionlibs.orion_spring_http_request_logger.RequestLogRecord;
+import io.github.orionlibs.orion_spring_http_request_logger.config.LoggingPolicy;
+
+/**
+ * Destination of the request log records. A sink receives the structured record of every logged request,
+ * not a preformatted message, so that it formats it only if and how it needs to.
+ * It is selected with {@code log.sink}, which is either the name of a built-in sink
+ * or the fully qualified name of an implementation with a public no-argument constructor.
+ * {@link #write(RequestLogRecord)} is called by request threads or, when asynchronous logging is enabled,
+ * by the single background thread of the asynchronous log writer.
+ */
+public interface RequestLogSink extends AutoCloseable
+{
+    /**
+     * writes the given record
+     * @param record
+     */
+    void write(RequestLogRecord record);
+
+
+    /**
+     * checks if this sink is the one the given policy selects, with the same settings.
+     * If it is not, a new sink is created and this one is closed.
+     * @param policy
+     * @return true if this sink can keep being used with the given policy
+     */
+    default boolean isConfiguredWith(LoggingPolicy policy)
+    {
+        return getClass().getName().equals(policy.getSinkName());
+    }
+
+
+    /**
+     * releases the resources of this sink. It is called once the sink has been replaced or when the application stops,
+     * after the records that were being written to it have been written.
+     */
+    @Override
+    default void close()
+    {
+    }
+}
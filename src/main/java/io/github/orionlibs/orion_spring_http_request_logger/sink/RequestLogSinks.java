@@ -0,0 +1,242 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sink;
+
+import io.github.orionlibs.orion_spring_http_request_logger.RequestLogRecord;
+import io.github.orionlibs.orion_spring_http_request_logger.config.ConfigurationService;
+import io.github.orionlibs.orion_spring_http_request_logger.config.LoggingPolicy;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Creates the {@link RequestLogSink} that a logging policy selects with {@code log.sink}
+ * and holds the active sink, i.e. the one that the request log records are currently written to.
+ */
+public final class RequestLogSinks
+{
+    private static volatile ActiveSink activeSink;
+    private static final ReentrantLock activeSinkLock = new ReentrantLock();
+
+
+    private RequestLogSinks()
+    {
+    }
+
+
+    /**
+     * creates the sink the given policy selects.
+     * If the SLF4J sink is selected but SLF4J is not on the classpath, or a custom sink cannot be instantiated,
+     * a JUL sink is created instead and a warning is logged with the given logger.
+     * @param policy
+     * @param logger the logger of the JUL sink, whose name is also used as the SLF4J logger name
+     * @return the sink
+     * @throws java.io.UncheckedIOException if the binary file sink cannot create its first segment
+     */
+    public static RequestLogSink create(LoggingPolicy policy, Logger logger)
+    {
+        String sinkName = policy.getSinkName();
+        if(JulRequestLogSink.NAME.equalsIgnoreCase(sinkName))
+        {
+            return new JulRequestLogSink(logger);
+        }
+        else if(Slf4jRequestLogSink.NAME.equalsIgnoreCase(sinkName))
+        {
+            if(isClassPresent("org.slf4j.LoggerFactory"))
+            {
+                return new Slf4jRequestLogSink(logger.getName());
+            }
+            logger.warning("SLF4J is not on the classpath, so the request log records are logged with java.util.logging");
+            return new JulRequestLogSink(logger, sinkName);
+        }
+        else if(BinaryFileRequestLogSink.NAME.equalsIgnoreCase(sinkName))
+        {
+            return new BinaryFileRequestLogSink(policy);
+        }
+        else if(InMemoryRequestLogSink.NAME.equalsIgnoreCase(sinkName))
+        {
+            return new InMemoryRequestLogSink(policy.getMemorySinkCapacity());
+        }
+        try
+        {
+            Class<?> sinkClass = Class.forName(sinkName, true, RequestLogSinks.class.getClassLoader());
+            return (RequestLogSink)sinkClass.getConstructor().newInstance();
+        }
+        catch(ReflectiveOperationException | ClassCastException | LinkageError e)
+        {
+            logger.warning("Could not create the request log sink " + sinkName + ", so the request log records are logged with java.util.logging: " + e);
+            return new JulRequestLogSink(logger, sinkName);
+        }
+    }
+
+
+    /**
+     * @return the sink that the request log records are currently written to, e.g. an {@link InMemoryRequestLogSink} to read them back,
+     * or null if no record has been written yet
+     */
+    public static RequestLogSink getActiveSink()
+    {
+        ActiveSink sink = activeSink;
+        return sink != null ? sink.sink : null;
+    }
+
+
+    /**
+     * writes the given record to the active sink, after (re)creating it if the sink settings of the current policy
+     * are not the ones the active sink was created with. The sink is only ever created from the current policy,
+     * so requests that started before a configuration change and complete after it cannot swap an older sink back in.
+     * The replaced sink is only closed once the records that are being written to it have been written,
+     * and it is closed on a background thread, so no request waits for it.
+     * @param record
+     * @param logger the logger of the JUL sink, whose name is also used as the SLF4J logger name
+     * @throws java.io.UncheckedIOException if the binary file sink cannot create its first segment
+     */
+    public static void write(RequestLogRecord record, Logger logger)
+    {
+        ActiveSink sink = acquireActiveSink(logger);
+        try
+        {
+            sink.sink.write(record);
+        }
+        finally
+        {
+            release(sink);
+        }
+    }
+
+
+    /**
+     * closes the active sink, e.g. when the application stops. The next record that is written creates a new one.
+     * If records are still being written to it, the last of them closes it.
+     */
+    public static void closeActiveSink()
+    {
+        activeSinkLock.lock();
+        try
+        {
+            ActiveSink sink = activeSink;
+            activeSink = null;
+            if(sink != null)
+            {
+                sink.retired = true;
+                if(sink.writers.get() == 0 && sink.closed.compareAndSet(false, true))
+                {
+                    sink.sink.close();
+                }
+            }
+        }
+        finally
+        {
+            activeSinkLock.unlock();
+        }
+    }
+
+
+    /**
+     * It returns the active sink with one more writer registered on it, so that it is not closed while the record is written.
+     * If the sink is retired between reading and registering on it, the writer moves on to the sink that replaced it.
+     */
+    private static ActiveSink acquireActiveSink(Logger logger)
+    {
+        while(true)
+        {
+            ActiveSink sink = getOrCreateActiveSink(logger);
+            sink.writers.incrementAndGet();
+            if(!sink.retired)
+            {
+                return sink;
+            }
+            release(sink);
+        }
+    }
+
+
+    private static ActiveSink getOrCreateActiveSink(Logger logger)
+    {
+        ActiveSink sink = activeSink;
+        LoggingPolicy policy = ConfigurationService.getLoggingPolicy();
+        if(sink == null || !sink.sink.isConfiguredWith(policy))
+        {
+            ActiveSink previousSink = null;
+            activeSinkLock.lock();
+            try
+            {
+                sink = activeSink;
+                policy = ConfigurationService.getLoggingPolicy();
+                if(sink == null || !sink.sink.isConfiguredWith(policy))
+                {
+                    previousSink = sink;
+                    sink = new ActiveSink(create(policy, logger));
+                    activeSink = sink;
+                }
+            }
+            finally
+            {
+                activeSinkLock.unlock();
+            }
+            if(previousSink != null)
+            {
+                previousSink.retired = true;
+                if(previousSink.writers.get() == 0)
+                {
+                    closeInBackground(previousSink);
+                }
+            }
+        }
+        return sink;
+    }
+
+
+    private static void release(ActiveSink sink)
+    {
+        if(sink.writers.decrementAndGet() == 0 && sink.retired)
+        {
+            closeInBackground(sink);
+        }
+    }
+
+
+    private static void closeInBackground(ActiveSink sink)
+    {
+        if(sink.closed.compareAndSet(false, true))
+        {
+            Thread closer = new Thread(sink.sink::close, "orion-http-request-logger-sink-closer");
+            closer.setDaemon(true);
+            closer.start();
+        }
+    }
+
+
+    private static boolean isClassPresent(String className)
+    {
+        try
+        {
+            Class.forName(className, false, RequestLogSinks.class.getClassLoader());
+            return true;
+        }
+        catch(ClassNotFoundException | LinkageError e)
+        {
+            return false;
+        }
+    }
+
+
+    /**
+     * A sink with the number of records that are being written to it. A retired sink, i.e. one that has been replaced or closed,
+     * accepts no new writers and is closed once its last writer is done.
+     */
+    private static final class ActiveSink
+    {
+        private final RequestLogSink sink;
+        private final AtomicInteger writers;
+        private final AtomicBoolean closed;
+        private volatile boolean retired;
+
+
+        private ActiveSink(RequestLogSink sink)
+        {
+            this.sink = sink;
+            this.writers = new AtomicInteger();
+            this.closed = new AtomicBoolean();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sink;
+
+import io.github.orionlibs.orion_spring_http_request_logger.LogService;
+import io.github.orionlibs.orion_spring_http_request_logger.RequestLogRecord;
+import io.github.orionlibs.orion_spring_http_request_logger.config.LoggingPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sink that publishes the records as INFO messages of an SLF4J logger, in the text or JSON output format,
+ * so that they go through the logging backend of the application. The message is only built if the logger is enabled for INFO.
+ * SLF4J is an optional dependency, so this sink is only created if it is on the classpath.
+ */
+public class Slf4jRequestLogSink implements RequestLogSink
+{
+    /**
+     * the {@code log.sink} name of this sink
+     */
+    public static final String NAME = "SLF4J";
+    private final Logger logger;
+
+
+    /**
+     * @param loggerName
+     */
+    public Slf4jRequestLogSink(String loggerName)
+    {
+        this.logger = LoggerFactory.getLogger(loggerName);
+    }
+
+
+    @Override
+    public void write(RequestLogRecord record)
+    {
+        if(logger.isInfoEnabled())
+        {
+            String logMessage = LogService.buildLog(record);
+            if(logMessage != null)
+            {
+                logger.info(logMessage);
+            }
+        }
+    }
+
+
+    @Override
+    public boolean isConfiguredWith(LoggingPolicy policy)
+    {
+        return NAME.equalsIgnoreCase(policy.getSinkName());
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.orionlibs.orion_spring_http_request_logger.watchdog;
+
+/**
+ * A request that is being handled, as tracked by an {@link InFlightRequestRegistry}.
+ * It is immutable apart from whether it has already been reported as slow,
+ * so the watchdog thread can read it while the request thread is still running.
+ */
+public final class InFlightRequest
+{
+    private final Thread thread;
+    private final String httpMethod;
+    private final String requestURI;
+    private final long startNanos;
+    private final InFlightRequestRegistry registry;
+    private final int slot;
+    private volatile boolean reported;
+
+
+    InFlightRequest(Thread thread, String httpMethod, String requestURI, long startNanos, InFlightRequestRegistry registry, int slot)
+    {
+        this.thread = thread;
+        this.httpMethod = httpMethod;
+        this.requestURI = requestURI;
+        this.startNanos = startNanos;
+        this.registry = registry;
+        this.slot = slot;
+    }
+
+
+    /**
+     * @return the thread that handles the request
+     */
+    public Thread getThread()
+    {
+        return thread;
+    }
+
+
+    public String getHttpMethod()
+    {
+        return httpMethod;
+    }
+
+
+    public String getRequestURI()
+    {
+        return requestURI;
+    }
+
+
+    public long getStartNanos()
+    {
+        return startNanos;
+    }
+
+
+    InFlightRequestRegistry getRegistry()
+    {
+        return registry;
+    }
+
+
+    int getSlot()
+    {
+        return slot;
+    }
+
+
+    boolean isReported()
+    {
+        return reported;
+    }
+
+
+    void markReported()
+    {
+        reported = true;
+    }
+}
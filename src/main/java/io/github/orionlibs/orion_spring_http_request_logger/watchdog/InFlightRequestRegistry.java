@@ -0,0 +1,126 @@
+package io.github.orionlibs.orion_spring_http_request_logger.watchdog;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free registry of the requests that are being handled, with a fixed number of slots.
+ * A request claims a free slot with a single compare-and-set, starting from a random slot so that
+ * concurrent requests rarely contend, and frees it with a plain write.
+ * When every slot is taken, the request is not tracked and it is counted instead,
+ * so the memory and the cost of a scan are bounded whatever the number of concurrent requests.
+ */
+public final class InFlightRequestRegistry
+{
+    private final AtomicReferenceArray<InFlightRequest> slots;
+    private final LongAdder untrackedRequests;
+
+
+    /**
+     * @param capacity the maximum number of requests that are tracked at the same time
+     */
+    public InFlightRequestRegistry(int capacity)
+    {
+        if(capacity < 1)
+        {
+            throw new IllegalArgumentException("The in-flight request registry capacity has to be positive, but it was " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.untrackedRequests = new LongAdder();
+    }
+
+
+    /**
+     * starts tracking a request that the current thread handles
+     * @param httpMethod
+     * @param requestURI
+     * @return the tracked request or null if every slot is taken
+     */
+    public InFlightRequest register(String httpMethod, String requestURI)
+    {
+        return register(httpMethod, requestURI, System.nanoTime());
+    }
+
+
+    /**
+     * starts tracking a request that the current thread handles and that started at the given time,
+     * e.g. the async dispatch of a request whose first dispatch was handled by another thread
+     * @param httpMethod
+     * @param requestURI
+     * @param startNanos
+     * @return the tracked request or null if every slot is taken
+     */
+    public InFlightRequest register(String httpMethod, String requestURI, long startNanos)
+    {
+        int capacity = slots.length();
+        int start = ThreadLocalRandom.current().nextInt(capacity);
+        for(int i = 0; i < capacity; i++)
+        {
+            int slot = (start + i) % capacity;
+            if(slots.get(slot) == null)
+            {
+                InFlightRequest request = new InFlightRequest(Thread.currentThread(), httpMethod, requestURI, startNanos, this, slot);
+                if(slots.compareAndSet(slot, null, request))
+                {
+                    return request;
+                }
+            }
+        }
+        untrackedRequests.increment();
+        return null;
+    }
+
+
+    /**
+     * stops tracking the given request
+     * @param request
+     */
+    public void deregister(InFlightRequest request)
+    {
+        slots.compareAndSet(request.getSlot(), request, null);
+    }
+
+
+    /**
+     * @param request
+     * @return true if the given request is still tracked
+     */
+    public boolean isRegistered(InFlightRequest request)
+    {
+        return slots.get(request.getSlot()) == request;
+    }
+
+
+    /**
+     * passes every tracked request to the given consumer
+     * @param consumer
+     */
+    public void forEach(Consumer<InFlightRequest> consumer)
+    {
+        for(int i = 0; i < slots.length(); i++)
+        {
+            InFlightRequest request = slots.get(i);
+            if(request != null)
+            {
+                consumer.accept(request);
+            }
+        }
+    }
+
+
+    public int capacity()
+    {
+        return slots.length();
+    }
+
+
+    /**
+     * @return the number of requests that were not tracked because every slot was taken
+     */
+    public long getUntrackedRequests()
+    {
+        return untrackedRequests.sum();
+    }
+}
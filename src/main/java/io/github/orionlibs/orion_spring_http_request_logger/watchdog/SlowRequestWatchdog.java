@@ -0,0 +1,173 @@
+package io.github.orionlibs.orion_spring_http_request_logger.watchdog;
+
+import io.github.orionlibs.orion_spring_http_request_logger.scheduling.PeriodicTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Service that tracks the requests in flight and periodically scans them on a background thread,
+ * reporting the ones that have been running for longer than a threshold together with a sample
+ * of the stack trace of the thread that handles them. Unlike the duration of the log record,
+ * this reports requests that hang, while they hang.
+ * Each request is reported at most once and at most {@link #MAX_REPORTS_PER_SCAN} requests are sampled per scan,
+ * so the overhead stays bounded even when many requests are stuck.
+ * A request that completes while its stack trace is sampled is not reported, since the stack trace may no longer be its own.
+ */
+public class SlowRequestWatchdog
+{
+    /**
+     * the maximum number of requests whose stack traces are sampled in a single scan
+     */
+    public static final int MAX_REPORTS_PER_SCAN = 16;
+    private static volatile InFlightRequestRegistry registry;
+    private static final PeriodicTask scanTask = new PeriodicTask("orion-http-request-logger-watchdog", SlowRequestWatchdog::scheduledScan);
+    private static volatile long scanThresholdNanos;
+    private static volatile int scanMaxStackDepth;
+    private static volatile Consumer<String> scanLogger;
+    private static final ReentrantLock registryLock = new ReentrantLock();
+
+
+    /**
+     * starts tracking a request that the current thread handles
+     * @param httpMethod
+     * @param requestURI
+     * @param maxTrackedRequests the maximum number of requests that are tracked at the same time
+     * @return the tracked request, which has to be given to {@link #untrack(InFlightRequest)}, or null if it is not tracked
+     */
+    public static InFlightRequest track(String httpMethod, String requestURI, int maxTrackedRequests)
+    {
+        return track(httpMethod, requestURI, System.nanoTime(), maxTrackedRequests);
+    }
+
+
+    /**
+     * starts tracking a request that the current thread handles and that started at the given time.
+     * This is how the async dispatch of a request is tracked again after {@link #untrack(InFlightRequest)}
+     * was called when its first dispatch handed it over to another thread, so that its elapsed time covers both dispatches.
+     * @param httpMethod
+     * @param requestURI
+     * @param startNanos
+     * @param maxTrackedRequests the maximum number of requests that are tracked at the same time
+     * @return the tracked request, which has to be given to {@link #untrack(InFlightRequest)}, or null if it is not tracked
+     */
+    public static InFlightRequest track(String httpMethod, String requestURI, long startNanos, int maxTrackedRequests)
+    {
+        InFlightRequestRegistry currentRegistry = registry;
+        if(currentRegistry == null || currentRegistry.capacity() != maxTrackedRequests)
+        {
+            registryLock.lock();
+            try
+            {
+                currentRegistry = registry;
+                if(currentRegistry == null || currentRegistry.capacity() != maxTrackedRequests)
+                {
+                    currentRegistry = new InFlightRequestRegistry(maxTrackedRequests);
+                    registry = currentRegistry;
+                }
+            }
+            finally
+            {
+                registryLock.unlock();
+            }
+        }
+        return currentRegistry.register(httpMethod, requestURI, startNanos);
+    }
+
+
+    /**
+     * stops tracking the given request
+     * @param request
+     */
+    public static void untrack(InFlightRequest request)
+    {
+        request.getRegistry().deregister(request);
+    }
+
+
+    /**
+     * makes sure that the requests in flight are scanned every intervalMillis.
+     * It only reschedules when the interval changes, and the other settings apply from the next scan.
+     * @param intervalMillis the interval or 0 to stop scanning
+     * @param thresholdMillis the duration after which a request in flight is reported
+     * @param maxStackDepth the maximum number of stack frames that are reported
+     * @param logger receives the reports
+     */
+    public static void schedule(long intervalMillis, long thresholdMillis, int maxStackDepth, Consumer<String> logger)
+    {
+        scanThresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        scanMaxStackDepth = maxStackDepth;
+        scanLogger = logger;
+        scanTask.schedule(intervalMillis);
+    }
+
+
+    private static void scheduledScan()
+    {
+        scan(scanThresholdNanos, scanMaxStackDepth, scanLogger);
+    }
+
+
+    /**
+     * reports the requests in flight that have been running for longer than the given threshold and have not been reported yet
+     * @param thresholdNanos
+     * @param maxStackDepth the maximum number of stack frames that are reported
+     * @param logger receives the reports
+     * @return the number of reported requests
+     */
+    public static int scan(long thresholdNanos, int maxStackDepth, Consumer<String> logger)
+    {
+        InFlightRequestRegistry currentRegistry = registry;
+        if(currentRegistry == null)
+        {
+            return 0;
+        }
+        long now = System.nanoTime();
+        int[] reports = new int[1];
+        currentRegistry.forEach(request -> {
+            long elapsedNanos = now - request.getStartNanos();
+            if(reports[0] < MAX_REPORTS_PER_SCAN && elapsedNanos > thresholdNanos && !request.isReported())
+            {
+                request.markReported();
+                String report = buildReport(request, elapsedNanos, maxStackDepth);
+                if(currentRegistry.isRegistered(request))
+                {
+                    logger.accept(report);
+                    reports[0]++;
+                }
+            }
+        });
+        return reports[0];
+    }
+
+
+    private static String buildReport(InFlightRequest request, long elapsedNanos, int maxStackDepth)
+    {
+        StringBuilder report = new StringBuilder(256);
+        report.append("Slow request in flight: ")
+                        .append(request.getHttpMethod()).append(' ').append(request.getRequestURI())
+                        .append(", Elapsed: ").append(TimeUnit.NANOSECONDS.toMillis(elapsedNanos)).append("ms")
+                        .append(", Thread: ").append(request.getThread().getName());
+        StackTraceElement[] stackTrace = request.getThread().getStackTrace();
+        int depth = Math.min(stackTrace.length, maxStackDepth);
+        for(int i = 0; i < depth; i++)
+        {
+            report.append("\n\tat ").append(stackTrace[i]);
+        }
+        if(stackTrace.length > depth)
+        {
+            report.append("\n\t... ").append(stackTrace.length - depth).append(" more");
+        }
+        return report.toString();
+    }
+
+
+    /**
+     * @return the number of requests that were not tracked because the registry was full
+     */
+    public static long getUntrackedRequests()
+    {
+        InFlightRequestRegistry currentRegistry = registry;
+        return currentRegistry != null ? currentRegistry.getUntrackedRequests() : 0L;
+    }
+}
@@ -1,31 +1,66 @@
 package io.github.orionlibs.orion_spring_http_request_logger;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import io.github.orionlibs.orion_spring_http_request_logger.body.BodyCaptureFilter;
 import io.github.orionlibs.orion_spring_http_request_logger.config.ConfigurationService;
 import io.github.orionlibs.orion_spring_http_request_logger.configuration.FakeTestingSpringConfiguration;
 import io.github.orionlibs.orion_spring_http_request_logger.controller.MockController;
+import io.github.orionlibs.orion_spring_http_request_logger.log.BlockingRequestLogSink;
 import io.github.orionlibs.orion_spring_http_request_logger.log.ListLogHandler;
+import io.github.orionlibs.orion_spring_http_request_logger.metrics.LatencyMetricsService;
+import io.github.orionlibs.orion_spring_http_request_logger.metrics.LatencySnapshot;
+import io.github.orionlibs.orion_spring_http_request_logger.metrics.OpenMetricsEndpoint;
+import io.github.orionlibs.orion_spring_http_request_logger.metrics.OpenMetricsHandlerMapping;
+import io.github.orionlibs.orion_spring_http_request_logger.metrics.OpenMetricsService;
+import io.github.orionlibs.orion_spring_http_request_logger.metrics.RequestRateService;
+import io.github.orionlibs.orion_spring_http_request_logger.metrics.RequestRateSnapshot;
+import io.github.orionlibs.orion_spring_http_request_logger.sink.BinaryFileRequestLogSink;
+import io.github.orionlibs.orion_spring_http_request_logger.sink.BinaryLogReader;
+import io.github.orionlibs.orion_spring_http_request_logger.sink.InMemoryRequestLogSink;
+import io.github.orionlibs.orion_spring_http_request_logger.sink.RequestLogSinks;
 import io.github.orionlibs.orion_spring_http_request_logger.utils.Callback;
+import io.github.orionlibs.orion_spring_http_request_logger.watchdog.SlowRequestWatchdog;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.LogManager;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.TestInstance.Lifecycle;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.util.ServletRequestPathUtils;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("testing")
@@ -158,14 +193,18 @@ public class LoggingInterceptorTest extends ATest
         assertTrue(listLogHandler.getLogRecords().stream()
                         .anyMatch(record -> record.getMessage().contains("IP: 127.0.0.1, URI: GET /")));
         ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.http.methods.logged", "POST");
+        listLogHandler.getLogRecords().clear();
         mockMvc.perform(get("/")).andExpect(status().isOk());
-        assertTrue(listLogHandler.getLogRecords().stream()
-                        .anyMatch(record -> record.getMessage().contains("IP: 127.0.0.1")));
+        assertTrue(listLogHandler.getLogRecords().isEmpty());
         ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.http.methods.logged", "POST,PUT");
         mockMvc.perform(get("/")).andExpect(status().isOk());
-        assertTrue(listLogHandler.getLogRecords().stream()
-                        .anyMatch(record -> record.getMessage().contains("IP: 127.0.0.1")));
+        assertTrue(listLogHandler.getLogRecords().isEmpty());
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.http.method.enabled", "false");
+        mockMvc.perform(get("/")).andExpect(status().isOk());
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.http.method.enabled", "true");
         ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.http.methods.logged", "*");
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("IP: 127.0.0.1, URI: /")));
     }
 
 
@@ -191,6 +230,52 @@ public class LoggingInterceptorTest extends ATest
     }
 
 
+    @Test
+    void test_preHandle_filteredOutRequestsNotLogged() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.uris.logged.pattern", "^/api/v1/.*");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.request.processing.duration.enabled", "true");
+        mockMvc.perform(get("/search").queryParam("query", "filtered").queryParam("options", "1")).andExpect(status().isOk());
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.uris.logged.pattern", "*");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.http.methods.logged", "POST");
+        mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk());
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.http.methods.logged", "*");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.request.processing.duration.enabled", "false");
+        assertFalse(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("/search") || record.getMessage().contains("/api/v1/users")));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.uris.logged.pattern", "/health");
+        new LoggingInterceptor().preHandle(request, new MockHttpServletResponse(), null);
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.uris.logged.pattern", "*");
+        assertNull(request.getAttribute(RequestLogContext.REQUEST_ATTRIBUTE));
+    }
+
+
+    @Test
+    void test_preHandle_excludedUrisNotLogged() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.uris.excluded", "/conflict,/api/v1/users/*");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.metrics.endpoint.enabled", "true");
+        OpenMetricsService.reset();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users/123");
+        new LoggingInterceptor().preHandle(request, new MockHttpServletResponse(), null);
+        assertNull(request.getAttribute(RequestLogContext.REQUEST_ATTRIBUTE));
+        mockMvc.perform(get("/api/v1/users/123")).andExpect(status().isOk());
+        mockMvc.perform(get("/conflict")).andExpect(status().isConflict());
+        mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk());
+        String metrics = OpenMetricsService.render();
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.uris.excluded", "");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.metrics.endpoint.enabled", "false");
+        OpenMetricsService.reset();
+        assertFalse(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("URI: GET /api/v1/users/123") || record.getMessage().contains("URI: GET /conflict")));
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("IP: 127.0.0.1, URI: GET /api/v1/users")));
+        assertFalse(metrics.contains("/conflict"));
+        assertTrue(metrics.contains("route=\"/api/v1/users\""));
+    }
+
+
     @Test
     void test_preHandle_queryParameters() throws Exception
     {
@@ -202,6 +287,496 @@ public class LoggingInterceptorTest extends ATest
     }
 
 
+    @Test
+    void test_preHandle_queryParametersRedacted() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.uri.query.params.enabled", "true");
+        mockMvc.perform(get("/search?query=hello&options=45&access_token=secret")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk());
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("IP: 127.0.0.1, URI: GET /search?query=hello&options=45&access_token=****, ")));
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("IP: 127.0.0.1, URI: GET /api/v1/users, ")));
+        assertFalse(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("?null")));
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.uri.query.params.enabled", "false");
+    }
+
+
+    @Test
+    void test_preHandle_asyncLogging() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.async.enabled", "true");
+        mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk());
+        assertTrue(LoggingInterceptor.getAsyncLogWriter().awaitWritten(5000L));
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("IP: 127.0.0.1, URI: GET /api/v1/users")));
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("IP: 127.0.0.1, URI: GET /api/v1/users, Status: 200, Duration: ")
+                                        && record.getMessage().contains(", Handler: ")));
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.async.enabled", "false");
+        LoggingInterceptor.closeAsyncLogWriter();
+    }
+
+
+    @Test
+    void test_afterCompletion_jsonOutputFormat() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.output.format", "JSON");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.uri.query.params.enabled", "true");
+        mockMvc.perform(get("/search?query=hello+there&options=45")).andExpect(status().isOk());
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().startsWith("{\"ip\":\"127.0.0.1\",\"method\":\"GET\",\"uri\":\"/search\",\"query\":\"query=hello+there&options=45\",\"status\":200,")
+                                        && record.getMessage().contains("\"durationNanos\":")
+                                        && record.getMessage().contains("\"handler\":\"io.github.orionlibs.orion_spring_http_request_logger.controller.MockController#search(")
+                                        && record.getMessage().endsWith("\"}")));
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.uri.query.params.enabled", "false");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.output.format", "TEXT");
+    }
+
+
+    @Test
+    void test_afterCompletion_singleRecordPerRequest() throws Exception
+    {
+        mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk());
+        assertEquals(1, listLogHandler.getLogRecords().stream()
+                        .filter(record -> record.getMessage().contains("URI: GET /api/v1/users"))
+                        .count());
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().startsWith("IP: 127.0.0.1, URI: GET /api/v1/users, Status: 200, Duration: ")
+                                        && record.getMessage().contains("ns, Handler: io.github.orionlibs.orion_spring_http_request_logger.controller.MockController#getUsers(")));
+    }
+
+
+    @Test
+    void test_afterCompletion_asyncRequest() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.metrics.endpoint.enabled", "true");
+        OpenMetricsService.reset();
+        MvcResult result = mockMvc.perform(get("/async")).andExpect(request().asyncStarted()).andReturn();
+        String body = mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        String metrics = OpenMetricsService.render();
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.metrics.endpoint.enabled", "false");
+        OpenMetricsService.reset();
+        List<String> messages = listLogHandler.getLogRecords().stream()
+                        .map(record -> record.getMessage())
+                        .filter(message -> message.contains("URI: GET /async"))
+                        .toList();
+        assertEquals("done", body);
+        assertEquals(1, messages.size());
+        Matcher duration = Pattern.compile("Duration: (\\d+)ns").matcher(messages.get(0));
+        assertTrue(duration.find());
+        assertTrue(Long.parseLong(duration.group(1)) >= TimeUnit.MILLISECONDS.toNanos(50L));
+        assertTrue(metrics.contains("http_server_request_duration_seconds_bucket{method=\"GET\",route=\"/async\",le=\"0.005\"} 0\n"));
+        assertTrue(metrics.contains("http_server_request_duration_seconds_count{method=\"GET\",route=\"/async\"} 1\n"));
+    }
+
+
+    @Test
+    void test_afterConcurrentHandlingStarted_slowRequestWatchdog() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.slow.request.watchdog.threshold.millis", "60000");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.slow.request.watchdog.enabled", "true");
+        List<String> reports = new ArrayList<>();
+        MvcResult result = mockMvc.perform(get("/async")).andExpect(request().asyncStarted()).andReturn();
+        SlowRequestWatchdog.scan(0L, 64, reports::add);
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        SlowRequestWatchdog.scan(0L, 64, reports::add);
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.slow.request.watchdog.enabled", "false");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.slow.request.watchdog.threshold.millis", "5000");
+        assertFalse(reports.stream().anyMatch(report -> report.contains("GET /async")));
+        assertEquals(1, listLogHandler.getLogRecords().stream()
+                        .filter(record -> record.getMessage().contains("URI: GET /async, Status: 200"))
+                        .count());
+    }
+
+
+    @Test
+    void test_afterCompletion_exception() throws Exception
+    {
+        mockMvc.perform(get("/conflict")).andExpect(status().isConflict());
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("IP: 127.0.0.1, URI: GET /conflict, Status: 409, Duration: ")
+                                        && record.getMessage().endsWith("Exception: org.springframework.web.server.ResponseStatusException")));
+    }
+
+
+    @Test
+    void test_afterCompletion_sampling() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sampling.rate", "0.0");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sampling.enabled", "true");
+        mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk());
+        mockMvc.perform(get("/conflict")).andExpect(status().isConflict());
+        assertFalse(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("URI: GET /api/v1/users")));
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("URI: GET /conflict, Status: 409")));
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sampling.enabled", "false");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sampling.rate", "1.0");
+    }
+
+
+    @Test
+    void test_afterCompletion_requestContextReleased() throws Exception
+    {
+        MockHttpServletRequest request = mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk()).andReturn().getRequest();
+        assertNull(request.getAttribute(RequestLogContext.REQUEST_ATTRIBUTE));
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("IP: 127.0.0.1, URI: GET /api/v1/users, Status: 200")));
+    }
+
+
+    @Test
+    void test_afterCompletion_bodyCapture() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.body.capture.enabled", "true");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.body.capture.max.bytes", "16");
+        mockMvc = MockMvcBuilders
+                        .standaloneSetup(new MockController())
+                        .addFilters(new BodyCaptureFilter())
+                        .addInterceptors(new LoggingInterceptor())
+                        .build();
+        mockMvc.perform(post("/echo").contentType(MediaType.TEXT_PLAIN).content("hello")).andExpect(status().isOk());
+        mockMvc.perform(post("/echo").contentType(MediaType.TEXT_PLAIN).content("hello there, this is long")).andExpect(status().isOk());
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("URI: POST /echo, Status: 200")
+                                        && record.getMessage().endsWith("Request Body: hello, Response Body: hello")));
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().endsWith("Request Body: hello there, thi...[truncated, 25 bytes], Response Body: hello there, thi...[truncated, 25 bytes]")));
+        mockMvc.perform(post("/echo/writer").contentType(MediaType.TEXT_PLAIN).content("written")).andExpect(status().isOk());
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("URI: POST /echo/writer, Status: 200, Bytes: 7,")
+                                        && record.getMessage().endsWith("Request Body: written, Response Body: written")));
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.body.capture.max.bytes", "4096");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.body.capture.enabled", "false");
+    }
+
+
+    @Test
+    void test_afterCompletion_headers() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.headers.logged", "X-Request-Id,Authorization");
+        mockMvc.perform(get("/api/v1/users").header("X-Request-Id", "abc-123").header("Authorization", "Bearer secret")).andExpect(status().isOk());
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().startsWith("IP: 127.0.0.1, URI: GET /api/v1/users, X-Request-Id: abc-123, Authorization: ****, Status: 200")));
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.output.format", "JSON");
+        mockMvc.perform(get("/api/v1/users").header("X-Request-Id", "abc-123").header("Authorization", "Bearer secret")).andExpect(status().isOk());
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().startsWith("{\"ip\":\"127.0.0.1\",\"method\":\"GET\",\"uri\":\"/api/v1/users\",\"headers\":{\"X-Request-Id\":\"abc-123\",\"Authorization\":\"****\"},\"status\":200,")));
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.output.format", "TEXT");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.headers.logged", "");
+    }
+
+
+    @Test
+    void test_afterCompletion_binaryLogFile(@TempDir Path directory) throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.binary.file.directory", directory.toString());
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.binary.file.segment.size", "65536");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sink", "BINARY_FILE");
+        mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk());
+        Path segment = ((BinaryFileRequestLogSink)RequestLogSinks.getActiveSink()).getWriter().getSegmentPath();
+        RequestLogSinks.closeActiveSink();
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sink", "JUL");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.binary.file.segment.size", "67108864");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.binary.file.directory", "logs");
+        List<String> lines = new ArrayList<>();
+        assertEquals(1, BinaryLogReader.read(segment, false, lines::add));
+        assertTrue(lines.get(0).contains(" IP: 127.0.0.1, URI: GET /api/v1/users, Status: 200, Duration: "));
+        assertFalse(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("URI: GET /api/v1/users")));
+    }
+
+
+    @Test
+    void test_afterCompletion_inMemorySink() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sink.memory.capacity", "2");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sink", "MEMORY");
+        mockMvc.perform(get("/")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/users").queryParam("page", "2")).andExpect(status().isOk());
+        List<RequestLogRecord> records = ((InMemoryRequestLogSink)RequestLogSinks.getActiveSink()).getRecords();
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sink", "JUL");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sink.memory.capacity", "1000");
+        assertEquals(2, records.size());
+        assertEquals("/api/v1/users", records.get(0).getRequestURI());
+        assertNull(records.get(0).getQueryString());
+        assertEquals("page=2", records.get(1).getQueryString());
+        assertEquals(200, records.get(1).getStatus());
+        assertFalse(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("URI: GET /api/v1/users")));
+    }
+
+
+    @Test
+    void test_afterCompletion_replacedSinkClosedAfterInFlightWrites() throws Exception
+    {
+        BlockingRequestLogSink.reset();
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sink", BlockingRequestLogSink.class.getName());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            Future<?> request = executor.submit(() -> mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk()));
+            assertTrue(BlockingRequestLogSink.getWriting().await(5, TimeUnit.SECONDS));
+            ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sink", "MEMORY");
+            mockMvc.perform(get("/")).andExpect(status().isOk());
+            assertFalse(BlockingRequestLogSink.getClosed().await(200, TimeUnit.MILLISECONDS));
+            BlockingRequestLogSink.getReleased().countDown();
+            request.get(5, TimeUnit.SECONDS);
+        }
+        finally
+        {
+            BlockingRequestLogSink.getReleased().countDown();
+            executor.shutdownNow();
+        }
+        List<RequestLogRecord> records = ((InMemoryRequestLogSink)RequestLogSinks.getActiveSink()).getRecords();
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sink", "JUL");
+        assertTrue(BlockingRequestLogSink.getClosed().await(5, TimeUnit.SECONDS));
+        assertEquals(1, BlockingRequestLogSink.getRecords().size());
+        assertEquals("/api/v1/users", BlockingRequestLogSink.getRecords().get(0).getRequestURI());
+        assertEquals(1, records.size());
+        assertEquals("/", records.get(0).getRequestURI());
+        assertFalse(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("Could not write the request log record")));
+    }
+
+
+    @Test
+    void test_afterCompletion_concurrentRequests() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sink.memory.capacity", "10000");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sink", "MEMORY");
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try
+        {
+            List<Future<?>> requests = new ArrayList<>();
+            for(int i = 0; i < 2000; i++)
+            {
+                String page = Integer.toString(i);
+                requests.add(executor.submit(() -> mockMvc.perform(get("/api/v1/users").queryParam("page", page)).andExpect(status().isOk())));
+            }
+            for(Future<?> request : requests)
+            {
+                request.get(30, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        List<RequestLogRecord> records = ((InMemoryRequestLogSink)RequestLogSinks.getActiveSink()).getRecords();
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sink", "JUL");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sink.memory.capacity", "1000");
+        assertEquals(2000, records.size());
+        assertEquals(2000, records.stream().map(RequestLogRecord::getQueryString).distinct().count());
+    }
+
+
+    @Test
+    void test_afterCompletion_unknownSinkFallsBackToJUL() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sink", "com.example.MissingSink");
+        mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk());
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sink", "JUL");
+        assertEquals(1, listLogHandler.getLogRecords().stream()
+                        .filter(record -> record.getMessage().contains("Could not create the request log sink com.example.MissingSink"))
+                        .count());
+        assertEquals(2, listLogHandler.getLogRecords().stream()
+                        .filter(record -> record.getMessage().contains("IP: 127.0.0.1, URI: GET /api/v1/users"))
+                        .count());
+    }
+
+
+    @Test
+    void test_afterCompletion_latencyHistograms() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.latency.histograms.enabled", "true");
+        LatencyMetricsService.reset();
+        for(int i = 0; i < 10; i++)
+        {
+            mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk());
+        }
+        assertTrue(LatencyMetricsService.getSnapshots().stream()
+                        .anyMatch(snapshot -> snapshot.getName().contains("MockController#getUsers(")
+                                        && snapshot.getCount() == 10
+                                        && snapshot.getP99Nanos() <= snapshot.getMaxNanos()));
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.latency.histograms.enabled", "false");
+        LatencyMetricsService.reset();
+    }
+
+
+    @Test
+    void test_afterCompletion_routeTemplate() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.route.template.enabled", "true");
+        mockMvc.perform(get("/api/v1/users/123")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/users/456")).andExpect(status().isOk());
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.route.template.enabled", "false");
+        assertEquals(1, listLogHandler.getLogRecords().stream()
+                        .filter(record -> record.getMessage().contains("IP: 127.0.0.1, URI: GET /api/v1/users/123, Route: /api/v1/users/{id}"))
+                        .count());
+        assertEquals(1, listLogHandler.getLogRecords().stream()
+                        .filter(record -> record.getMessage().contains("IP: 127.0.0.1, URI: GET /api/v1/users/456, Route: /api/v1/users/{id}"))
+                        .count());
+    }
+
+
+    @Test
+    void test_afterCompletion_latencyHistogramsByRoute() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.latency.histograms.enabled", "true");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.latency.histograms.by.route", "true");
+        LatencyMetricsService.reset();
+        for(int i = 0; i < 10; i++)
+        {
+            mockMvc.perform(get("/api/v1/users/" + i)).andExpect(status().isOk());
+        }
+        List<LatencySnapshot> snapshots = LatencyMetricsService.getSnapshots();
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.latency.histograms.enabled", "false");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.latency.histograms.by.route", "false");
+        LatencyMetricsService.reset();
+        assertEquals(1, snapshots.size());
+        assertEquals("GET /api/v1/users/{id}", snapshots.get(0).getName());
+        assertEquals(10, snapshots.get(0).getCount());
+        assertFalse(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().contains("Route: ")));
+    }
+
+
+    @Test
+    void test_afterCompletion_requestRates() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.request.rates.enabled", "true");
+        RequestRateService.reset();
+        for(int i = 0; i < 5; i++)
+        {
+            mockMvc.perform(get("/api/v1/users/" + i)).andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/conflict")).andExpect(status().isConflict());
+        List<RequestRateSnapshot> snapshots = RequestRateService.getSnapshots();
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.request.rates.enabled", "false");
+        RequestRateService.reset();
+        assertEquals(2, snapshots.size());
+        assertTrue(snapshots.stream()
+                        .anyMatch(snapshot -> snapshot.getName().equals("GET /api/v1/users/{id}") && snapshot.getCount(2) == 5));
+        assertTrue(snapshots.stream()
+                        .anyMatch(snapshot -> snapshot.getName().equals("GET /conflict") && snapshot.getCount(4) == 1));
+    }
+
+
+    @Test
+    void test_afterCompletion_metricsEndpoint() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.metrics.endpoint.enabled", "true");
+        OpenMetricsService.reset();
+        for(int i = 0; i < 3; i++)
+        {
+            mockMvc.perform(get("/api/v1/users/" + i)).andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/conflict")).andExpect(status().isConflict());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new OpenMetricsEndpoint().handleRequest(new MockHttpServletRequest("GET", "/metrics"), response);
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.metrics.endpoint.enabled", "false");
+        MockHttpServletResponse disabledResponse = new MockHttpServletResponse();
+        new OpenMetricsEndpoint().handleRequest(new MockHttpServletRequest("GET", "/metrics"), disabledResponse);
+        OpenMetricsService.reset();
+        assertEquals(200, response.getStatus());
+        assertEquals(OpenMetricsService.CONTENT_TYPE, response.getContentType());
+        String metrics = response.getContentAsString();
+        assertTrue(metrics.contains("http_server_requests_total{method=\"GET\",route=\"/api/v1/users/{id}\",status=\"2xx\"} 3\n"));
+        assertTrue(metrics.contains("http_server_requests_total{method=\"GET\",route=\"/conflict\",status=\"4xx\"} 1\n"));
+        assertTrue(metrics.contains("http_server_request_duration_seconds_count{method=\"GET\",route=\"/api/v1/users/{id}\"} 3\n"));
+        assertEquals(404, disabledResponse.getStatus());
+    }
+
+
+    @Test
+    void test_openMetricsHandlerMapping_followsConfiguration() throws Exception
+    {
+        OpenMetricsHandlerMapping handlerMapping = new OpenMetricsHandlerMapping();
+        MockHttpServletRequest metricsRequest = new MockHttpServletRequest("GET", "/metrics");
+        ServletRequestPathUtils.parseAndCache(metricsRequest);
+        MockHttpServletRequest scrapeRequest = new MockHttpServletRequest("GET", "/internal/scrape");
+        ServletRequestPathUtils.parseAndCache(scrapeRequest);
+        HandlerExecutionChain disabled = handlerMapping.getHandler(metricsRequest);
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.metrics.endpoint.enabled", "true");
+        HandlerExecutionChain enabled = handlerMapping.getHandler(metricsRequest);
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.metrics.endpoint.path", "/internal/scrape");
+        HandlerExecutionChain previousPath = handlerMapping.getHandler(metricsRequest);
+        HandlerExecutionChain changedPath = handlerMapping.getHandler(scrapeRequest);
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.metrics.endpoint.path", "/metrics");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.metrics.endpoint.enabled", "false");
+        assertNull(disabled);
+        assertTrue(enabled.getHandler() instanceof OpenMetricsEndpoint);
+        assertNull(previousPath);
+        assertTrue(changedPath.getHandler() instanceof OpenMetricsEndpoint);
+    }
+
+
+    @Test
+    void test_afterCompletion_deduplication() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.deduplication.enabled", "true");
+        for(int i = 0; i < 5; i++)
+        {
+            if(i == 2)
+            {
+                //an unrelated configuration change keeps the deduplication table
+                ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.headers.logged", "X-Request-Id");
+            }
+            mockMvc.perform(get("/api/v1/users/" + i)).andExpect(status().isOk());
+        }
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.headers.logged", "");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.deduplication.enabled", "false");
+        mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk());
+        assertEquals(1, listLogHandler.getLogRecords().stream()
+                        .filter(record -> record.getMessage().contains("URI: GET /api/v1/users/0"))
+                        .count());
+        assertEquals(0, listLogHandler.getLogRecords().stream()
+                        .filter(record -> record.getMessage().contains("URI: GET /api/v1/users/4"))
+                        .count());
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().equals("IP: 127.0.0.1, URI: GET /api/v1/users/{id}, Status: 200, Repeated: 4 times in 60s")));
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.output.format", "JSON");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.deduplication.enabled", "true");
+        mockMvc.perform(get("/api/v1/users/5")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/users/6")).andExpect(status().isOk());
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.deduplication.enabled", "false");
+        mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk());
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.output.format", "TEXT");
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().endsWith("\"uri\":\"/api/v1/users/{id}\",\"status\":200,\"repeated\":1,\"repeatWindowSeconds\":60}")));
+    }
+
+
+    @Test
+    void test_afterCompletion_deduplicatedRepeatsTakeNoSamplingPermits() throws Exception
+    {
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sampling.max.lines.per.second", "2");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sampling.enabled", "true");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.deduplication.enabled", "true");
+        for(int i = 0; i < 20; i++)
+        {
+            mockMvc.perform(get("/")).andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk());
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.deduplication.enabled", "false");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sampling.enabled", "false");
+        ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.sampling.max.lines.per.second", "0");
+        mockMvc.perform(get("/search").queryParam("query", "flush").queryParam("options", "1")).andExpect(status().isOk());
+        assertEquals(1, listLogHandler.getLogRecords().stream()
+                        .filter(record -> record.getMessage().startsWith("IP: 127.0.0.1, URI: GET /, Status: 200, Duration: "))
+                        .count());
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().startsWith("IP: 127.0.0.1, URI: GET /api/v1/users, Status: 200, Duration: ")));
+        assertTrue(listLogHandler.getLogRecords().stream()
+                        .anyMatch(record -> record.getMessage().equals("IP: 127.0.0.1, URI: GET /, Status: 200, Repeated: 19 times in 60s")));
+    }
+
+
     @Test
     void test_postHandle_requestProcessingDuration() throws Exception
     {
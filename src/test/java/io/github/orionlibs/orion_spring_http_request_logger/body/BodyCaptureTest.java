@@ -0,0 +1,45 @@
+package io.github.orionlibs.orion_spring_http_request_logger.body;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class BodyCaptureTest
+{
+    @Test
+    void test_capture_truncatesBeyondLimit()
+    {
+        BodyCapture bodyCapture = new BodyCapture(8);
+        assertNull(bodyCapture.getRequestBody());
+        BodyCaptureBuffer captureBuffer = bodyCapture.captureRequest(StandardCharsets.UTF_8);
+        byte[] body = "{\"name\":\"value\"}".getBytes(StandardCharsets.UTF_8);
+        captureBuffer.write(body, 0, 4);
+        captureBuffer.write(body[4]);
+        assertEquals("{\"nam", bodyCapture.getRequestBody());
+        captureBuffer.write(body, 5, body.length - 5);
+        assertEquals("{\"name\":...[truncated, 16 bytes]", bodyCapture.getRequestBody());
+        bodyCapture.release();
+        assertNull(bodyCapture.getRequestBody());
+    }
+
+
+    @Test
+    void test_isTextual()
+    {
+        assertTrue(BodyCapture.isTextual("application/json"));
+        assertTrue(BodyCapture.isTextual("text/plain;charset=UTF-8"));
+        assertTrue(BodyCapture.isTextual("application/problem+json"));
+        assertTrue(BodyCapture.isTextual("application/x-www-form-urlencoded"));
+        assertFalse(BodyCapture.isTextual("application/octet-stream"));
+        assertFalse(BodyCapture.isTextual("image/png"));
+        assertFalse(BodyCapture.isTextual("multipart/form-data; boundary=x"));
+        assertFalse(BodyCapture.isTextual(null));
+    }
+}
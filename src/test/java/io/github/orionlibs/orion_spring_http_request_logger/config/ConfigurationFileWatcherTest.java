@@ -0,0 +1,29 @@
+package io.github.orionlibs.orion_spring_http_request_logger.config;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.io.TempDir;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class ConfigurationFileWatcherTest
+{
+    @Test
+    void test_watch_changedFileRunsCallback(@TempDir Path directory) throws Exception
+    {
+        Path configurationFile = directory.resolve("http-request-logger.properties");
+        CountDownLatch changed = new CountDownLatch(1);
+        try(ConfigurationFileWatcher watcher = new ConfigurationFileWatcher(configurationFile, changed::countDown))
+        {
+            Files.writeString(directory.resolve("other.properties"), "a=b\n");
+            Files.writeString(configurationFile, "orionlibs.orion_spring_http_request_logger.log.sink=MEMORY\n");
+            assertTrue(changed.await(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.orionlibs.orion_spring_http_request_logger.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Properties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class LoggingPolicyTest
+{
+    @Test
+    void test_compile_httpMethodsLogged()
+    {
+        Properties configuration = new Properties();
+        configuration.put("orionlibs.orion_spring_http_request_logger.log.http.method.enabled", "true");
+        configuration.put("orionlibs.orion_spring_http_request_logger.log.http.methods.logged", "GET,POST");
+        configuration.put("orionlibs.orion_spring_http_request_logger.log.uris.logged.pattern", "*");
+        LoggingPolicy policy = LoggingPolicy.compile(configuration);
+        assertTrue(policy.isRequestLogged("GET", "/"));
+        assertTrue(policy.isRequestLogged("post", "/"));
+        assertFalse(policy.isRequestLogged("PUT", "/"));
+        configuration.put("orionlibs.orion_spring_http_request_logger.log.http.methods.logged", "*");
+        assertTrue(LoggingPolicy.compile(configuration).isRequestLogged("PUT", "/"));
+    }
+
+
+    @Test
+    void test_compile_filtersOnlyApplyToLoggedFields()
+    {
+        Properties configuration = new Properties();
+        configuration.put("orionlibs.orion_spring_http_request_logger.log.http.method.enabled", "false");
+        configuration.put("orionlibs.orion_spring_http_request_logger.log.http.methods.logged", "POST");
+        configuration.put("orionlibs.orion_spring_http_request_logger.log.uri.enabled", "false");
+        configuration.put("orionlibs.orion_spring_http_request_logger.log.uris.logged.pattern", "^/api/v1/.*");
+        assertTrue(LoggingPolicy.compile(configuration).isRequestLogged("GET", "/"));
+        configuration.put("orionlibs.orion_spring_http_request_logger.log.uri.enabled", "true");
+        assertTrue(LoggingPolicy.compile(configuration).isRequestLogged("GET", "/api/v1/users"));
+        assertFalse(LoggingPolicy.compile(configuration).isRequestLogged("GET", "/"));
+        configuration.put("orionlibs.orion_spring_http_request_logger.log.http.method.enabled", "true");
+        assertFalse(LoggingPolicy.compile(configuration).isRequestLogged("GET", "/api/v1/users"));
+    }
+
+
+    @Test
+    void test_compile_missingPropertiesDisableFeatures()
+    {
+        LoggingPolicy policy = LoggingPolicy.compile(new Properties());
+        assertFalse(policy.isIpAddressLoggingEnabled());
+        assertFalse(policy.isHttpMethodLoggingEnabled());
+        assertFalse(policy.isUriLoggingEnabled());
+    }
+
+
+    @Test
+    void test_compile_bodyCaptureMaxBytes()
+    {
+        Properties configuration = new Properties();
+        configuration.put("orionlibs.orion_spring_http_request_logger.log.body.capture.enabled", "true");
+        configuration.put("orionlibs.orion_spring_http_request_logger.log.body.capture.max.bytes", "-1");
+        assertThrows(IllegalArgumentException.class, () -> LoggingPolicy.compile(configuration));
+        configuration.put("orionlibs.orion_spring_http_request_logger.log.body.capture.max.bytes", Integer.toString(LoggingPolicy.MAX_BODY_CAPTURE_BYTES + 1));
+        assertThrows(IllegalArgumentException.class, () -> LoggingPolicy.compile(configuration));
+        configuration.put("orionlibs.orion_spring_http_request_logger.log.body.capture.max.bytes", Integer.toString(LoggingPolicy.MAX_BODY_CAPTURE_BYTES));
+        assertEquals(LoggingPolicy.MAX_BODY_CAPTURE_BYTES, LoggingPolicy.compile(configuration).getBodyCaptureMaxBytes());
+    }
+}
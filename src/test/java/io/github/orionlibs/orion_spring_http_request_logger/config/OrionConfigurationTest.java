@@ -1,10 +1,14 @@
 package io.github.orionlibs.orion_spring_http_request_logger.config;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import io.github.orionlibs.orion_spring_http_request_logger.utils.FakeSpringEnvironment;
 import io.github.orionlibs.orion_spring_http_request_logger.configuration.FakeTestingSpringConfiguration.FakeConfiguration;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,6 +16,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.TestInstance.Lifecycle;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
 import org.springframework.test.context.ActiveProfiles;
@@ -70,6 +75,45 @@ public class OrionConfigurationTest
     }
 
 
+    @Test
+    void test_loadFeatureConfiguration_configurationFileOverridesSpringEnvironment(@TempDir Path directory) throws Exception
+    {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("orionlibs.orion_spring_http_request_logger.log.output.format", "JSON");
+        properties.put("orionlibs.orion_spring_http_request_logger.log.uris.logged.pattern", "/api/.*");
+        env = new FakeSpringEnvironment(properties);
+        Path configurationFile = directory.resolve("http-request-logger.properties");
+        Files.writeString(configurationFile, "orionlibs.orion_spring_http_request_logger.log.uris.logged.pattern=*\n");
+        OrionConfiguration featureConfiguration = OrionConfiguration.loadFeatureConfiguration(env, configurationFile);
+        assertEquals("JSON", featureConfiguration.getProperty("orionlibs.orion_spring_http_request_logger.log.output.format"));
+        assertEquals("*", featureConfiguration.getProperty("orionlibs.orion_spring_http_request_logger.log.uris.logged.pattern"));
+        assertEquals("/api/.*", OrionConfiguration.loadFeatureConfiguration(env, directory.resolve("missing.properties"))
+                        .getProperty("orionlibs.orion_spring_http_request_logger.log.uris.logged.pattern"));
+    }
+
+
+    @Test
+    void test_reloadConfiguration_invalidConfigurationKeepsCurrentPolicy() throws Exception
+    {
+        OrionConfiguration featureConfiguration = OrionConfiguration.loadFeatureConfiguration(new FakeSpringEnvironment());
+        featureConfiguration.updateProp("orionlibs.orion_spring_http_request_logger.log.output.format", "XML");
+        LoggingPolicy loggingPolicy = ConfigurationService.getLoggingPolicy();
+        assertThrows(IllegalArgumentException.class, () -> ConfigurationService.reloadConfiguration(featureConfiguration));
+        assertSame(loggingPolicy, ConfigurationService.getLoggingPolicy());
+    }
+
+
+    @Test
+    void test_updateProp_invalidValueKeepsCurrentConfiguration() throws Exception
+    {
+        String outputFormat = ConfigurationService.getProp("orionlibs.orion_spring_http_request_logger.log.output.format");
+        LoggingPolicy loggingPolicy = ConfigurationService.getLoggingPolicy();
+        assertThrows(IllegalArgumentException.class, () -> ConfigurationService.updateProp("orionlibs.orion_spring_http_request_logger.log.output.format", "XML"));
+        assertEquals(outputFormat, ConfigurationService.getProp("orionlibs.orion_spring_http_request_logger.log.output.format"));
+        assertSame(loggingPolicy, ConfigurationService.getLoggingPolicy());
+    }
+
+
     private void buildFakeSpringEnvironmentWithProperties()
     {
         Map<String, String> properties = new HashMap<>();
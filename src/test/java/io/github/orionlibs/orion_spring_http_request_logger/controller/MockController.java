@@ -2,12 +2,19 @@ package io.github.orionlibs.orion_spring_http_request_logger.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 public class MockController
@@ -26,9 +33,48 @@ public class MockController
     }
 
 
+    @GetMapping(value = "/api/v1/users/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getUser(@PathVariable(name = "id") String id, HttpServletRequest request, HttpServletResponse response, Model model)
+    {
+        return ResponseEntity.ok().body(null);
+    }
+
+
     @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> search(@RequestParam(name = "query", required = true) String query, @RequestParam(name = "options", required = true) int options, HttpServletRequest request, HttpServletResponse response, Model model)
     {
         return ResponseEntity.ok().body(null);
     }
-}
\ No newline at end of file
+
+
+    @GetMapping(value = "/conflict", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getConflict(HttpServletRequest request, HttpServletResponse response, Model model)
+    {
+        throw new ResponseStatusException(HttpStatus.CONFLICT);
+    }
+
+
+    @PostMapping(value = "/echo", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<?> echo(@RequestBody String body, HttpServletRequest request, HttpServletResponse response, Model model)
+    {
+        return ResponseEntity.ok().body(body);
+    }
+
+
+    @PostMapping(value = "/echo/writer")
+    public void echoWithWriter(@RequestBody String body, HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(body);
+    }
+
+
+    @GetMapping(value = "/async", produces = MediaType.TEXT_PLAIN_VALUE)
+    public Callable<String> getAsync()
+    {
+        return () -> {
+            Thread.sleep(50L);
+            return "done";
+        };
+    }
+}
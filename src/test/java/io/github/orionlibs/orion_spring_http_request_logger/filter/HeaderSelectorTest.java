@@ -0,0 +1,40 @@
+package io.github.orionlibs.orion_spring_http_request_logger.filter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class HeaderSelectorTest
+{
+    @Test
+    void test_select_allowListAndRedaction()
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("X-Request-Id", "abc");
+        request.addHeader("Accept", "text/plain");
+        request.addHeader("Accept", "application/json");
+        request.addHeader("Authorization", "Bearer secret");
+        request.addHeader("User-Agent", "curl");
+        HeaderSelector selector = HeaderSelector.compile("x-request-id, Accept,AUTHORIZATION,Content-Length", "Authorization,Cookie");
+        assertArrayEquals(new String[] {"x-request-id", "abc", "Accept", "text/plain,application/json", "AUTHORIZATION", "****"}, selector.select(request));
+        assertNull(HeaderSelector.compile("", "Authorization").select(request));
+        assertNull(HeaderSelector.compile("Cookie", "Authorization").select(request));
+        assertTrue(HeaderSelector.compile(null, null).isEmpty());
+    }
+
+
+    @Test
+    void test_select_allHeaders()
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("X-Request-Id", "abc");
+        request.addHeader("Cookie", "session=secret");
+        assertArrayEquals(new String[] {"X-Request-Id", "abc", "Cookie", "****"}, HeaderSelector.compile("*", "cookie").select(request));
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.orionlibs.orion_spring_http_request_logger.filter;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class HttpMethodMatcherTest
+{
+    @Test
+    void test_matches_standardAndExtensionMethods()
+    {
+        HttpMethodMatcher matcher = HttpMethodMatcher.compile("get, Post,PROPFIND");
+        assertTrue(matcher.matches("GET"));
+        assertTrue(matcher.matches("get"));
+        assertTrue(matcher.matches("POST"));
+        assertTrue(matcher.matches("PROPFIND"));
+        assertTrue(matcher.matches("propfind"));
+        assertFalse(matcher.matches("PUT"));
+        assertFalse(matcher.matches("delete"));
+        assertFalse(matcher.matches("MKCOL"));
+        assertFalse(matcher.matches(null));
+    }
+
+
+    @Test
+    void test_matches_allAndNoMethods()
+    {
+        assertTrue(HttpMethodMatcher.compile("*").matches("GET"));
+        assertTrue(HttpMethodMatcher.compile("*").matches("PROPFIND"));
+        assertFalse(HttpMethodMatcher.compile(null).matches("GET"));
+        assertFalse(HttpMethodMatcher.compile("").matches("GET"));
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.orionlibs.orion_spring_http_request_logger.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class QueryStringRedactorTest
+{
+    private static String redact(QueryStringRedactor redactor, String queryString)
+    {
+        StringBuilder builder = new StringBuilder();
+        redactor.appendRedacted(builder, queryString);
+        return builder.toString();
+    }
+
+
+    @Test
+    void test_appendRedacted_parameterNames()
+    {
+        QueryStringRedactor redactor = QueryStringRedactor.compile("password, Token", null);
+        assertEquals("user=bob&password=****&TOKEN=****&tokens=1", redact(redactor, "user=bob&password=hunter2&TOKEN=abc&tokens=1"));
+        assertEquals("password=&flag&&a=1&", redact(redactor, "password=&flag&&a=1&"));
+        assertEquals("", redact(redactor, ""));
+        assertEquals("a=b=c", redact(QueryStringRedactor.compile("", ""), "a=b=c"));
+    }
+
+
+    @Test
+    void test_appendRedacted_valuePattern()
+    {
+        QueryStringRedactor redactor = QueryStringRedactor.compile(null, "[0-9]{13,19}");
+        assertEquals("card=****&amount=4500&ref=****", redact(redactor, "card=4111111111111111&amount=4500&ref=5500000000000004"));
+    }
+
+
+    @Test
+    void test_appendRedacted_parametersWithoutValues()
+    {
+        QueryStringRedactor redactor = QueryStringRedactor.compile("token", null);
+        assertEquals("flag&token=****&other&x=1", redact(redactor, "flag&token=abc&other&x=1"));
+        String queryString = "flag&".repeat(400_000) + "token=abc";
+        String expected = "flag&".repeat(400_000) + "token=****";
+        assertEquals(expected, assertTimeoutPreemptively(Duration.ofSeconds(2), () -> redact(redactor, queryString)));
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.orionlibs.orion_spring_http_request_logger.filter;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class UriExclusionsTest
+{
+    @Test
+    void test_excludes()
+    {
+        UriExclusions uriExclusions = UriExclusions.compile(" /health, /actuator/*, /static/*,*.css, *.js,*.PNG, ,/");
+        assertTrue(uriExclusions.excludes("/health"));
+        assertTrue(uriExclusions.excludes("/"));
+        assertTrue(uriExclusions.excludes("/actuator/"));
+        assertTrue(uriExclusions.excludes("/actuator/health/liveness"));
+        assertTrue(uriExclusions.excludes("/static/x"));
+        assertTrue(uriExclusions.excludes("/site.css"));
+        assertTrue(uriExclusions.excludes("/assets/app.min.JS"));
+        assertTrue(uriExclusions.excludes("/logo.png"));
+        assertFalse(uriExclusions.excludes("/healthz"));
+        assertFalse(uriExclusions.excludes("/actuator"));
+        assertFalse(uriExclusions.excludes("/api/v1/users"));
+        assertFalse(uriExclusions.excludes("/site.cssx"));
+        assertFalse(uriExclusions.excludes(""));
+        assertFalse(uriExclusions.excludes(null));
+        assertFalse(uriExclusions.isEmpty());
+    }
+
+
+    @Test
+    void test_compile_empty()
+    {
+        assertTrue(UriExclusions.compile(null).isEmpty());
+        assertTrue(UriExclusions.compile(" ").isEmpty());
+        assertFalse(UriExclusions.compile(null).excludes("/health"));
+        RequestFilter requestFilter = RequestFilter.compile(UriExclusions.compile("/health"), HttpMethodMatcher.compile("*"), UriMatcher.compile("*"));
+        assertFalse(requestFilter.accepts("GET", "/health"));
+        assertTrue(requestFilter.accepts("GET", "/api/v1/users"));
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.orionlibs.orion_spring_http_request_logger.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class UriMatcherTest
+{
+    private static final List<String> URIS = List.of("/",
+                    "/api/v1/users",
+                    "/api/v1/users/123",
+                    "/api/v2/users",
+                    "/users/",
+                    "/static/site.css",
+                    "/api/v1/it's",
+                    "/api/v1/(x)",
+                    "/health",
+                    "/healthz",
+                    "");
+    private static final List<String> EXPRESSIONS = List.of("^(/[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*)$",
+                    "^(/api/v1/[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*)$",
+                    ".*/users/.*",
+                    "/api/v1/.*",
+                    "^/api/v1/.*$",
+                    ".*\\.css",
+                    "/health",
+                    ".*",
+                    "/api/v[12]/users",
+                    "/health|/healthz",
+                    "/api/v1/[^/]*");
+
+
+    @Test
+    void test_compile_sameResultsAsRegex()
+    {
+        for(String expression : EXPRESSIONS)
+        {
+            Pattern pattern = Pattern.compile(expression);
+            UriMatcher matcher = UriMatcher.compile(expression);
+            for(String uri : URIS)
+            {
+                assertEquals(pattern.matcher(uri).matches(), matcher.matches(uri), expression + " on " + uri);
+            }
+        }
+    }
+
+
+    @Test
+    void test_compile_wildcardAndMissingExpression()
+    {
+        assertTrue(UriMatcher.compile("*").matches("/anything"));
+        assertFalse(UriMatcher.compile(null).matches("/anything"));
+    }
+}
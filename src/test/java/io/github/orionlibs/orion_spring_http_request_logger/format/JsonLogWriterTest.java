@@ -0,0 +1,46 @@
+package io.github.orionlibs.orion_spring_http_request_logger.format;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class JsonLogWriterTest
+{
+    @Test
+    void test_field_escapesAndEncodesUTF8()
+    {
+        String value = "quote\" backslash\\ tab\t control\u0001 é € 😀";
+        JsonLogWriter writer = JsonLogWriter.acquire();
+        String json = writer.beginObject()
+                        .field("uri", value)
+                        .field("query", null)
+                        .field("status", 200)
+                        .field("durationNanos", -1234567890123L)
+                        .endObject()
+                        .toString();
+        JsonLogWriter.release(writer);
+        JsonObject parsed = JsonParser.parseString(json).getAsJsonObject();
+        assertEquals(value, parsed.get("uri").getAsString());
+        assertTrue(parsed.get("query").isJsonNull());
+        assertEquals(200, parsed.get("status").getAsInt());
+        assertEquals(-1234567890123L, parsed.get("durationNanos").getAsLong());
+    }
+
+
+    @Test
+    void test_release_writerIsReset()
+    {
+        JsonLogWriter writer = JsonLogWriter.acquire();
+        writer.beginObject().field("status", 0L).endObject();
+        JsonLogWriter.release(writer);
+        JsonLogWriter reused = JsonLogWriter.acquire();
+        assertEquals("{\"status\":404}", reused.beginObject().field("status", 404).endObject().toString());
+        JsonLogWriter.release(reused);
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.orionlibs.orion_spring_http_request_logger.format;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class LogLineTemplateTest
+{
+    @Test
+    void test_appendElement_sameResultAsStringFormat()
+    {
+        List<String> patterns = List.of("%s: %s", "%s=%s", "[%s] %s%%", "%2$s <- %1$s", "%1$s %1$s: %2$s", "%s:%n%s", "%-6s: %s", "%s: %S", "%s");
+        for(String pattern : patterns)
+        {
+            StringBuilder logMessage = new StringBuilder("prefix ");
+            LogLineTemplate.compile(pattern).appendElement(logMessage, "URI", "GET /");
+            assertEquals("prefix " + String.format(pattern, "URI", "GET /"), logMessage.toString(), pattern);
+        }
+    }
+
+
+    @Test
+    void test_compile_precompiledPatterns()
+    {
+        assertTrue(LogLineTemplate.compile("%s: %s").isPrecompiled());
+        assertTrue(LogLineTemplate.compile("%2$s <- %1$s").isPrecompiled());
+        assertFalse(LogLineTemplate.compile("%-6s: %s").isPrecompiled());
+        assertFalse(LogLineTemplate.compile("%s").isPrecompiled());
+    }
+
+
+    @Test
+    void test_stringBuilderPool_reusesBuilders()
+    {
+        StringBuilder builder = StringBuilderPool.acquire();
+        builder.append("log line");
+        StringBuilderPool.release(builder);
+        StringBuilder reused = StringBuilderPool.acquire();
+        assertEquals(0, reused.length());
+        StringBuilderPool.release(reused);
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.orionlibs.orion_spring_http_request_logger.log;
+
+import io.github.orionlibs.orion_spring_http_request_logger.RequestLogRecord;
+import io.github.orionlibs.orion_spring_http_request_logger.sink.RequestLogSink;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+public class BlockingRequestLogSink implements RequestLogSink
+{
+    private static volatile CountDownLatch writing = new CountDownLatch(1);
+    private static volatile CountDownLatch released = new CountDownLatch(1);
+    private static volatile CountDownLatch closed = new CountDownLatch(1);
+    private static final List<RequestLogRecord> records = new CopyOnWriteArrayList<>();
+
+
+    public static void reset()
+    {
+        writing = new CountDownLatch(1);
+        released = new CountDownLatch(1);
+        closed = new CountDownLatch(1);
+        records.clear();
+    }
+
+
+    @Override
+    public void write(RequestLogRecord record)
+    {
+        writing.countDown();
+        try
+        {
+            released.await();
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        if(closed.getCount() == 0)
+        {
+            throw new IllegalStateException("written after close");
+        }
+        records.add(record);
+    }
+
+
+    @Override
+    public void close()
+    {
+        closed.countDown();
+    }
+
+
+    public static CountDownLatch getWriting()
+    {
+        return writing;
+    }
+
+
+    public static CountDownLatch getReleased()
+    {
+        return released;
+    }
+
+
+    public static CountDownLatch getClosed()
+    {
+        return closed;
+    }
+
+
+    public static List<RequestLogRecord> getRecords()
+    {
+        return records;
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.orionlibs.orion_spring_http_request_logger.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class LatencyHistogramTest
+{
+    @Test
+    void test_bucketIndex_upperBoundContainsValue()
+    {
+        for(long value = 0; value < 1_000_000; value += 7)
+        {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(LatencyHistogram.bucketUpperBound(index) >= value);
+            assertTrue(index == 0 || LatencyHistogram.bucketUpperBound(index - 1) < value);
+        }
+    }
+
+
+    @Test
+    void test_snapshot_percentilesWithinRelativeError()
+    {
+        LatencyHistogram histogram = new LatencyHistogram("handler");
+        for(long i = 1; i <= 100_000; i++)
+        {
+            histogram.record(i * 1000L);
+        }
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(100_000L, snapshot.getCount());
+        assertEquals(100_000_000L, snapshot.getMaxNanos());
+        assertEquals(50_000_500L, snapshot.getMeanNanos());
+        assertWithinRelativeError(50_000_000L, snapshot.getP50Nanos());
+        assertWithinRelativeError(90_000_000L, snapshot.getP90Nanos());
+        assertWithinRelativeError(99_000_000L, snapshot.getP99Nanos());
+        assertWithinRelativeError(99_900_000L, snapshot.getP999Nanos());
+    }
+
+
+    @Test
+    void test_record_handlersBeyondMaximumShareOneHistogram()
+    {
+        LatencyMetricsService.reset();
+        LatencyMetricsService.record("a", 10L, 2);
+        LatencyMetricsService.record("b", 10L, 2);
+        LatencyMetricsService.record("c", 10L, 2);
+        LatencyMetricsService.record("d", 10L, 2);
+        LatencyMetricsService.record("a", 20L, 2);
+        assertEquals(3, LatencyMetricsService.getSnapshots().size());
+        assertTrue(LatencyMetricsService.getSnapshots().stream()
+                        .anyMatch(snapshot -> snapshot.getName().equals(LatencyMetricsService.OTHER_HANDLERS) && snapshot.getCount() == 2));
+        LatencyMetricsService.reset();
+    }
+
+
+    private void assertWithinRelativeError(long expected, long actual)
+    {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.04d, "expected about " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.orionlibs.orion_spring_http_request_logger.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class OpenMetricsServiceTest
+{
+    @BeforeEach
+    void setUp()
+    {
+        OpenMetricsService.reset();
+    }
+
+
+    @AfterEach
+    void tearDown()
+    {
+        OpenMetricsService.reset();
+    }
+
+
+    @Test
+    void test_render()
+    {
+        RouteKey route = new RouteKey("GET", "/api/v1/users/{id}");
+        OpenMetricsService.record(route, 200, 3_000_000L, 10);
+        OpenMetricsService.record(route, 200, 20_000_000L, 10);
+        OpenMetricsService.record(route, 503, 12_000_000_000L, 10);
+        OpenMetricsService.record(new RouteKey("POST", "/say \"hi\""), 201, -1L, 10);
+        String metrics = OpenMetricsService.render();
+        assertTrue(metrics.startsWith("# TYPE http_server_requests counter\n"));
+        assertTrue(metrics.endsWith("# EOF\n"));
+        assertTrue(metrics.contains("http_server_requests_total{method=\"GET\",route=\"/api/v1/users/{id}\",status=\"2xx\"} 2\n"));
+        assertTrue(metrics.contains("http_server_requests_total{method=\"GET\",route=\"/api/v1/users/{id}\",status=\"5xx\"} 1\n"));
+        assertTrue(metrics.contains("http_server_requests_total{method=\"POST\",route=\"/say \\\"hi\\\"\",status=\"2xx\"} 1\n"));
+        assertTrue(metrics.contains("http_server_request_duration_seconds_bucket{method=\"GET\",route=\"/api/v1/users/{id}\",le=\"0.005\"} 1\n"));
+        assertTrue(metrics.contains("http_server_request_duration_seconds_bucket{method=\"GET\",route=\"/api/v1/users/{id}\",le=\"0.025\"} 2\n"));
+        assertTrue(metrics.contains("http_server_request_duration_seconds_bucket{method=\"GET\",route=\"/api/v1/users/{id}\",le=\"10.0\"} 2\n"));
+        assertTrue(metrics.contains("http_server_request_duration_seconds_bucket{method=\"GET\",route=\"/api/v1/users/{id}\",le=\"+Inf\"} 3\n"));
+        assertTrue(metrics.contains("http_server_request_duration_seconds_count{method=\"GET\",route=\"/api/v1/users/{id}\"} 3\n"));
+        assertTrue(metrics.contains("http_server_request_duration_seconds_sum{method=\"GET\",route=\"/api/v1/users/{id}\"} 12.023000000\n"));
+        assertFalse(metrics.contains("http_server_request_duration_seconds_count{method=\"POST\""));
+    }
+
+
+    @Test
+    void test_writeTo_reusesBuffer() throws Exception
+    {
+        for(int i = 0; i < 1000; i++)
+        {
+            OpenMetricsService.record(new RouteKey("GET", "/route/" + i), 200, 1_000_000L, 2000);
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int size = OpenMetricsService.writeTo(output);
+        assertEquals(size, output.size());
+        assertTrue(new String(output.toByteArray(), StandardCharsets.UTF_8).contains("route=\"/route/999\""));
+        int capacity = OpenMetricsService.getBufferCapacity();
+        assertTrue(capacity >= size);
+        for(int i = 0; i < 10; i++)
+        {
+            OpenMetricsService.writeTo(OutputStream.nullOutputStream());
+        }
+        assertEquals(capacity, OpenMetricsService.getBufferCapacity());
+    }
+
+
+    @Test
+    void test_record_maxRoutes()
+    {
+        for(int i = 0; i < 5; i++)
+        {
+            OpenMetricsService.record(new RouteKey("GET", "/route/" + i), 200, 1_000_000L, 2);
+        }
+        String metrics = OpenMetricsService.render();
+        assertTrue(metrics.contains("http_server_requests_total{method=\"OTHER\",route=\"OTHER\",status=\"2xx\"} 3\n"));
+    }
+}
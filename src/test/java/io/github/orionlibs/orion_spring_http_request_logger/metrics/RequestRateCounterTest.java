@@ -0,0 +1,74 @@
+package io.github.orionlibs.orion_spring_http_request_logger.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class RequestRateCounterTest
+{
+    @Test
+    void test_record_rollingWindow()
+    {
+        RequestRateCounter counter = new RequestRateCounter("GET /api/v1/users/{id}", 10);
+        counter.record(200, 1000L);
+        counter.record(200, 1000L);
+        counter.record(404, 1005L);
+        counter.record(500, 1009L);
+        RequestRateSnapshot snapshot = counter.snapshot(1009L);
+        assertEquals(4, snapshot.getCount());
+        assertEquals(2, snapshot.getCount(2));
+        assertEquals(1, snapshot.getCount(4));
+        assertEquals(1, snapshot.getCount(5));
+        assertEquals(0.4d, snapshot.getRequestsPerSecond(), 0.0001d);
+        assertEquals(0.25d, snapshot.getErrorRate(), 0.0001d);
+        //second 1010 reuses the slot of second 1000
+        counter.record(201, 1010L);
+        snapshot = counter.snapshot(1010L);
+        assertEquals(3, snapshot.getCount());
+        assertEquals(1, snapshot.getCount(2));
+        assertEquals(0, counter.snapshot(1030L).getCount());
+        counter.record(999, 1030L);
+        assertEquals(1, counter.snapshot(1030L).getCount(0));
+    }
+
+
+    @Test
+    void test_record_concurrently() throws Exception
+    {
+        RequestRateCounter counter = new RequestRateCounter("GET /", 60);
+        long epochSecond = System.currentTimeMillis() / 1000L;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for(int i = 0; i < 16; i++)
+            {
+                futures.add(executor.submit(() -> {
+                    for(int j = 0; j < 10_000; j++)
+                    {
+                        counter.record(j % 2 == 0 ? 200 : 503, epochSecond);
+                    }
+                }));
+            }
+            for(Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        RequestRateSnapshot snapshot = counter.snapshot(epochSecond);
+        assertEquals(160_000, snapshot.getCount());
+        assertEquals(80_000, snapshot.getCount(5));
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.orionlibs.orion_spring_http_request_logger.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class RouteTemplateResolverTest
+{
+    @BeforeEach
+    void setUp()
+    {
+        RouteTemplateResolver.reset();
+    }
+
+
+    @AfterEach
+    void tearDown()
+    {
+        RouteTemplateResolver.reset();
+    }
+
+
+    @Test
+    void test_resolve_bestMatchingPattern()
+    {
+        Object handler = new Object();
+        assertEquals("/api/v1/users/{id}", RouteTemplateResolver.resolve(request("/api/v1/users/123", "/api/v1/users/{id}"), handler, 10));
+        assertEquals("/api/v1/users/{id}", RouteTemplateResolver.resolve(request("/api/v1/users/456", "/api/v1/users/{id}"), handler, 10));
+        assertEquals("/api/v2/users/{id}", RouteTemplateResolver.resolve(request("/api/v2/users/456", "/api/v2/users/{id}"), handler, 10));
+        assertEquals(0, RouteTemplateResolver.size());
+    }
+
+
+    @Test
+    void test_resolve_withoutPattern()
+    {
+        assertEquals(RouteTemplateResolver.UNMATCHED_ROUTE, RouteTemplateResolver.resolve(request("/missing", null), null, 10));
+        assertEquals("String", RouteTemplateResolver.resolve(request("/static", null), "handler", 10));
+        assertEquals(1, RouteTemplateResolver.size());
+    }
+
+
+    @Test
+    void test_resolve_maxRoutes()
+    {
+        for(int i = 0; i < 5; i++)
+        {
+            assertEquals("Object", RouteTemplateResolver.resolve(request("/route/" + i, null), new Object(), 2));
+        }
+        assertEquals(2, RouteTemplateResolver.size());
+    }
+
+
+    private static MockHttpServletRequest request(String uri, String bestMatchingPattern)
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if(bestMatchingPattern != null)
+        {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, bestMatchingPattern);
+        }
+        return request;
+    }
+}
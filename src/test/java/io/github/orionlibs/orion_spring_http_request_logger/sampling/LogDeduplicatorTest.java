@@ -0,0 +1,67 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sampling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class LogDeduplicatorTest
+{
+    @Test
+    void test_shouldLog_repeatsSuppressedWithinWindow()
+    {
+        List<String> summaries = new ArrayList<>();
+        LogDeduplicator.SummaryListener listener = summaryListener(summaries);
+        LogDeduplicator deduplicator = LogDeduplicator.create(10, 64);
+        assertTrue(deduplicator.shouldLog("127.0.0.1", "GET", "/health", 200, 0L, listener));
+        for(int i = 1; i <= 5; i++)
+        {
+            assertFalse(deduplicator.shouldLog("127.0.0.1", "GET", "/health", 200, i * 1000L, listener));
+        }
+        assertTrue(deduplicator.shouldLog("127.0.0.1", "GET", "/health", 503, 6000L, listener));
+        assertTrue(deduplicator.shouldLog("127.0.0.2", "GET", "/health", 200, 6000L, listener));
+        deduplicator.flushExpired(9000L, listener);
+        assertTrue(summaries.isEmpty());
+        deduplicator.flushExpired(10000L, listener);
+        assertEquals(List.of("127.0.0.1 GET /health 200 repeated 5 times in 10s"), summaries);
+        assertTrue(deduplicator.shouldLog("127.0.0.1", "GET", "/health", 200, 10000L, listener));
+        deduplicator.flushAll(listener);
+        assertEquals(1, summaries.size());
+    }
+
+
+    @Test
+    void test_shouldLog_evictionEmitsSummary()
+    {
+        List<String> summaries = new ArrayList<>();
+        LogDeduplicator.SummaryListener listener = summaryListener(summaries);
+        LogDeduplicator deduplicator = LogDeduplicator.create(60, 1);
+        assertTrue(deduplicator.shouldLog("127.0.0.1", "GET", "/health", 200, 0L, listener));
+        assertFalse(deduplicator.shouldLog("127.0.0.1", "GET", "/health", 200, 1L, listener));
+        assertTrue(deduplicator.shouldLog("127.0.0.1", "GET", "/ready", 200, 2L, listener));
+        assertEquals(List.of("127.0.0.1 GET /health 200 repeated 1 times in 60s"), summaries);
+    }
+
+
+    @Test
+    void test_create()
+    {
+        assertEquals(1024, LogDeduplicator.create(60, 1000).getTableSize());
+        assertEquals(1024, LogDeduplicator.create(60, 1024).getTableSize());
+        assertThrows(IllegalArgumentException.class, () -> LogDeduplicator.create(0, 1024));
+    }
+
+
+    private static LogDeduplicator.SummaryListener summaryListener(List<String> summaries)
+    {
+        return (remoteAddress, httpMethod, route, status, repeats, windowSeconds) -> summaries.add(remoteAddress + " " + httpMethod + " " + route + " " + status
+                        + " repeated " + repeats + " times in " + windowSeconds + "s");
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sampling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.orionlibs.orion_spring_http_request_logger.sampling.RequestSampler.Decision;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class RequestSamplerTest
+{
+    @Test
+    void test_sample_uriRatesAndAlwaysLogRules()
+    {
+        RequestSampler sampler = RequestSampler.compile(1.0d, "/health=0.0; ^/api/v1/.*=0.0", 100, true);
+        assertEquals(Decision.DROPPED, sampler.sample("/health", 200, false, 1_000L));
+        assertEquals(Decision.DROPPED, sampler.sample("/api/v1/users", 200, false, 1_000L));
+        assertEquals(Decision.SAMPLED, sampler.sample("/", 200, false, 1_000L));
+        assertEquals(Decision.ALWAYS_LOGGED, sampler.sample("/health", 503, false, 1_000L));
+        assertEquals(Decision.ALWAYS_LOGGED, sampler.sample("/health", 200, true, 1_000L));
+        assertEquals(Decision.ALWAYS_LOGGED, sampler.sample("/api/v1/users", 200, false, 200_000_000L));
+        assertTrue(sampler.isSlowRequestRuleEnabled());
+        assertEquals(Decision.DROPPED, RequestSampler.compile(0.0d, null, 0, false).sample("/", 500, true, 1_000L));
+    }
+
+
+    @Test
+    void test_isLogged_rateLimited()
+    {
+        RequestSampler sampler = RequestSampler.compile(1.0d, null, 0, false);
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(5);
+        int logged = 0;
+        for(int i = 0; i < 100; i++)
+        {
+            if(sampler.sample("/", 200, false, -1L).isLogged(rateLimiter))
+            {
+                logged++;
+            }
+        }
+        assertEquals(5, logged);
+        assertTrue(Decision.ALWAYS_LOGGED.isLogged(rateLimiter));
+        assertFalse(Decision.DROPPED.isLogged(null));
+    }
+
+
+    @Test
+    void test_compile_invalidRules()
+    {
+        assertThrows(IllegalArgumentException.class, () -> RequestSampler.compile(1.5d, null, 0, true));
+        assertThrows(IllegalArgumentException.class, () -> RequestSampler.compile(1.0d, "/health", 0, true));
+        assertThrows(IllegalArgumentException.class, () -> RequestSampler.compile(1.0d, "/health=2", 0, true));
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.orionlibs.orion_spring_http_request_logger.scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class PeriodicTaskTest
+{
+    @Test
+    void test_schedule_cancelStopsRuns() throws Exception
+    {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch ranTwice = new CountDownLatch(2);
+        PeriodicTask task = new PeriodicTask("periodic-task-test", () -> {
+            runs.incrementAndGet();
+            ranTwice.countDown();
+        });
+        task.schedule(5L);
+        assertTrue(task.isScheduled());
+        assertTrue(ranTwice.await(10, TimeUnit.SECONDS));
+        task.cancel();
+        assertFalse(task.isScheduled());
+        Thread.sleep(20L);
+        int runsAfterCancel = runs.get();
+        Thread.sleep(50L);
+        assertEquals(runsAfterCancel, runs.get());
+        task.shutdown();
+    }
+
+
+    @Test
+    void test_shutdownAll_stopsThreadsAndAllowsRescheduling() throws Exception
+    {
+        CountDownLatch ran = new CountDownLatch(1);
+        CountDownLatch ranAgain = new CountDownLatch(2);
+        PeriodicTask task = new PeriodicTask("periodic-task-shutdown-test", () -> {
+            ran.countDown();
+            ranAgain.countDown();
+        });
+        task.schedule(5L);
+        assertTrue(ran.await(10, TimeUnit.SECONDS));
+        PeriodicTask.shutdownAll();
+        assertFalse(task.isScheduled());
+        assertTrue(awaitNoThread("periodic-task-shutdown-test"));
+        task.schedule(5L);
+        assertTrue(ranAgain.await(10, TimeUnit.SECONDS));
+        task.shutdown();
+    }
+
+
+    private static boolean awaitNoThread(String threadName) throws InterruptedException
+    {
+        for(int i = 0; i < 1000; i++)
+        {
+            if(Thread.getAllStackTraces().keySet().stream().noneMatch(thread -> thread.getName().equals(threadName)))
+            {
+                return true;
+            }
+            Thread.sleep(10L);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,117 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sink;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class AsyncLogWriterTest
+{
+    @Test
+    void test_ringBuffer_boundedFifo()
+    {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+        for(int i = 0; i < 4; i++)
+        {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        assertEquals(1, buffer.poll());
+        assertEquals(2, buffer.poll());
+        assertEquals(3, buffer.poll());
+        assertEquals(4, buffer.poll());
+        assertNull(buffer.poll());
+    }
+
+
+    @Test
+    void test_submit_writesEveryRecordInBatches() throws Exception
+    {
+        ConcurrentLinkedQueue<Integer> written = new ConcurrentLinkedQueue<>();
+        AsyncLogWriter<Integer> writer = new AsyncLogWriter<>(1024, 16, OverflowPolicy.BLOCK, 1, written::addAll);
+        Thread[] producers = new Thread[4];
+        for(int p = 0; p < producers.length; p++)
+        {
+            producers[p] = new Thread(() -> {
+                for(int i = 0; i < 5000; i++)
+                {
+                    writer.submit(i);
+                }
+            });
+            producers[p].start();
+        }
+        for(Thread producer : producers)
+        {
+            producer.join();
+        }
+        assertTrue(writer.awaitWritten(5000L));
+        assertEquals(20000, written.size());
+        assertEquals(0, writer.getDroppedRecords());
+        writer.close(1000L);
+    }
+
+
+    @Test
+    void test_submit_unparksIdleWriter() throws Exception
+    {
+        ConcurrentLinkedQueue<Integer> written = new ConcurrentLinkedQueue<>();
+        AsyncLogWriter<Integer> writer = new AsyncLogWriter<>(16, 4, OverflowPolicy.DROP, 1, written::addAll);
+        for(int i = 0; i < 3; i++)
+        {
+            awaitCondition(writer::isWriterIdle);
+            assertTrue(writer.submit(i));
+            int expectedSize = i + 1;
+            awaitCondition(() -> written.size() == expectedSize);
+        }
+        writer.close(1000L);
+        assertEquals(List.of(0, 1, 2), List.copyOf(written));
+    }
+
+
+    @Test
+    void test_submit_dropsWhenFull() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncLogWriter<Integer> writer = new AsyncLogWriter<>(2, 1, OverflowPolicy.DROP, 1, (List<Integer> batch) -> {
+            try
+            {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for(int i = 0; i < 10; i++)
+        {
+            writer.submit(i);
+        }
+        assertTrue(writer.getDroppedRecords() > 0);
+        release.countDown();
+        writer.close(1000L);
+    }
+
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while(!condition.getAsBoolean())
+        {
+            assertTrue(System.nanoTime() - deadline < 0);
+            Thread.sleep(1L);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.orionlibs.orion_spring_http_request_logger.sink;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.io.TempDir;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class MappedLogFileWriterTest
+{
+    @TempDir
+    Path directory;
+
+
+    private static void append(MappedLogFileWriter writer, int index)
+    {
+        BinaryRecordEncoder encoder = BinaryRecordEncoder.acquire();
+        try
+        {
+            encoder.beginRecord()
+                            .field(BinaryRecordFormat.TIMESTAMP_MILLIS, 0L)
+                            .field(BinaryRecordFormat.IP, "127.0.0.1")
+                            .field(BinaryRecordFormat.METHOD, "GET")
+                            .field(BinaryRecordFormat.URI, "/api/v1/users/" + index)
+                            .field(BinaryRecordFormat.QUERY, "q=héllo")
+                            .header("X-Request-Id", "id-" + index)
+                            .field(BinaryRecordFormat.STATUS, 200)
+                            .field(BinaryRecordFormat.DURATION_NANOS, 1500L)
+                            .field(BinaryRecordFormat.HANDLER, null)
+                            .endRecord();
+            writer.append(encoder);
+        }
+        finally
+        {
+            BinaryRecordEncoder.release(encoder);
+        }
+    }
+
+
+    @Test
+    void test_append_rollsSegmentsAndDecodes() throws Exception
+    {
+        Path segmentsDirectory = directory.resolve("segments");
+        try(MappedLogFileWriter writer = new MappedLogFileWriter(segmentsDirectory, "requests", 256, 0L))
+        {
+            for(int i = 0; i < 10; i++)
+            {
+                append(writer, i);
+            }
+        }
+        List<Path> segments = BinaryLogReader.listSegments(segmentsDirectory);
+        assertEquals(4, segments.size());
+        List<String> lines = new ArrayList<>();
+        for(Path segment : segments)
+        {
+            BinaryLogReader.read(segment, false, lines::add);
+        }
+        assertEquals(10, lines.size());
+        assertEquals("1970-01-01T00:00:00Z IP: 127.0.0.1, URI: GET /api/v1/users/0?q=héllo, X-Request-Id: id-0, Status: 200, Duration: 1500ns", lines.get(0));
+        List<String> jsonLines = new ArrayList<>();
+        BinaryLogReader.read(segments.get(3), true, jsonLines::add);
+        assertEquals("{\"timestamp\":\"1970-01-01T00:00:00Z\",\"ip\":\"127.0.0.1\",\"method\":\"GET\",\"uri\":\"/api/v1/users/9\",\"query\":\"q=héllo\",\"headers\":{\"X-Request-Id\":\"id-9\"},\"status\":200,\"durationNanos\":1500}",
+                        jsonLines.get(jsonLines.size() - 1));
+    }
+}
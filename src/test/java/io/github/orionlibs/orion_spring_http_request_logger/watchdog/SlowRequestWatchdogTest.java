@@ -0,0 +1,75 @@
+package io.github.orionlibs.orion_spring_http_request_logger.watchdog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class SlowRequestWatchdogTest
+{
+    @Test
+    void test_scan_reportsStuckRequestOnce() throws Exception
+    {
+        CountDownLatch tracked = new CountDownLatch(1);
+        CountDownLatch unblocked = new CountDownLatch(1);
+        Thread worker = new Thread(() -> {
+            InFlightRequest request = SlowRequestWatchdog.track("GET", "/api/v1/stuck", 4096);
+            try
+            {
+                tracked.countDown();
+                unblocked.await();
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            finally
+            {
+                SlowRequestWatchdog.untrack(request);
+            }
+        }, "stuck-worker");
+        worker.start();
+        assertTrue(tracked.await(10, TimeUnit.SECONDS));
+        List<String> reports = new ArrayList<>();
+        try
+        {
+            assertEquals(1, SlowRequestWatchdog.scan(0L, 64, reports::add));
+            assertEquals(0, SlowRequestWatchdog.scan(0L, 64, reports::add));
+        }
+        finally
+        {
+            unblocked.countDown();
+            worker.join(10_000L);
+        }
+        assertEquals(1, reports.size());
+        assertTrue(reports.get(0).startsWith("Slow request in flight: GET /api/v1/stuck, Elapsed: "));
+        assertTrue(reports.get(0).contains(", Thread: stuck-worker\n\tat "));
+        assertTrue(reports.get(0).contains("CountDownLatch.await"));
+        assertEquals(0, SlowRequestWatchdog.scan(0L, 64, reports::add));
+    }
+
+
+    @Test
+    void test_register_fullRegistryDoesNotTrack()
+    {
+        InFlightRequestRegistry registry = new InFlightRequestRegistry(2);
+        InFlightRequest first = registry.register("GET", "/1");
+        assertNotNull(first);
+        assertNotNull(registry.register("GET", "/2"));
+        assertNull(registry.register("GET", "/3"));
+        assertEquals(1, registry.getUntrackedRequests());
+        registry.deregister(first);
+        assertFalse(registry.isRegistered(first));
+        assertNotNull(registry.register("GET", "/4"));
+    }
+}